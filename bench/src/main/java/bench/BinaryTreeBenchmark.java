@@ -0,0 +1,106 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks StrongHeap.isStrongHeap and BinaryTreeComparator on large
+ * complete binary trees.
+ *
+ * The heap is a complete tree whose values decrease in breadth-first order,
+ * so it is a strong heap and every node is checked. The comparator compares
+ * the heap with an equal copy, which visits every node, and with a copy that
+ * differs only in its last leaf, which is compared last.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryTreeBenchmark {
+
+    // Creates a tree, of type (Object, Object, Object)Object
+    private static final MethodHandle NEW_TREE = Unnamed.constructor(
+            "BinaryTree", Object.class, Unnamed.type("BinaryTree"),
+            Unnamed.type("BinaryTree")).asType(MethodType.methodType(
+            Object.class, Object.class, Object.class, Object.class));
+
+    // Checks for a strong heap, of type (Object)boolean
+    private static final MethodHandle IS_STRONG_HEAP = Unnamed.method(
+            "StrongHeap", "isStrongHeap", Unnamed.type("BinaryTree"))
+            .asType(MethodType.methodType(boolean.class, Object.class));
+
+    @Param({"1023", "65535", "1048575"})
+    public int size;
+
+    // Stores the heap
+    private Object heap;
+
+    // Stores a copy of the heap
+    private Object copy;
+
+    // Stores a copy of the heap with a different last leaf
+    private Object different;
+
+    // Stores the comparator
+    private Comparator<Object> comparator;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Throwable {
+        heap = build(0, -1);
+        copy = build(0, -1);
+        different = build(0, size - 1);
+        comparator = (Comparator<Object>) Unnamed.constructor(
+                "BinaryTreeComparator").invoke();
+    }
+
+    /**
+     * Builds the subtree of a complete binary tree rooted at the node with
+     * the given breadth-first index, where the node with index i has the
+     * value size - i.
+     *
+     * @param index the breadth-first index of the root of the subtree.
+     * @param changed the index of the node whose value is negated, or -1.
+     * @return the subtree, or null if the index is not in the tree.
+     */
+    private Object build(int index, int changed) throws Throwable {
+        if (index >= size) {
+            return null;
+        }
+        Object left = build(2 * index + 1, changed);
+        Object right = build(2 * index + 2, changed);
+        Object value = index == changed ? index - size : size - index;
+        return NEW_TREE.invokeExact(value, left, right);
+    }
+
+    @Benchmark
+    public boolean isStrongHeap() throws Throwable {
+        return (boolean) IS_STRONG_HEAP.invokeExact(heap);
+    }
+
+    @Benchmark
+    public int compareEqual() {
+        return comparator.compare(heap, copy);
+    }
+
+    @Benchmark
+    public int compareDifferent() {
+        return comparator.compare(heap, different);
+    }
+}
@@ -0,0 +1,122 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the d-ary heap sort at each arity, per element type, to find
+ * the arity that suits each element size: ints (4 bytes), longs and doubles
+ * (8 bytes) and Integers (a 4-byte compressed reference to a boxed value).
+ *
+ * As for (@see SortBenchmark), each invocation copies random input into a
+ * work array and sorts it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaryHeapsortBenchmark {
+
+    @Param({"2", "4", "8", "16"})
+    public int arity;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Stores the inputs, which are never modified
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private Integer[] integers;
+
+    // Stores the arrays that are sorted
+    private int[] intWork;
+    private long[] longWork;
+    private double[] doubleWork;
+    private Integer[] integerWork;
+
+    // Stores the sorts at the arity, of type (X[])void
+    private MethodHandle intSort;
+    private MethodHandle longSort;
+    private MethodHandle doubleSort;
+    private MethodHandle integerSort;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3506);
+        ints = random.ints(size).toArray();
+        longs = random.longs(size).toArray();
+        doubles = random.doubles(size).toArray();
+        integers = Distribution.RANDOM.generateBoxed(size, 3506);
+        intWork = new int[size];
+        longWork = new long[size];
+        doubleWork = new double[size];
+        integerWork = new Integer[size];
+        intSort = sort(int[].class);
+        longSort = sort(long[].class);
+        doubleSort = sort(double[].class);
+        MethodHandle sort = Unnamed.method("DaryHeap", "heapsort",
+                Object[].class, int.class, Comparator.class);
+        integerSort = MethodHandles.insertArguments(sort, 1, arity,
+                Comparator.naturalOrder()).asType(
+                MethodType.methodType(void.class, Integer[].class));
+    }
+
+    @Benchmark
+    public int[] sortInts() throws Throwable {
+        System.arraycopy(ints, 0, intWork, 0, size);
+        intSort.invokeExact(intWork);
+        return intWork;
+    }
+
+    @Benchmark
+    public long[] sortLongs() throws Throwable {
+        System.arraycopy(longs, 0, longWork, 0, size);
+        longSort.invokeExact(longWork);
+        return longWork;
+    }
+
+    @Benchmark
+    public double[] sortDoubles() throws Throwable {
+        System.arraycopy(doubles, 0, doubleWork, 0, size);
+        doubleSort.invokeExact(doubleWork);
+        return doubleWork;
+    }
+
+    @Benchmark
+    public Integer[] sortIntegers() throws Throwable {
+        System.arraycopy(integers, 0, integerWork, 0, size);
+        integerSort.invokeExact(integerWork);
+        return integerWork;
+    }
+
+    /**
+     * Gets the d-ary heap sort of a primitive array type at the arity.
+     *
+     * @param array the array type.
+     * @return the sort, of type (array)void.
+     */
+    private MethodHandle sort(Class<?> array) {
+        MethodHandle sort = Unnamed.method("DaryHeap", "heapsort", array,
+                int.class);
+        return MethodHandles.insertArguments(sort, 1, arity);
+    }
+}
@@ -0,0 +1,159 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * The orders of input that the sort benchmarks are run on.
+ */
+public enum Distribution {
+
+    // Uniformly random ints
+    RANDOM,
+
+    // 0, 1, ..., n - 1
+    SORTED,
+
+    // n - 1, n - 2, ..., 0
+    REVERSED,
+
+    // Random ints from [0, 16)
+    FEW_UNIQUE,
+
+    // Ascending runs of sqrt(n) random ints each
+    SAWTOOTH;
+
+    /**
+     * Generates an input of this distribution. The same size and seed always
+     * give the same input.
+     *
+     * @param n the number of elements.
+     * @param seed the seed of the random numbers.
+     * @return the input.
+     */
+    int[] generate(int n, long seed) {
+        Random random = new Random(seed);
+        int[] input = new int[n];
+        switch (this) {
+            case RANDOM:
+                for (int i = 0; i < n; i++) {
+                    input[i] = random.nextInt();
+                }
+                break;
+            case SORTED:
+                for (int i = 0; i < n; i++) {
+                    input[i] = i;
+                }
+                break;
+            case REVERSED:
+                for (int i = 0; i < n; i++) {
+                    input[i] = n - 1 - i;
+                }
+                break;
+            case FEW_UNIQUE:
+                for (int i = 0; i < n; i++) {
+                    input[i] = random.nextInt(16);
+                }
+                break;
+            default:
+                int tooth = Math.max(1, (int) Math.sqrt(n));
+                for (int i = 0; i < n; i += tooth) {
+                    int base = random.nextInt(n);
+                    for (int j = i; j < Math.min(n, i + tooth); j++) {
+                        base += random.nextInt(4);
+                        input[j] = base;
+                    }
+                }
+        }
+        return input;
+    }
+
+    /**
+     * Generates a long input of this distribution. Random longs use all 64
+     * bits; the other distributions are the int input, widened.
+     *
+     * @param n the number of elements.
+     * @param seed the seed of the random numbers.
+     * @return the input.
+     */
+    long[] generateLongs(int n, long seed) {
+        if (this == RANDOM) {
+            return new Random(seed).longs(n).toArray();
+        }
+        int[] input = generate(n, seed);
+        long[] longs = new long[n];
+        for (int i = 0; i < n; i++) {
+            longs[i] = input[i];
+        }
+        return longs;
+    }
+
+    /**
+     * Generates a double input of this distribution: the int input, halved,
+     * with a NaN and a -0.0 in every 1000 elements so that the handling of
+     * both is part of every score.
+     *
+     * @param n the number of elements.
+     * @param seed the seed of the random numbers.
+     * @return the input.
+     */
+    double[] generateDoubles(int n, long seed) {
+        int[] input = generate(n, seed);
+        double[] doubles = new double[n];
+        for (int i = 0; i < n; i++) {
+            doubles[i] = i % 1000 == 499 ? -0.0 :
+                    i % 1000 == 999 ? Double.NaN : input[i] / 2.0;
+        }
+        return doubles;
+    }
+
+    /**
+     * Generates a float input of this distribution, as for generateDoubles().
+     *
+     * @param n the number of elements.
+     * @param seed the seed of the random numbers.
+     * @return the input.
+     */
+    float[] generateFloats(int n, long seed) {
+        double[] input = generateDoubles(n, seed);
+        float[] floats = new float[n];
+        for (int i = 0; i < n; i++) {
+            floats[i] = (float) input[i];
+        }
+        return floats;
+    }
+
+    /**
+     * Generates a string input of this distribution: each int as 8 hex
+     * digits after a common prefix, in the same order as the ints.
+     *
+     * @param n the number of elements.
+     * @param seed the seed of the random numbers.
+     * @return the input.
+     */
+    String[] generateStrings(int n, long seed) {
+        int[] input = generate(n, seed);
+        String[] strings = new String[n];
+        for (int i = 0; i < n; i++) {
+            // Flipping the sign bit orders the hex digits as the ints
+            strings[i] = String.format("key/%08x",
+                    input[i] ^ Integer.MIN_VALUE);
+        }
+        return strings;
+    }
+
+    /**
+     * Generates a boxed input of this distribution.
+     *
+     * @param n the number of elements.
+     * @param seed the seed of the random numbers.
+     * @return the input.
+     */
+    Integer[] generateBoxed(int n, long seed) {
+        int[] input = generate(n, seed);
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = input[i];
+        }
+        return boxed;
+    }
+}
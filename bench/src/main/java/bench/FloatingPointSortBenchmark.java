@@ -0,0 +1,72 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the sorts of float and double arrays ascending, as for
+ * (@see PrimitiveSortBenchmark). The inputs include NaN and -0.0, so the
+ * passes that move the NaNs to the end and order the zeros are measured,
+ * and the float quick sort partitions without branching.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloatingPointSortBenchmark {
+
+    @Param({"quickSort", "mergeSort", "sort", "quaternaryHeapsort"})
+    public String algorithm;
+
+    @Param({"float", "double"})
+    public String type;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SAWTOOTH"})
+    public Distribution distribution;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Stores the input, an array of the type, which is never modified
+    private Object input;
+
+    // Stores the array that is sorted
+    private Object work;
+
+    // Stores the sort, of type (Object)void
+    private MethodHandle sort;
+
+    @Setup
+    public void setUp() {
+        if (type.equals("float")) {
+            input = distribution.generateFloats(size, 3506);
+            work = new float[size];
+        } else {
+            input = distribution.generateDoubles(size, 3506);
+            work = new double[size];
+        }
+        sort = PrimitiveSortBenchmark.primitiveSort(algorithm,
+                input.getClass());
+    }
+
+    @Benchmark
+    public Object sort() throws Throwable {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.invokeExact(work);
+        return work;
+    }
+}
@@ -0,0 +1,104 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the sorts of Integer arrays by a key, as for
+ * (@see SortBenchmark): the stable radix sort by a long key, and the sorts
+ * that extract each key once, against sort() with a comparator that
+ * extracts both keys on every comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeySortBenchmark {
+
+    @Param({"radixSort", "sortByKey", "sortByLongKey", "sortByDoubleKey",
+            "sort"})
+    public String algorithm;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SAWTOOTH"})
+    public Distribution distribution;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Stores the input, which is never modified
+    private Integer[] input;
+
+    // Stores the array that is sorted
+    private Integer[] work;
+
+    // Stores the sort, of type (Integer[])void
+    private MethodHandle sort;
+
+    @Setup
+    public void setUp() {
+        input = distribution.generateBoxed(size, 3506);
+        work = new Integer[size];
+        ToLongFunction<Integer> longKey = Integer::longValue;
+        MethodHandle sort;
+        switch (algorithm) {
+            case "radixSort":
+            case "sortByLongKey":
+                sort = keySort(ToLongFunction.class, longKey);
+                break;
+            case "sortByDoubleKey":
+                sort = keySort(ToDoubleFunction.class,
+                        (ToDoubleFunction<Integer>) Integer::doubleValue);
+                break;
+            case "sortByKey":
+                sort = keySort(Function.class, Function.identity());
+                break;
+            default:
+                sort = MethodHandles.insertArguments(
+                        Unnamed.method("SortingAlgorithms", algorithm,
+                                Object[].class, Comparator.class), 1,
+                        Comparator.comparingLong(longKey));
+        }
+        this.sort = sort.asType(MethodType.methodType(void.class,
+                Integer[].class));
+    }
+
+    @Benchmark
+    public Integer[] sort() throws Throwable {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.invokeExact(work);
+        return work;
+    }
+
+    /**
+     * Gets the sort by a key, ascending.
+     *
+     * @param keyType the erased type of the key function.
+     * @param key the key function.
+     * @return the sort, of type (Object[])void.
+     */
+    private MethodHandle keySort(Class<?> keyType, Object key) {
+        MethodHandle sort = Unnamed.method("SortingAlgorithms", algorithm,
+                Object[].class, keyType, boolean.class);
+        return MethodHandles.insertArguments(sort, 1, key, false);
+    }
+}
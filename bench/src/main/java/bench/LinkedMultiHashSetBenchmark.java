@@ -0,0 +1,207 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the operations of LinkedMultiHashSet at varying load factors
+ * and churn rates.
+ *
+ * The set has a fixed capacity and is filled with loadFactor * CAPACITY
+ * distinct random Integers, so it never resizes. Each operation benchmark
+ * runs a batch of BATCH operations, and its score is per operation. In the
+ * churn benchmark, churnPercent of the operations remove the oldest element
+ * and add a new one, which leaves tombstones behind for the lookups that
+ * make up the rest. churnPercent is a parameter of that benchmark only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkedMultiHashSetBenchmark {
+
+    // Stores the capacity of the set
+    private static final int CAPACITY = 1 << 16;
+
+    // Stores the number of operations per invocation
+    private static final int BATCH = 1024;
+
+    // Creates a set, of type (int)Object
+    private static final MethodHandle NEW = Unnamed.constructor(
+            "LinkedMultiHashSet", int.class).asType(
+            MethodType.methodType(Object.class, int.class));
+
+    // Adds an element, of type (Object, Object)void
+    private static final MethodHandle ADD = Unnamed.method(
+            "LinkedMultiHashSet", "add", Object.class).asType(
+            MethodType.methodType(void.class, Object.class, Object.class));
+
+    // Removes an element, of type (Object, Object)void
+    private static final MethodHandle REMOVE = Unnamed.method(
+            "LinkedMultiHashSet", "remove", Object.class).asType(
+            MethodType.methodType(void.class, Object.class, Object.class));
+
+    // Checks for an element, of type (Object, Object)boolean
+    private static final MethodHandle CONTAINS = Unnamed.method(
+            "LinkedMultiHashSet", "contains", Object.class).asType(
+            MethodType.methodType(boolean.class, Object.class,
+                    Object.class));
+
+    // A set filled to a load factor
+    @State(Scope.Thread)
+    public static class Filled {
+
+        @Param({"0.25", "0.5", "0.75", "0.9"})
+        public double loadFactor;
+
+        // Stores the set
+        Object set;
+
+        // Stores the live elements, oldest first from head
+        Integer[] live;
+
+        // Stores the index in live of the oldest element
+        int head;
+
+        // Stores elements that are not in the set
+        Integer[] absent;
+
+        // Stores the index of the next element to look up
+        private int cursor;
+
+        @Setup
+        public void setUp() throws Throwable {
+            // Distinct random non-negative elements, so new elements added by
+            // churn() can be negative
+            Random random = new Random(3506);
+            int n = (int) (loadFactor * CAPACITY);
+            Iterator<Integer> elements = random.ints(0, Integer.MAX_VALUE)
+                    .distinct().limit(n + BATCH).boxed().iterator();
+            set = NEW.invokeExact(CAPACITY);
+            live = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                live[i] = elements.next();
+                ADD.invokeExact(set, (Object) live[i]);
+            }
+            absent = new Integer[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                absent[i] = elements.next();
+            }
+        }
+
+        /**
+         * Gets the next live element to look up, cycling through them.
+         *
+         * @return the element.
+         */
+        Object nextLive() {
+            Integer element = live[cursor];
+            cursor = cursor + 1 == live.length ? 0 : cursor + 1;
+            return element;
+        }
+    }
+
+    // A set filled to a load factor, with a share of operations that churn
+    @State(Scope.Thread)
+    public static class Churning extends Filled {
+
+        @Param({"0", "10", "50"})
+        public int churnPercent;
+
+        // Stores whether each operation of a batch churns
+        boolean[] churns;
+
+        // Stores the next new element to add
+        int next;
+
+        @Setup
+        public void setUpChurn() {
+            Random random = new Random(3506);
+            churns = new boolean[BATCH];
+            for (int i = 0; i < BATCH; i++) {
+                churns[i] = random.nextInt(100) < churnPercent;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int containsHit(Filled state) throws Throwable {
+        int found = 0;
+        for (int i = 0; i < BATCH; i++) {
+            found += (boolean) CONTAINS.invokeExact(state.set,
+                    state.nextLive()) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int containsMiss(Filled state) throws Throwable {
+        int found = 0;
+        for (int i = 0; i < BATCH; i++) {
+            found += (boolean) CONTAINS.invokeExact(state.set,
+                    (Object) state.absent[i]) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addRemoveDuplicate(Filled state) throws Throwable {
+        // Adding and removing an occurrence leaves the distinct elements as
+        // they were
+        for (int i = 0; i < BATCH; i++) {
+            Object element = state.nextLive();
+            ADD.invokeExact(state.set, element);
+            REMOVE.invokeExact(state.set, element);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int churn(Churning state) throws Throwable {
+        int found = 0;
+        for (int i = 0; i < BATCH; i++) {
+            if (state.churns[i]) {
+                REMOVE.invokeExact(state.set, (Object) state.live[state.head]);
+                // A new element, distinct from the initial and absent ones
+                // because it is negative
+                Integer element = -1 - state.next++;
+                ADD.invokeExact(state.set, (Object) element);
+                state.live[state.head] = element;
+                state.head = (state.head + 1) % state.live.length;
+            } else {
+                found += (boolean) CONTAINS.invokeExact(state.set,
+                        state.nextLive()) ? 1 : 0;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long iterate(Filled state) {
+        long sum = 0;
+        for (Object element : (Iterable<?>) state.set) {
+            sum += (Integer) element;
+        }
+        return sum;
+    }
+}
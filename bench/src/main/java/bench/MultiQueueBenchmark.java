@@ -0,0 +1,104 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the throughput of MultiQueue against PriorityBlockingQueue, a
+ * single heap behind a single lock, shared by every benchmark thread.
+ *
+ * Each operation adds a random element and polls one, so the size of the
+ * queue stays at its initial size. Run with -t 1, -t 2, -t 4 and so on to
+ * see how each scales with the number of threads; the MultiQueue has two
+ * heaps per available processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiQueueBenchmark {
+
+    @Param({"MultiQueue", "PriorityBlockingQueue"})
+    public String queue;
+
+    @Param({"100000"})
+    public int size;
+
+    // Stores MultiQueue.add, of type (Object, Object)void, and poll, of type
+    // (Object)Object. They are constants, so that the JIT inlines them as it
+    // does the calls to PriorityBlockingQueue
+    private static final MethodHandle ADD = Unnamed.method("MultiQueue",
+            "add", Object.class).asType(MethodType.methodType(void.class,
+            Object.class, Object.class));
+    private static final MethodHandle POLL = Unnamed.method("MultiQueue",
+            "poll").asType(MethodType.methodType(Object.class, Object.class));
+
+    // Stores the MultiQueue, or null
+    private Object multiQueue;
+
+    // Stores the PriorityBlockingQueue, or null
+    private PriorityBlockingQueue<Integer> blocking;
+
+    @Setup
+    public void setUp() throws Throwable {
+        if (queue.equals("MultiQueue")) {
+            multiQueue = Unnamed.constructor("MultiQueue", Comparator.class)
+                    .invoke(Comparator.naturalOrder());
+        } else {
+            blocking = new PriorityBlockingQueue<>();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) {
+            add(random.nextInt());
+        }
+    }
+
+    @Benchmark
+    public Object addPoll() throws Throwable {
+        add(ThreadLocalRandom.current().nextInt());
+        return poll();
+    }
+
+    /**
+     * Adds an element to the queue.
+     *
+     * @param element the element.
+     */
+    private void add(Integer element) throws Throwable {
+        if (blocking != null) {
+            blocking.add(element);
+        } else {
+            ADD.invokeExact(multiQueue, (Object) element);
+        }
+    }
+
+    /**
+     * Polls the queue.
+     *
+     * @return the element polled, or null.
+     */
+    private Object poll() throws Throwable {
+        if (blocking != null) {
+            return blocking.poll();
+        }
+        return (Object) POLL.invokeExact(multiQueue);
+    }
+}
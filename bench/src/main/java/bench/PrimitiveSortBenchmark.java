@@ -0,0 +1,92 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the sorts of int and long arrays ascending, across
+ * distributions and sizes, as for (@see SortBenchmark).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveSortBenchmark {
+
+    @Param({"quickSort", "mergeSort", "radixSort", "sort",
+            "quaternaryHeapsort"})
+    public String algorithm;
+
+    @Param({"int", "long"})
+    public String type;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SAWTOOTH"})
+    public Distribution distribution;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Stores the input, an array of the type, which is never modified
+    private Object input;
+
+    // Stores the array that is sorted
+    private Object work;
+
+    // Stores the sort, of type (Object)void
+    private MethodHandle sort;
+
+    @Setup
+    public void setUp() {
+        if (type.equals("int")) {
+            input = distribution.generate(size, 3506);
+            work = new int[size];
+        } else {
+            input = distribution.generateLongs(size, 3506);
+            work = new long[size];
+        }
+        sort = primitiveSort(algorithm, input.getClass());
+    }
+
+    @Benchmark
+    public Object sort() throws Throwable {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.invokeExact(work);
+        return work;
+    }
+
+    /**
+     * Gets an ascending sort of a primitive array type: a sort of
+     * SortingAlgorithms that takes a reversed flag, or the quaternary heap
+     * sort.
+     *
+     * @param algorithm the name of the sort.
+     * @param array the array type.
+     * @return the sort, of type (Object)void.
+     */
+    static MethodHandle primitiveSort(String algorithm, Class<?> array) {
+        MethodType type = MethodType.methodType(void.class, Object.class);
+        if (algorithm.equals("quaternaryHeapsort")) {
+            return Unnamed.method("QuaternaryHeapsort", algorithm, array)
+                    .asType(type);
+        }
+        MethodHandle sort = Unnamed.method("SortingAlgorithms", algorithm,
+                array, boolean.class);
+        return MethodHandles.insertArguments(sort, 1, false).asType(type);
+    }
+}
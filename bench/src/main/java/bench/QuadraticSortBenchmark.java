@@ -0,0 +1,61 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the O(n^2) sorts of Integer arrays, as for
+ * (@see SortBenchmark), at the sizes where they are still usable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadraticSortBenchmark {
+
+    @Param({"selectionSort", "insertionSort"})
+    public String algorithm;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SAWTOOTH"})
+    public Distribution distribution;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    // Stores the input, which is never modified
+    private Integer[] input;
+
+    // Stores the array that is sorted
+    private Integer[] work;
+
+    // Stores the sort, of type (Integer[])void
+    private MethodHandle sort;
+
+    @Setup
+    public void setUp() {
+        input = distribution.generateBoxed(size, 3506);
+        work = new Integer[size];
+        sort = SortBenchmark.objectSort(algorithm);
+    }
+
+    @Benchmark
+    public Integer[] sort() throws Throwable {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.invokeExact(work);
+        return work;
+    }
+}
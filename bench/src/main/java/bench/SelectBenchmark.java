@@ -0,0 +1,78 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks selecting the median and sorting the TOP smallest elements of
+ * Integer arrays, against sorting the whole array, as for
+ * (@see SortBenchmark).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectBenchmark {
+
+    // Stores the number of elements partialSort sorts
+    private static final int TOP = 100;
+
+    @Param({"select", "partialSort", "sort"})
+    public String algorithm;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SAWTOOTH"})
+    public Distribution distribution;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Stores the input, which is never modified
+    private Integer[] input;
+
+    // Stores the array that is rearranged
+    private Integer[] work;
+
+    // Stores the selection or sort, of type (Integer[])void
+    private MethodHandle select;
+
+    @Setup
+    public void setUp() {
+        input = distribution.generateBoxed(size, 3506);
+        work = new Integer[size];
+        MethodType type = MethodType.methodType(void.class, Integer[].class);
+        if (algorithm.equals("sort")) {
+            select = SortBenchmark.objectSort(algorithm);
+            return;
+        }
+        MethodHandle select = Unnamed.method("SortingAlgorithms", algorithm,
+                Object[].class, int.class, Comparator.class);
+        int index = algorithm.equals("select") ? size / 2 : TOP;
+        // asType drops the element select returns
+        this.select = MethodHandles.insertArguments(select, 1, index,
+                Comparator.naturalOrder()).asType(type);
+    }
+
+    @Benchmark
+    public Integer[] select() throws Throwable {
+        System.arraycopy(input, 0, work, 0, size);
+        select.invokeExact(work);
+        return work;
+    }
+}
@@ -0,0 +1,87 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the O(n log n) sorts of Integer arrays in their natural order,
+ * across distributions and sizes.
+ *
+ * Each invocation copies the input into a work array and sorts it, so the
+ * copy is part of every score; it is the same for every algorithm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortBenchmark {
+
+    @Param({"quickSort", "mergeSort", "parallelMergeSort", "inPlaceMergeSort",
+            "timSort", "parallelSampleSort", "sort", "quaternaryHeapsort"})
+    public String algorithm;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SAWTOOTH"})
+    public Distribution distribution;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Stores the input, which is never modified
+    private Integer[] input;
+
+    // Stores the array that is sorted
+    private Integer[] work;
+
+    // Stores the sort, of type (Integer[])void
+    private MethodHandle sort;
+
+    @Setup
+    public void setUp() {
+        input = distribution.generateBoxed(size, 3506);
+        work = new Integer[size];
+        sort = objectSort(algorithm);
+    }
+
+    @Benchmark
+    public Integer[] sort() throws Throwable {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.invokeExact(work);
+        return work;
+    }
+
+    /**
+     * Gets a sort of Integer arrays in their natural order: a sort of
+     * SortingAlgorithms that takes a comparator, or the quaternary heap sort.
+     *
+     * @param algorithm the name of the sort.
+     * @return the sort, of type (Integer[])void.
+     */
+    static MethodHandle objectSort(String algorithm) {
+        MethodType type = MethodType.methodType(void.class, Integer[].class);
+        if (algorithm.equals("quaternaryHeapsort")) {
+            return Unnamed.method("QuaternaryHeapsort", algorithm,
+                    Comparable[].class).asType(type);
+        }
+        MethodHandle sort = Unnamed.method("SortingAlgorithms", algorithm,
+                Object[].class, Comparator.class);
+        return MethodHandles.insertArguments(sort, 1,
+                Comparator.naturalOrder()).asType(type);
+    }
+}
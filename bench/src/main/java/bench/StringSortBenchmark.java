@@ -0,0 +1,76 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the sorts of String arrays in their natural order, as for
+ * (@see SortBenchmark): the multikey quicksort of radixSort against the
+ * comparison sorts. Every string shares a four character prefix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringSortBenchmark {
+
+    @Param({"radixSort", "quickSort", "mergeSort", "sort"})
+    public String algorithm;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SAWTOOTH"})
+    public Distribution distribution;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    // Stores the input, which is never modified
+    private String[] input;
+
+    // Stores the array that is sorted
+    private String[] work;
+
+    // Stores the sort, of type (String[])void
+    private MethodHandle sort;
+
+    @Setup
+    public void setUp() {
+        input = distribution.generateStrings(size, 3506);
+        work = new String[size];
+        MethodType type = MethodType.methodType(void.class, String[].class);
+        if (algorithm.equals("radixSort")) {
+            MethodHandle sort = Unnamed.method("SortingAlgorithms", algorithm,
+                    String[].class, boolean.class);
+            this.sort = MethodHandles.insertArguments(sort, 1, false)
+                    .asType(type);
+        } else {
+            MethodHandle sort = Unnamed.method("SortingAlgorithms", algorithm,
+                    Object[].class, Comparator.class);
+            this.sort = MethodHandles.insertArguments(sort, 1,
+                    Comparator.naturalOrder()).asType(type);
+        }
+    }
+
+    @Benchmark
+    public String[] sort() throws Throwable {
+        System.arraycopy(input, 0, work, 0, size);
+        sort.invokeExact(work);
+        return work;
+    }
+}
@@ -0,0 +1,96 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Looks up the classes under test, which are in the unnamed package.
+ *
+ * JMH refuses benchmarks in the unnamed package, and a named package cannot
+ * refer to classes in the unnamed package by name, so the benchmarks reach
+ * them through method handles. Only a handle in a static final field is a
+ * constant that the JIT can inline; the sort benchmarks keep the handle for
+ * their algorithm parameter in an instance field, so each invocation pays
+ * for one call through a handle that is not inlined. That is a few
+ * nanoseconds per sort, the same for every algorithm, and is included in
+ * the scores. MultiQueueBenchmark calls its handles per operation, so it
+ * keeps them in static final fields.
+ */
+final class Unnamed {
+
+    // Stores the lookup used to turn reflected members into handles
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Unnamed() {
+    }
+
+    /**
+     * Gets a class of the unnamed package.
+     *
+     * @param name the simple name of the class.
+     * @return the class.
+     */
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException(name, e);
+        }
+    }
+
+    /**
+     * Gets a handle to a method of a class of the unnamed package, which may
+     * be package-private.
+     *
+     * @param owner the simple name of the class declaring the method.
+     * @param name the name of the method.
+     * @param parameters the erased parameter types of the method.
+     * @return the handle.
+     */
+    static MethodHandle method(String owner, String name,
+            Class<?>... parameters) {
+        try {
+            Method method = type(owner).getDeclaredMethod(name, parameters);
+            method.setAccessible(true);
+            return LOOKUP.unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(owner + "." + name, e);
+        }
+    }
+
+    /**
+     * Gets a handle to a constructor of a class of the unnamed package.
+     *
+     * @param owner the simple name of the class.
+     * @param parameters the erased parameter types of the constructor.
+     * @return the handle.
+     */
+    static MethodHandle constructor(String owner, Class<?>... parameters) {
+        try {
+            Constructor<?> constructor =
+                    type(owner).getDeclaredConstructor(parameters);
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(owner, e);
+        }
+    }
+
+    /**
+     * Rethrows whatever a method handle threw, unchecked.
+     *
+     * @param t the throwable.
+     * @return never returns.
+     */
+    static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,308 @@
+/**
+ * Introspective quick sort kernels for int[] and float[] whose inner loops do
+ * not branch on the data (@see SortingAlgorithms).
+ *
+ * Partitioning is a branchless Lomuto scheme: every element is swapped with
+ * the first element not known to be less than the pivot, and the boundary
+ * advances by the result of the comparison, so a comparison never causes a
+ * branch misprediction. If nothing is less than the pivot, a second pass
+ * gathers the elements equal to it, so that ranges with many duplicates are
+ * not partitioned again. Ranges of at most NETWORK_THRESHOLD elements are
+ * sorted with a sorting network of min/max compare-exchanges, and the
+ * recursion falls back to QuaternaryHeapsort past a depth of 2 log n.
+ *
+ * The float kernel orders -0.0 and 0.0 as equal and must not be given NaN.
+ */
+final class BranchlessSort {
+
+    // Ranges of at most this many elements are sorted with a sorting network
+    static final int NETWORK_THRESHOLD = 16;
+
+    // Ranges of more than this many elements use the ninther as the pivot
+    private static final int NINTHER_THRESHOLD = 128;
+
+    // Stores the comparators of the sorting network of each size up to
+    // NETWORK_THRESHOLD, as consecutive pairs of indexes
+    private static final int[][] NETWORKS = new int[NETWORK_THRESHOLD + 1][];
+
+    static {
+        for (int n = 0; n <= NETWORK_THRESHOLD; n++) {
+            NETWORKS[n] = network(n);
+        }
+    }
+
+    private BranchlessSort() {
+    }
+
+    /**
+     * Builds Batcher's odd-even merge sort network for the next power of two
+     * at least n, without the comparators that touch an index of n or more.
+     * Those indexes can be thought of as holding +infinity, which such a
+     * comparator would leave in place.
+     *
+     * @param n The number of elements to sort.
+     * @return The comparators, as consecutive pairs of indexes (i, j) with
+     *         i < j, that put the min at i and the max at j.
+     */
+    static int[] network(int n) {
+        int size = n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+        int[] pairs = new int[size * size];
+        int count = 0;
+        for (int p = 1; p < size; p <<= 1) {
+            for (int k = p; k > 0; k >>= 1) {
+                for (int j = k % p; j + k < size; j += 2 * k) {
+                    for (int i = 0; i < Math.min(k, size - j - k); i++) {
+                        int a = i + j, b = i + j + k;
+                        if (a / (2 * p) == b / (2 * p) && b < n) {
+                            pairs[count++] = a;
+                            pairs[count++] = b;
+                        }
+                    }
+                }
+            }
+        }
+        int[] network = new int[count];
+        System.arraycopy(pairs, 0, network, 0, count);
+        return network;
+    }
+
+    /**
+     * Sorts the range [from, to) of the array ascending.
+     *
+     * Time Complexity: O(n log n) because of the heap sort fallback.
+     *
+     * Memory Complexity: O(log n) for the recursion into the smaller
+     * partition.
+     *
+     * @param input An array of ints.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    static void sort(int[] input, int from, int to) {
+        // Partitioning always swaps, so return early if already sorted
+        int i = from + 1;
+        while (i < to && input[i - 1] <= input[i]) {
+            i++;
+        }
+        if (i < to) {
+            sort(input, from, to - 1, depthLimit(to - from));
+        }
+    }
+
+    /**
+     * Sorts the range [from, to) of the array ascending, as for ints.
+     *
+     * @param input An array of floats, none NaN.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    static void sort(float[] input, int from, int to) {
+        // Partitioning always swaps, so return early if already sorted
+        int i = from + 1;
+        while (i < to && input[i - 1] <= input[i]) {
+            i++;
+        }
+        if (i < to) {
+            sort(input, from, to - 1, depthLimit(to - from));
+        }
+    }
+
+    /**
+     * Gets the depth of recursion allowed before falling back to heap sort,
+     * 2 floor(log2 n).
+     *
+     * @param length The number of elements to sort.
+     * @return The depth limit.
+     */
+    private static int depthLimit(int length) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(length, 1)));
+    }
+
+    /**
+     * Sorts the range [left, right] of the array with introspective quick
+     * sort.
+     *
+     * @param input An array of ints.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @param depthLimit The remaining depth before falling back to heap sort.
+     */
+    private static void sort(int[] input, int left, int right,
+            int depthLimit) {
+        while (right - left >= NETWORK_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                QuaternaryHeapsort.quaternaryHeapsort(input, left, right + 1);
+                return;
+            }
+            // Move the median of three (or the ninther) to the left
+            int mid = (left + right) >>> 1;
+            if (right - left > NINTHER_THRESHOLD) {
+                int step = (right - left) / 8;
+                sort3(input, left, left + step, left + 2 * step);
+                sort3(input, mid - step, mid, mid + step);
+                sort3(input, right - 2 * step, right - step, right);
+                sort3(input, left + step, mid, right - step);
+            } else {
+                sort3(input, left, mid, right);
+            }
+            int temp = input[left];
+            input[left] = input[mid];
+            input[mid] = temp;
+            int pivot = input[left];
+
+            // Move the elements less than the pivot to (left, lt)
+            int lt = left + 1;
+            for (int i = left + 1; i <= right; i++) {
+                int value = input[i];
+                input[i] = input[lt];
+                input[lt] = value;
+                lt += value < pivot ? 1 : 0;
+            }
+            // Put the pivot between the partitions
+            int p = lt - 1;
+            input[left] = input[p];
+            input[p] = pivot;
+
+            // If nothing was less than the pivot, move the elements equal to
+            // it next to it so they are not partitioned again
+            int gt = p;
+            if (p == left) {
+                int eq = p + 1;
+                for (int i = p + 1; i <= right; i++) {
+                    int value = input[i];
+                    input[i] = input[eq];
+                    input[eq] = value;
+                    eq += value == pivot ? 1 : 0;
+                }
+                gt = eq - 1;
+            }
+
+            // Recurse into the smaller partition and loop on the larger
+            if (p - left < right - gt) {
+                sort(input, left, p - 1, depthLimit);
+                left = gt + 1;
+            } else {
+                sort(input, gt + 1, right, depthLimit);
+                right = p - 1;
+            }
+        }
+        int[] network = NETWORKS[right - left + 1];
+        for (int c = 0; c < network.length; c += 2) {
+            int i = left + network[c], j = left + network[c + 1];
+            int a = input[i], b = input[j];
+            input[i] = Math.min(a, b);
+            input[j] = Math.max(a, b);
+        }
+    }
+
+    /**
+     * Sorts three elements of the array with compare-exchanges.
+     *
+     * @param input An array of ints.
+     * @param a The index of the first element.
+     * @param b The index of the second element.
+     * @param c The index of the third element.
+     */
+    private static void sort3(int[] input, int a, int b, int c) {
+        int x = input[a], y = input[b], z = input[c];
+        int min = Math.min(x, y), max = Math.max(x, y);
+        input[a] = Math.min(min, z);
+        input[b] = Math.max(min, Math.min(max, z));
+        input[c] = Math.max(max, z);
+    }
+
+    /**
+     * Sorts the range [left, right] of the array with introspective quick
+     * sort, as for ints.
+     *
+     * @param input An array of floats, none NaN.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @param depthLimit The remaining depth before falling back to heap sort.
+     */
+    private static void sort(float[] input, int left, int right,
+            int depthLimit) {
+        while (right - left >= NETWORK_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                QuaternaryHeapsort.quaternaryHeapsort(input, left, right + 1);
+                return;
+            }
+            // Move the median of three (or the ninther) to the left
+            int mid = (left + right) >>> 1;
+            if (right - left > NINTHER_THRESHOLD) {
+                int step = (right - left) / 8;
+                sort3(input, left, left + step, left + 2 * step);
+                sort3(input, mid - step, mid, mid + step);
+                sort3(input, right - 2 * step, right - step, right);
+                sort3(input, left + step, mid, right - step);
+            } else {
+                sort3(input, left, mid, right);
+            }
+            float temp = input[left];
+            input[left] = input[mid];
+            input[mid] = temp;
+            float pivot = input[left];
+
+            // Move the elements less than the pivot to (left, lt)
+            int lt = left + 1;
+            for (int i = left + 1; i <= right; i++) {
+                float value = input[i];
+                input[i] = input[lt];
+                input[lt] = value;
+                lt += value < pivot ? 1 : 0;
+            }
+            // Put the pivot between the partitions
+            int p = lt - 1;
+            input[left] = input[p];
+            input[p] = pivot;
+
+            // If nothing was less than the pivot, move the elements equal to
+            // it next to it so they are not partitioned again
+            int gt = p;
+            if (p == left) {
+                int eq = p + 1;
+                for (int i = p + 1; i <= right; i++) {
+                    float value = input[i];
+                    input[i] = input[eq];
+                    input[eq] = value;
+                    eq += value == pivot ? 1 : 0;
+                }
+                gt = eq - 1;
+            }
+
+            // Recurse into the smaller partition and loop on the larger
+            if (p - left < right - gt) {
+                sort(input, left, p - 1, depthLimit);
+                left = gt + 1;
+            } else {
+                sort(input, gt + 1, right, depthLimit);
+                right = p - 1;
+            }
+        }
+        int[] network = NETWORKS[right - left + 1];
+        for (int c = 0; c < network.length; c += 2) {
+            int i = left + network[c], j = left + network[c + 1];
+            float a = input[i], b = input[j];
+            // Selects without the NaN and -0.0 handling of Math.min()
+            input[i] = b < a ? b : a;
+            input[j] = b < a ? a : b;
+        }
+    }
+
+    /**
+     * Sorts three elements of the array with compare-exchanges.
+     *
+     * @param input An array of floats, none NaN.
+     * @param a The index of the first element.
+     * @param b The index of the second element.
+     * @param c The index of the third element.
+     */
+    private static void sort3(float[] input, int a, int b, int c) {
+        float x = input[a], y = input[b], z = input[c];
+        float min = y < x ? y : x, max = y < x ? x : y;
+        float high = z < max ? z : max;
+        input[a] = z < min ? z : min;
+        input[b] = high < min ? min : high;
+        input[c] = z < max ? max : z;
+    }
+}
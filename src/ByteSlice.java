@@ -0,0 +1,107 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A range of bytes in a ByteBuffer, with a cached hashcode, used as a key
+ * of a (@see LinkedMultiHashSet) with the (@see #STRATEGY) hashing strategy.
+ *
+ * A slice can be a reusable view of a (possibly memory-mapped) buffer, so
+ * that looking up a key does not allocate, and copied into its own buffer
+ * only when it needs to be stored.
+ */
+class ByteSlice {
+
+    // Compares slices by content, using the cached hashcode
+    static final HashingStrategy<ByteSlice> STRATEGY =
+            new HashingStrategy<ByteSlice>() {
+        @Override
+        public int hash(ByteSlice key) {
+            return key.hash;
+        }
+
+        @Override
+        public boolean equivalent(ByteSlice a, ByteSlice b) {
+            if (a.hash != b.hash || a.length != b.length) {
+                return false;
+            }
+            for (int i = 0; i < a.length; i++) {
+                if (a.buffer.get(a.offset + i) != b.buffer.get(b.offset + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    };
+
+    // Stores the buffer containing the bytes
+    private ByteBuffer buffer;
+
+    // Stores the index of the first byte in the buffer
+    private int offset;
+
+    // Stores the number of bytes
+    private int length;
+
+    // Stores the hashcode of the bytes, as computed by hash()
+    private int hash;
+
+    /**
+     * Points this slice at a range of bytes.
+     *
+     * @param buffer the buffer containing the bytes.
+     * @param offset the index of the first byte in the buffer.
+     * @param length the number of bytes.
+     * @param hash the hashcode of the bytes, as computed by hash().
+     * @return this slice.
+     */
+    ByteSlice set(ByteBuffer buffer, int offset, int length, int hash) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.hash = hash;
+        return this;
+    }
+
+    /**
+     * Copies the bytes of this slice into a new slice with its own buffer.
+     *
+     * Time Complexity: O(n) where n is the length of the slice.
+     *
+     * Memory Complexity: O(n) where n is the length of the slice.
+     *
+     * @return the copy.
+     */
+    ByteSlice copy() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new ByteSlice().set(ByteBuffer.wrap(bytes), 0, length, hash);
+    }
+
+    /**
+     * Updates a hashcode with the next byte of a slice. The hashcode of a
+     * slice is the result of folding its bytes into 0 with this function.
+     *
+     * @param hash the hashcode of the preceding bytes.
+     * @param b the next byte.
+     * @return the hashcode including the next byte.
+     */
+    static int hash(int hash, byte b) {
+        return 31 * hash + b;
+    }
+
+    /**
+     * Decodes the bytes of this slice as UTF-8.
+     *
+     * @return the decoded string.
+     */
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
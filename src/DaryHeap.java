@@ -0,0 +1,620 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * A d-ary max heap sort and min heap priority queue with an arity of 2, 4, 8
+ * or 16 (@see QuaternaryHeapsort).
+ *
+ * A wider node makes the heap shallower, so a sift touches fewer cache lines,
+ * but costs more comparisons per level: choosing the largest of d children
+ * takes d - 1 comparisons, for about (d - 1) log_d n per sift. Which wins
+ * depends on the element size. A group of 16 ints or compressed references,
+ * or of 8 longs or doubles, fills a 64-byte line, and DaryHeapsortBenchmark
+ * measures each arity per element type.
+ *
+ * The root is stored at index d - 1 rather than 0, so the children of the
+ * node at index i are at indexes d (i - d + 2) to d (i - d + 2) + d - 1, and
+ * every sibling group starts at a multiple of d. A group fits in one cache
+ * line only if the elements of the array start on a line boundary, which
+ * the JVM does not guarantee; otherwise groups straddle two lines, just as
+ * with the usual layout.
+ *
+ * Sifts are bottom-up (Floyd): the hole left by the removed root moves down
+ * along the larger children to a leaf without comparing them to the element
+ * being placed, which then moves back up from the leaf. Elements placed at
+ * the root usually belong near the bottom, so this saves close to one
+ * comparison per level.
+ *
+ * The sorts fill the d - 1 slots before the root with the d - 1 smallest
+ * elements in one pass, before building the heap after them. The pass costs
+ * at most O(n d) time, within the O(n d log_d n) of the sort itself.
+ *
+ * @param <T> the type of the elements of the priority queue.
+ */
+public final class DaryHeap<T> {
+
+    // Stores the heap, with the root at index arity - 1
+    private Object[] heap;
+
+    // Stores the number of elements in the heap
+    private int size;
+
+    // Stores the index of the root, which is the arity - 1
+    private final int root;
+
+    // Stores the log2 of the arity
+    private final int shift;
+
+    // Stores the order of the max heap, the reverse of the order of the
+    // queue, so that the least element is at the root
+    private final Comparator<? super T> order;
+
+    /**
+     * Constructs an empty priority queue of elements in their natural order.
+     *
+     * @param arity the number of children of each node: 2, 4, 8 or 16.
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    @SuppressWarnings("unchecked")
+    public DaryHeap(int arity) {
+        this(arity, (Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Constructs an empty priority queue of elements in the order of the
+     * given comparator.
+     *
+     * @param arity the number of children of each node: 2, 4, 8 or 16.
+     * @param comparator the order of the queue, least first.
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    public DaryHeap(int arity, Comparator<? super T> comparator) {
+        this.shift = shift(arity);
+        this.root = arity - 1;
+        this.heap = new Object[root + arity * 4];
+        this.order = Collections.reverseOrder(comparator);
+    }
+
+    /**
+     * Adds the element to the queue.
+     *
+     * Time Complexity: O(log_d n) amortized, because the element moves up at
+     * most the height of the heap, and the array is doubled when full.
+     *
+     * Memory Complexity: O(1) amortized.
+     *
+     * @param element the element to add.
+     * @throws NullPointerException if the element is null.
+     */
+    @SuppressWarnings("unchecked")
+    public void add(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        if (root + size == heap.length) {
+            heap = Arrays.copyOf(heap, root + size * 2);
+        }
+        siftUp((T[]) heap, 0, root + size++, root, root, shift, element,
+                order);
+    }
+
+    /**
+     * Gets the least element of the queue without removing it.
+     *
+     * Time Complexity: O(1).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the least element, or null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        return (T) heap[root];
+    }
+
+    /**
+     * Removes the least element of the queue.
+     *
+     * Time Complexity: O(d log_d n) because a bottom-up sift compares the
+     * children at each level of the heap.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the least element, or null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (size == 0) {
+            return null;
+        }
+        T least = (T) heap[root];
+        int last = root + --size;
+        T value = (T) heap[last];
+        heap[last] = null;
+        if (size > 0) {
+            siftDown((T[]) heap, 0, root, last, root, shift, value, order);
+        }
+        return least;
+    }
+
+    /**
+     * @return the number of elements in the queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the queue has no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sorts the input array, in-place, in the order of the given comparator,
+     * using a d-ary heap sort.
+     *
+     * Time Complexity: O(n d log_d n) because each of the n bottom-up sifts
+     * compares d children at each of log_d n levels.
+     *
+     * Memory Complexity: O(1) because the sifts work on indexes and nothing
+     * is allocated.
+     *
+     * @param input the array to sort (modified in place)
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @param comparator the order to sort the array in
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    public static <T> void heapsort(T[] input, int arity,
+            Comparator<? super T> comparator) {
+        heapsort(input, 0, input.length, arity, comparator);
+    }
+
+    /**
+     * Sorts the input int array ascending, in-place, using a d-ary heap sort.
+     *
+     * Time Complexity: O(n d log_d n).
+     *
+     * Memory Complexity: O(1) because nothing is allocated.
+     *
+     * @param input the array to sort (modified in place)
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    public static void heapsort(int[] input, int arity) {
+        heapsort(input, 0, input.length, arity);
+    }
+
+    /**
+     * Sorts the input long array ascending, in-place, using a d-ary heap
+     * sort.
+     *
+     * Time Complexity: O(n d log_d n).
+     *
+     * Memory Complexity: O(1) because nothing is allocated.
+     *
+     * @param input the array to sort (modified in place)
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    public static void heapsort(long[] input, int arity) {
+        heapsort(input, 0, input.length, arity);
+    }
+
+    /**
+     * Sorts the input double array ascending, in-place, using a d-ary heap
+     * sort. NaN is ordered after every other value and -0.0 before 0.0, as
+     * by Double.compare().
+     *
+     * Time Complexity: O(n d log_d n).
+     *
+     * Memory Complexity: O(1) because nothing is allocated.
+     *
+     * @param input the array to sort (modified in place)
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    public static void heapsort(double[] input, int arity) {
+        shift(arity);
+        int end = SortingAlgorithms.moveNaNsToEnd(input, 0, input.length);
+        heapsort(input, 0, end, arity);
+        SortingAlgorithms.orderZeros(input, 0, end);
+    }
+
+    /**
+     * Sorts the range [from, to) of the input array, in-place, in the order
+     * of the given comparator, using a d-ary heap sort over the range.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @param comparator the order to sort the range in
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    static <T> void heapsort(T[] input, int from, int to, int arity,
+            Comparator<? super T> comparator) {
+        int shift = shift(arity);
+        int root = arity - 1;
+        // Keeps the root smallest elements sorted in the slots before the
+        // root, evicting the largest of them into the heap when a smaller
+        // element is found
+        for (int i = from + 1; i < to; i++) {
+            T value = input[i];
+            int j = Math.min(i, from + root);
+            if (j == from || comparator.compare(input[j - 1], value) <= 0) {
+                continue;
+            }
+            input[i] = input[--j];
+            for (; j > from && comparator.compare(input[j - 1], value) > 0;
+                    j--) {
+                input[j] = input[j - 1];
+            }
+            input[j] = value;
+        }
+        int size = to - from;
+        for (int i = parent(size - 1, root, shift); i >= root; i--) {
+            siftDown(input, from, i, size, root, shift, input[from + i],
+                    comparator);
+        }
+        while (--size > root) {
+            T value = input[from + size];
+            input[from + size] = input[from + root];
+            siftDown(input, from, root, size, root, shift, value, comparator);
+        }
+    }
+
+    /**
+     * Performs a bottom-up downheap on a max heap stored in the range of the
+     * array starting at offset: the hole at start moves down to a leaf along
+     * the larger children, and the value is then moved back up from the leaf
+     * to its place, stopping at start.
+     *
+     * Time Complexity: O(d log_d n) because d - 1 children are compared at
+     * each level on the way down.
+     *
+     * Memory Complexity: O(1) because only indexes are stored.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the array that heap position 0 is at.
+     * @param start the heap position of the hole.
+     * @param end the heap position after the last element of the heap.
+     * @param root the heap position of the root.
+     * @param shift the log2 of the arity.
+     * @param value the value to place in the hole.
+     * @param comparator the order of the heap.
+     */
+    private static <T> void siftDown(T[] input, int offset, int start,
+            int end, int root, int shift, T value,
+            Comparator<? super T> comparator) {
+        int lastParent = parent(end - 1, root, shift);
+        int hole = start;
+        while (hole <= lastParent) {
+            int first = firstChild(hole, root, shift);
+            int last = Math.min(first + root + 1, end);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (comparator.compare(input[offset + k],
+                        input[offset + largest]) > 0) {
+                    largest = k;
+                }
+            }
+            input[offset + hole] = input[offset + largest];
+            hole = largest;
+        }
+        siftUp(input, offset, hole, start, root, shift, value, comparator);
+    }
+
+    /**
+     * Performs an upheap on a max heap stored in the range of the array
+     * starting at offset, moving the value up from the hole until its parent
+     * is not less than it, or it reaches start.
+     *
+     * Time Complexity: O(log_d n) because one parent is compared per level.
+     *
+     * Memory Complexity: O(1) because only indexes are stored.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the array that heap position 0 is at.
+     * @param hole the heap position of the hole.
+     * @param start the heap position the value may move up to.
+     * @param root the heap position of the root.
+     * @param shift the log2 of the arity.
+     * @param value the value to place.
+     * @param comparator the order of the heap.
+     */
+    private static <T> void siftUp(T[] input, int offset, int hole, int start,
+            int root, int shift, T value, Comparator<? super T> comparator) {
+        while (hole > start) {
+            int parent = parent(hole, root, shift);
+            if (comparator.compare(input[offset + parent], value) >= 0) {
+                break;
+            }
+            input[offset + hole] = input[offset + parent];
+            hole = parent;
+        }
+        input[offset + hole] = value;
+    }
+
+    /**
+     * Sorts the range [from, to) of the input int array ascending, in-place,
+     * using a d-ary heap sort over the range.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    static void heapsort(int[] input, int from, int to, int arity) {
+        int shift = shift(arity);
+        int root = arity - 1;
+        // Keeps the root smallest elements sorted in the slots before the
+        // root, evicting the largest of them into the heap when a smaller
+        // element is found
+        for (int i = from + 1; i < to; i++) {
+            int value = input[i];
+            int j = Math.min(i, from + root);
+            if (j == from || input[j - 1] <= value) {
+                continue;
+            }
+            input[i] = input[--j];
+            for (; j > from && input[j - 1] > value; j--) {
+                input[j] = input[j - 1];
+            }
+            input[j] = value;
+        }
+        int size = to - from;
+        for (int i = parent(size - 1, root, shift); i >= root; i--) {
+            siftDown(input, from, i, size, root, shift, input[from + i]);
+        }
+        while (--size > root) {
+            int value = input[from + size];
+            input[from + size] = input[from + root];
+            siftDown(input, from, root, size, root, shift, value);
+        }
+    }
+
+    /**
+     * Performs a bottom-up downheap on a int max heap stored in the range of
+     * the array starting at offset: the hole at start moves down to a leaf
+     * along the larger children, and the value is then moved back up from
+     * the leaf to its place, stopping at start.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the array that heap position 0 is at.
+     * @param start the heap position of the hole.
+     * @param end the heap position after the last element of the heap.
+     * @param root the heap position of the root.
+     * @param shift the log2 of the arity.
+     * @param value the value to place in the hole.
+     */
+    private static void siftDown(int[] input, int offset, int start,
+            int end, int root, int shift, int value) {
+        int lastParent = parent(end - 1, root, shift);
+        int hole = start;
+        while (hole <= lastParent) {
+            int first = firstChild(hole, root, shift);
+            int last = Math.min(first + root + 1, end);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (input[offset + k] > input[offset + largest]) {
+                    largest = k;
+                }
+            }
+            input[offset + hole] = input[offset + largest];
+            hole = largest;
+        }
+        while (hole > start) {
+            int parent = parent(hole, root, shift);
+            if (input[offset + parent] >= value) {
+                break;
+            }
+            input[offset + hole] = input[offset + parent];
+            hole = parent;
+        }
+        input[offset + hole] = value;
+    }
+
+    /**
+     * Sorts the range [from, to) of the input long array ascending, in-place,
+     * using a d-ary heap sort over the range.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    static void heapsort(long[] input, int from, int to, int arity) {
+        int shift = shift(arity);
+        int root = arity - 1;
+        // Keeps the root smallest elements sorted in the slots before the
+        // root, evicting the largest of them into the heap when a smaller
+        // element is found
+        for (int i = from + 1; i < to; i++) {
+            long value = input[i];
+            int j = Math.min(i, from + root);
+            if (j == from || input[j - 1] <= value) {
+                continue;
+            }
+            input[i] = input[--j];
+            for (; j > from && input[j - 1] > value; j--) {
+                input[j] = input[j - 1];
+            }
+            input[j] = value;
+        }
+        int size = to - from;
+        for (int i = parent(size - 1, root, shift); i >= root; i--) {
+            siftDown(input, from, i, size, root, shift, input[from + i]);
+        }
+        while (--size > root) {
+            long value = input[from + size];
+            input[from + size] = input[from + root];
+            siftDown(input, from, root, size, root, shift, value);
+        }
+    }
+
+    /**
+     * Performs a bottom-up downheap on a long max heap stored in the range of
+     * the array starting at offset: the hole at start moves down to a leaf
+     * along the larger children, and the value is then moved back up from
+     * the leaf to its place, stopping at start.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the array that heap position 0 is at.
+     * @param start the heap position of the hole.
+     * @param end the heap position after the last element of the heap.
+     * @param root the heap position of the root.
+     * @param shift the log2 of the arity.
+     * @param value the value to place in the hole.
+     */
+    private static void siftDown(long[] input, int offset, int start,
+            int end, int root, int shift, long value) {
+        int lastParent = parent(end - 1, root, shift);
+        int hole = start;
+        while (hole <= lastParent) {
+            int first = firstChild(hole, root, shift);
+            int last = Math.min(first + root + 1, end);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (input[offset + k] > input[offset + largest]) {
+                    largest = k;
+                }
+            }
+            input[offset + hole] = input[offset + largest];
+            hole = largest;
+        }
+        while (hole > start) {
+            int parent = parent(hole, root, shift);
+            if (input[offset + parent] >= value) {
+                break;
+            }
+            input[offset + hole] = input[offset + parent];
+            hole = parent;
+        }
+        input[offset + hole] = value;
+    }
+
+    /**
+     * Sorts the range [from, to) of the input double array ascending, in-place,
+     * using a d-ary heap sort over the range. The range must not contain NaN,
+     * and -0.0 and 0.0 are ordered as equal.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     * @param arity the number of children of each node: 2, 4, 8 or 16
+     * @throws IllegalArgumentException if the arity is not supported.
+     */
+    static void heapsort(double[] input, int from, int to, int arity) {
+        int shift = shift(arity);
+        int root = arity - 1;
+        // Keeps the root smallest elements sorted in the slots before the
+        // root, evicting the largest of them into the heap when a smaller
+        // element is found
+        for (int i = from + 1; i < to; i++) {
+            double value = input[i];
+            int j = Math.min(i, from + root);
+            if (j == from || input[j - 1] <= value) {
+                continue;
+            }
+            input[i] = input[--j];
+            for (; j > from && input[j - 1] > value; j--) {
+                input[j] = input[j - 1];
+            }
+            input[j] = value;
+        }
+        int size = to - from;
+        for (int i = parent(size - 1, root, shift); i >= root; i--) {
+            siftDown(input, from, i, size, root, shift, input[from + i]);
+        }
+        while (--size > root) {
+            double value = input[from + size];
+            input[from + size] = input[from + root];
+            siftDown(input, from, root, size, root, shift, value);
+        }
+    }
+
+    /**
+     * Performs a bottom-up downheap on a double max heap stored in the range of
+     * the array starting at offset: the hole at start moves down to a leaf
+     * along the larger children, and the value is then moved back up from
+     * the leaf to its place, stopping at start.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the array that heap position 0 is at.
+     * @param start the heap position of the hole.
+     * @param end the heap position after the last element of the heap.
+     * @param root the heap position of the root.
+     * @param shift the log2 of the arity.
+     * @param value the value to place in the hole.
+     */
+    private static void siftDown(double[] input, int offset, int start,
+            int end, int root, int shift, double value) {
+        int lastParent = parent(end - 1, root, shift);
+        int hole = start;
+        while (hole <= lastParent) {
+            int first = firstChild(hole, root, shift);
+            int last = Math.min(first + root + 1, end);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (input[offset + k] > input[offset + largest]) {
+                    largest = k;
+                }
+            }
+            input[offset + hole] = input[offset + largest];
+            hole = largest;
+        }
+        while (hole > start) {
+            int parent = parent(hole, root, shift);
+            if (input[offset + parent] >= value) {
+                break;
+            }
+            input[offset + hole] = input[offset + parent];
+            hole = parent;
+        }
+        input[offset + hole] = value;
+    }
+
+    /**
+     * Gets the heap position of the first child of a node.
+     *
+     * @param parent the heap position of the node.
+     * @param root the heap position of the root.
+     * @param shift the log2 of the arity.
+     * @return the heap position of its first child, a multiple of the arity.
+     */
+    private static int firstChild(int parent, int root, int shift) {
+        return (parent - root + 1) << shift;
+    }
+
+    /**
+     * Gets the heap position of the parent of a node, which is less than the
+     * root for the root itself.
+     *
+     * @param child the heap position of the node.
+     * @param root the heap position of the root.
+     * @param shift the log2 of the arity.
+     * @return the heap position of its parent.
+     */
+    private static int parent(int child, int root, int shift) {
+        return (child >> shift) + root - 1;
+    }
+
+    /**
+     * Gets the log2 of a supported arity.
+     *
+     * @param arity the number of children of each node.
+     * @return the log2 of the arity.
+     * @throws IllegalArgumentException if the arity is not 2, 4, 8 or 16.
+     */
+    private static int shift(int arity) {
+        if (arity != 2 && arity != 4 && arity != 8 && arity != 16) {
+            throw new IllegalArgumentException();
+        }
+        return Integer.numberOfTrailingZeros(arity);
+    }
+}
@@ -0,0 +1,700 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorts files that are too large to sort in memory, either of newline
+ * delimited keys or of fixed-width records, ordered by their bytes compared
+ * as unsigned values (which for UTF-8 text is the order of the code points).
+ *
+ * The input is read into chunks that fit in a share of the memory budget.
+ * Each chunk is sorted with (@see SortingAlgorithms#mergeSort) on a pool of
+ * worker threads and spilled to a temporary file as a sorted run, while the
+ * next chunk is read. The runs are then merged at most fanIn at a time by a
+ * (@see KWayMerge), with a buffered FileChannel per run, until a final merge
+ * writes the output. If the whole input fits in one chunk, it is sorted in
+ * memory and written directly. Files that are already sorted can be merged
+ * the same way.
+ *
+ * The sort is stable: records with equal keys keep their order in the input.
+ */
+public class ExternalSort {
+
+    // Stores the estimated memory used by a record besides its bytes: the
+    // array header and the references to it from the chunk and from the
+    // auxiliary array of the merge sort
+    static final int RECORD_OVERHEAD = 48;
+
+    // Stores the smallest size of an I/O buffer, in bytes
+    private static final int MIN_BUFFER_SIZE = 1 << 12;
+
+    // Stores the largest size of an I/O buffer, in bytes
+    private static final int MAX_BUFFER_SIZE = 1 << 20;
+
+    // Stores the approximate number of bytes the sort may use for records
+    // and buffers
+    private final long memoryBudget;
+
+    // Stores the largest number of runs merged at once
+    private final int fanIn;
+
+    // Stores the number of chunks sorted at once
+    private final int parallelism;
+
+    // Stores the directory of the runs, or null for the default temporary
+    // file directory
+    private final Path tempDirectory;
+
+    /**
+     * Constructs an ExternalSort with a worker per available processor,
+     * spilling runs to the default temporary file directory.
+     *
+     * @param memoryBudget the approximate number of bytes the sort may use.
+     * @param fanIn the largest number of runs merged at once, at least 2.
+     */
+    public ExternalSort(long memoryBudget, int fanIn) {
+        this(memoryBudget, fanIn, Runtime.getRuntime().availableProcessors(),
+                null);
+    }
+
+    /**
+     * Constructs an ExternalSort.
+     *
+     * @param memoryBudget the approximate number of bytes the sort may use.
+     * @param fanIn the largest number of runs merged at once, at least 2.
+     * @param parallelism the number of chunks sorted at once, at least 1.
+     * @param tempDirectory the directory to spill runs to, or null for the
+     *                      default temporary file directory.
+     * @throws IllegalArgumentException if an argument is out of range.
+     */
+    public ExternalSort(long memoryBudget, int fanIn, int parallelism,
+            Path tempDirectory) {
+        if (memoryBudget <= 0 || fanIn < 2 || parallelism < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.memoryBudget = memoryBudget;
+        this.fanIn = fanIn;
+        this.parallelism = parallelism;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Sorts the newline delimited keys of a file into another file. Every
+     * output key is followed by a newline, including the last.
+     *
+     * Time Complexity: O(n log n) comparisons, and O(b log_f r) bytes of I/O
+     * where b is the size of the file, f is the fan-in and r is the number of
+     * runs.
+     *
+     * Memory Complexity: O(m) where m is the memory budget, or the length of
+     * the longest key if that is larger.
+     *
+     * @param input the file to sort.
+     * @param output the file to write the sorted keys to.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public void sortLines(Path input, Path output) throws IOException {
+        sort(input, output, 0, Arrays::compareUnsigned);
+    }
+
+    /**
+     * Sorts the fixed-width records of a file into another file, by the
+     * given number of leading bytes of each record.
+     *
+     * Time Complexity: O(n log n) comparisons, and O(b log_f r) bytes of I/O
+     * where b is the size of the file, f is the fan-in and r is the number of
+     * runs.
+     *
+     * Memory Complexity: O(m) where m is the memory budget.
+     *
+     * @param input the file to sort.
+     * @param output the file to write the sorted records to.
+     * @param recordLength the length of a record, in bytes.
+     * @param keyLength the length of the key at the start of a record, in
+     *                  bytes.
+     * @throws IOException if a file cannot be read or written, or the size of
+     *                     the input is not a multiple of the record length.
+     * @throws IllegalArgumentException if recordLength < 1 or keyLength is not
+     *                                  in [0, recordLength].
+     */
+    public void sortRecords(Path input, Path output, int recordLength,
+            int keyLength) throws IOException {
+        if (recordLength < 1 || keyLength < 0 || keyLength > recordLength) {
+            throw new IllegalArgumentException();
+        }
+        if (Files.size(input) % recordLength != 0) {
+            throw new IOException("File size is not a multiple of "
+                    + recordLength);
+        }
+        sort(input, output, recordLength, (a, b) ->
+                Arrays.compareUnsigned(a, 0, keyLength, b, 0, keyLength));
+    }
+
+    /**
+     * Merges files of sorted newline delimited keys into another file. Of
+     * equal keys, those of earlier files are written first.
+     *
+     * Time Complexity: O(n log k) comparisons, and O(b log_f k) bytes of I/O
+     * where b is the total size of the k files and f is the fan-in.
+     *
+     * Memory Complexity: O(m) where m is the memory budget.
+     *
+     * @param inputs the files to merge, each sorted.
+     * @param output the file to write the merged keys to.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public void mergeLines(List<Path> inputs, Path output) throws IOException {
+        merge(inputs, output, 0, Arrays::compareUnsigned);
+    }
+
+    /**
+     * Merges files of fixed-width records, each sorted by the given number of
+     * leading bytes, into another file. Of equal keys, those of earlier files
+     * are written first.
+     *
+     * @param inputs the files to merge, each sorted.
+     * @param output the file to write the merged records to.
+     * @param recordLength the length of a record, in bytes.
+     * @param keyLength the length of the key at the start of a record, in
+     *                  bytes.
+     * @throws IOException if a file cannot be read or written, or ends in the
+     *                     middle of a record.
+     * @throws IllegalArgumentException if recordLength < 1 or keyLength is not
+     *                                  in [0, recordLength].
+     */
+    public void mergeRecords(List<Path> inputs, Path output, int recordLength,
+            int keyLength) throws IOException {
+        if (recordLength < 1 || keyLength < 0 || keyLength > recordLength) {
+            throw new IllegalArgumentException();
+        }
+        merge(inputs, output, recordLength, (a, b) ->
+                Arrays.compareUnsigned(a, 0, keyLength, b, 0, keyLength));
+    }
+
+    /**
+     * Sorts a file of lines or of fixed-width records.
+     *
+     * @param input the file to sort.
+     * @param output the file to write the sorted records to.
+     * @param recordLength the length of a record, or 0 for lines.
+     * @param order the order of the records.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private void sort(Path input, Path output, int recordLength,
+            Comparator<byte[]> order) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<Path> created = new ArrayList<>();
+        try {
+            if (createRuns(input, output, recordLength, order, runs,
+                    created)) {
+                merge(runs, output, recordLength, order, created);
+            }
+        } finally {
+            for (Path run : created) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Merges sorted files of lines or of fixed-width records.
+     *
+     * @param inputs the files to merge, each sorted.
+     * @param output the file to write the merged records to.
+     * @param recordLength the length of a record, or 0 for lines.
+     * @param order the order of the records.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private void merge(List<Path> inputs, Path output, int recordLength,
+            Comparator<byte[]> order) throws IOException {
+        List<Path> created = new ArrayList<>();
+        try {
+            merge(inputs, output, recordLength, order, created);
+        } finally {
+            for (Path run : created) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Merges sorted runs in passes of at most fanIn runs, until a final merge
+     * writes the output. Consecutive runs are merged together, so that equal
+     * records of earlier runs stay first.
+     *
+     * @param runs the runs, in the order of the input.
+     * @param output the file to write the merged records to.
+     * @param recordLength the length of a record, or 0 for lines.
+     * @param order the order of the records.
+     * @param created the temporary files, which are deleted once merged.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private void merge(List<Path> runs, Path output, int recordLength,
+            Comparator<byte[]> order, List<Path> created) throws IOException {
+        while (runs.size() > fanIn) {
+            List<Path> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<Path> group =
+                        runs.subList(i, Math.min(i + fanIn, runs.size()));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                Path run = createTempFile(created);
+                mergeFiles(group, run, recordLength, order);
+                for (Path source : group) {
+                    if (created.contains(source)) {
+                        Files.deleteIfExists(source);
+                    }
+                }
+                merged.add(run);
+            }
+            runs = merged;
+        }
+        mergeFiles(runs, output, recordLength, order);
+    }
+
+    /**
+     * Reads the input in chunks, sorting and spilling each chunk to a run on
+     * the worker threads. At most parallelism chunks are sorted while the
+     * next one is read. If the input fits in a single chunk, it is written to
+     * the output instead.
+     *
+     * @param input the file to sort.
+     * @param output the file to write the sorted records to.
+     * @param recordLength the length of a record, or 0 for lines.
+     * @param order the order of the records.
+     * @param runs the list to add the runs to, in the order of the input.
+     * @param created the list to add the temporary files to.
+     * @return false if the input was sorted into the output directly.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private boolean createRuns(Path input, Path output, int recordLength,
+            Comparator<byte[]> order, List<Path> runs, List<Path> created)
+            throws IOException {
+        // A share of the budget for each chunk being sorted and the one
+        // being read
+        long chunkBudget = memoryBudget / (parallelism + 1);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        Deque<Future<Void>> pending = new ArrayDeque<>();
+        try (RecordReader reader = new RecordReader(input, recordLength,
+                bufferSize(memoryBudget / (parallelism + 1)))) {
+            List<byte[]> chunk = new ArrayList<>();
+            long used = 0;
+            byte[] record;
+            while ((record = reader.read()) != null) {
+                chunk.add(record);
+                used += record.length + RECORD_OVERHEAD;
+                if (used >= chunkBudget) {
+                    if (pending.size() == parallelism) {
+                        await(pending.removeFirst());
+                    }
+                    pending.add(spill(pool, chunk, recordLength, order, runs,
+                            created));
+                    chunk = new ArrayList<>();
+                    used = 0;
+                }
+            }
+            if (runs.isEmpty()) {
+                sortAndWrite(chunk.toArray(new byte[0][]), output,
+                        recordLength, order);
+                return false;
+            }
+            if (!chunk.isEmpty()) {
+                pending.add(spill(pool, chunk, recordLength, order, runs,
+                        created));
+            }
+            while (!pending.isEmpty()) {
+                await(pending.removeFirst());
+            }
+            return true;
+        } finally {
+            shutdown(pool, pending);
+        }
+    }
+
+    /**
+     * Cancels the pending sorts and waits for the workers to stop, so that
+     * no worker creates or writes a run after the caller deletes the runs.
+     * Waits even if interrupted, and then restores the interrupt.
+     *
+     * @param pool the worker threads.
+     * @param pending the sorts that have not been awaited.
+     */
+    private static void shutdown(ExecutorService pool,
+            Deque<Future<Void>> pending) {
+        for (Future<Void> future : pending) {
+            future.cancel(true);
+        }
+        pool.shutdownNow();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(Long.MAX_VALUE,
+                        TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submits a chunk to be sorted and written to a new run.
+     *
+     * @param pool the worker threads.
+     * @param chunk the records of the chunk.
+     * @param recordLength the length of a record, or 0 for lines.
+     * @param order the order of the records.
+     * @param runs the list to add the run to.
+     * @param created the list to add the temporary file to.
+     * @return the pending sort.
+     * @throws IOException if the run cannot be created.
+     */
+    private Future<Void> spill(ExecutorService pool, List<byte[]> chunk,
+            int recordLength, Comparator<byte[]> order, List<Path> runs,
+            List<Path> created) throws IOException {
+        Path run = createTempFile(created);
+        runs.add(run);
+        byte[][] records = chunk.toArray(new byte[0][]);
+        return pool.submit(() -> {
+            sortAndWrite(records, run, recordLength, order);
+            return null;
+        });
+    }
+
+    /**
+     * Waits for a chunk to be sorted and spilled, rethrowing its failure.
+     *
+     * @param future the pending sort.
+     * @throws IOException if the run could not be written.
+     */
+    private static void await(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Sorts records with a stable merge sort and writes them to a file.
+     *
+     * @param records the records.
+     * @param file the file to write to.
+     * @param recordLength the length of a record, or 0 for lines.
+     * @param order the order of the records.
+     * @throws IOException if the file cannot be written.
+     */
+    private void sortAndWrite(byte[][] records, Path file, int recordLength,
+            Comparator<byte[]> order) throws IOException {
+        SortingAlgorithms.mergeSort(records, order);
+        try (RecordWriter writer = new RecordWriter(file, recordLength == 0,
+                bufferSize(memoryBudget / (parallelism + 1)))) {
+            for (byte[] record : records) {
+                writer.write(record);
+            }
+        }
+    }
+
+    /**
+     * Merges sorted runs into a file with a (@see KWayMerge). Of equal
+     * records, those of earlier runs are written first.
+     *
+     * Time Complexity: O(n log k) where n is the number of records and k is
+     * the number of runs.
+     *
+     * Memory Complexity: O(m) where m is the memory budget, shared between the
+     * buffers of the runs and the output.
+     *
+     * @param sources the runs, in the order of the input.
+     * @param target the file to write to.
+     * @param recordLength the length of a record, or 0 for lines.
+     * @param order the order of the records.
+     * @throws IOException if a file cannot be read or written.
+     */
+    private void mergeFiles(List<Path> sources, Path target,
+            int recordLength, Comparator<byte[]> order) throws IOException {
+        int bufferSize = bufferSize(memoryBudget / (sources.size() + 1));
+        List<RecordReader> readers = new ArrayList<>();
+        try (RecordWriter writer = new RecordWriter(target, recordLength == 0,
+                bufferSize)) {
+            for (Path source : sources) {
+                readers.add(new RecordReader(source, recordLength,
+                        bufferSize));
+            }
+            KWayMerge<byte[]> merge = KWayMerge.of(readers, order);
+            while (merge.hasNext()) {
+                writer.write(merge.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (RecordReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Creates an empty temporary file for a run.
+     *
+     * @param created the list to add the file to.
+     * @return the file.
+     * @throws IOException if the file cannot be created.
+     */
+    private Path createTempFile(List<Path> created) throws IOException {
+        Path file = tempDirectory == null
+                ? Files.createTempFile("external-sort", ".run")
+                : Files.createTempFile(tempDirectory, "external-sort", ".run");
+        created.add(file);
+        return file;
+    }
+
+    /**
+     * Clamps a share of the memory budget to the size of an I/O buffer.
+     *
+     * @param share the share of the memory budget, in bytes.
+     * @return the size of the buffer, in bytes.
+     */
+    private static int bufferSize(long share) {
+        return (int) Math.max(MIN_BUFFER_SIZE, Math.min(share,
+                MAX_BUFFER_SIZE));
+    }
+
+    // Reads lines or fixed-width records from a file through a buffer, and
+    // iterates over them for a merge
+    private static final class RecordReader
+            implements Closeable, Iterator<byte[]> {
+
+        // Stores the file
+        private final FileChannel channel;
+
+        // Stores the length of a record, or 0 for lines
+        private final int recordLength;
+
+        // Stores the bytes read but not yet returned, between the position
+        // and the limit
+        private ByteBuffer buffer;
+
+        // Stores whether the end of the file has been read
+        private boolean eof;
+
+        // Stores the record read ahead by hasNext(), or null at the end of
+        // the file
+        private byte[] lookahead;
+
+        // Stores whether lookahead has been read
+        private boolean readAhead;
+
+        private RecordReader(Path file, int recordLength, int bufferSize)
+                throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.recordLength = recordLength;
+            this.buffer = ByteBuffer.allocate(Math.max(bufferSize,
+                    recordLength));
+            buffer.flip();
+        }
+
+        /**
+         * Reads the next record. A last line without a newline is returned as
+         * a line.
+         *
+         * @return the record, without its newline, or null at the end of the
+         *         file.
+         * @throws IOException if the file cannot be read, or ends in the
+         *                     middle of a fixed-width record.
+         */
+        private byte[] read() throws IOException {
+            if (recordLength > 0) {
+                while (buffer.remaining() < recordLength && fill()) {
+                }
+                if (buffer.remaining() < recordLength) {
+                    if (buffer.hasRemaining()) {
+                        throw new IOException("Truncated record");
+                    }
+                    return null;
+                }
+                byte[] record = new byte[recordLength];
+                buffer.get(record);
+                return record;
+            }
+            int scanned = 0;
+            while (true) {
+                byte[] bytes = buffer.array();
+                for (int i = buffer.position() + scanned; i < buffer.limit();
+                        i++) {
+                    if (bytes[i] == '\n') {
+                        byte[] line = new byte[i - buffer.position()];
+                        buffer.get(line);
+                        buffer.get();
+                        return line;
+                    }
+                }
+                scanned = buffer.remaining();
+                if (!fill()) {
+                    if (!buffer.hasRemaining()) {
+                        return null;
+                    }
+                    byte[] line = new byte[buffer.remaining()];
+                    buffer.get(line);
+                    return line;
+                }
+            }
+        }
+
+        /**
+         * Reads more of the file after the unread bytes, growing the buffer
+         * if they fill it.
+         *
+         * @return false at the end of the file.
+         * @throws IOException if the file cannot be read.
+         */
+        private boolean fill() throws IOException {
+            if (eof) {
+                return false;
+            }
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read < 0) {
+                eof = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!readAhead) {
+                try {
+                    lookahead = read();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                readAhead = true;
+            }
+            return lookahead != null;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            readAhead = false;
+            return lookahead;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // Writes lines or fixed-width records to a file through a buffer
+    private static final class RecordWriter implements Closeable {
+
+        // Stores the file
+        private final FileChannel channel;
+
+        // Stores whether each record is followed by a newline
+        private final boolean lines;
+
+        // Stores the bytes not yet written
+        private final ByteBuffer buffer;
+
+        private RecordWriter(Path file, boolean lines, int bufferSize)
+                throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.lines = lines;
+            this.buffer = ByteBuffer.allocate(bufferSize);
+        }
+
+        /**
+         * Writes a record, followed by a newline for lines.
+         *
+         * @param record the record.
+         * @throws IOException if the file cannot be written.
+         */
+        private void write(byte[] record) throws IOException {
+            int needed = record.length + (lines ? 1 : 0);
+            if (buffer.remaining() < needed) {
+                flush();
+            }
+            if (buffer.remaining() < needed) {
+                // Larger than the buffer, so written directly
+                ByteBuffer wrapped = ByteBuffer.wrap(record);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+            } else {
+                buffer.put(record);
+            }
+            if (lines) {
+                buffer.put((byte) '\n');
+            }
+        }
+
+        /**
+         * Writes the buffered bytes to the file.
+         *
+         * @throws IOException if the file cannot be written.
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * A Fenwick tree (binary indexed tree) over a fixed number of non-negative
+ * int weights, supporting point updates and searching for the position of a
+ * prefix sum in O(log n) time.
+ */
+class FenwickTree {
+
+    // Stores the partial sums, 1-indexed
+    private final int[] tree;
+
+    /**
+     * Constructs a FenwickTree over the given weights.
+     *
+     * Time Complexity: O(n) because each partial sum is pushed to its parent
+     * once.
+     *
+     * Memory Complexity: O(n) because a partial sum is stored per weight.
+     *
+     * @param weights the initial weights.
+     */
+    FenwickTree(int[] weights) {
+        tree = new int[weights.length + 1];
+        for (int i = 1; i <= weights.length; i++) {
+            tree[i] += weights[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= weights.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Adds delta to the weight at the given position.
+     *
+     * Time Complexity: O(log n) because each step adds the lowest set bit to
+     * the index, which moves its lowest set bit up by at least one place.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param position the 0-based position of the weight.
+     * @param delta the amount to add, may be negative.
+     */
+    void add(int position, int delta) {
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Finds the position whose weight covers the given offset, i.e. the
+     * smallest position p such that the sum of weights [0, p] > offset.
+     *
+     * Time Complexity: O(log n) because the search halves its step each
+     * iteration.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param offset the offset, in [0, total weight).
+     * @return the 0-based position covering the offset.
+     */
+    int find(int offset) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0;
+                step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= offset) {
+                position = next;
+                offset -= tree[next];
+            }
+        }
+        return position;
+    }
+}
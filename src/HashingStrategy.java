@@ -0,0 +1,195 @@
+import java.util.Arrays;
+
+/**
+ * A strategy for hashing and comparing the keys of a hash based collection
+ * (@see LinkedMultiHashSet), used in place of the keys' own hashCode() and
+ * equals().
+ *
+ * This allows keys whose own hashCode() and equals() are based on identity,
+ * such as arrays, to be stored by content, and allows a cheaper hash to be
+ * supplied for keys with an expensive hashCode().
+ *
+ * Implementations must be consistent: if equivalent(a, b) is true then
+ * hash(a) == hash(b).
+ *
+ * @param <T> type of keys that are hashed
+ */
+public interface HashingStrategy<T> {
+
+    /**
+     * Computes the hashcode of the given key.
+     *
+     * @param key the key to hash, cannot be null.
+     * @return the hashcode of the key.
+     */
+    int hash(T key);
+
+    /**
+     * Checks if the two keys should be considered the same key.
+     *
+     * @param a the first key, cannot be null.
+     * @param b the second key, cannot be null.
+     * @return true if the keys are equivalent, else false.
+     */
+    boolean equivalent(T a, T b);
+
+    /**
+     * Gets the strategy that uses the keys' own hashCode() and equals().
+     *
+     * @param <T> type of keys that are hashed
+     * @return the default hashing strategy.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> HashingStrategy<T> defaultStrategy() {
+        return (HashingStrategy<T>) Strategies.DEFAULT;
+    }
+
+    /**
+     * Gets the strategy that hashes and compares byte arrays by content.
+     *
+     * Time Complexity: O(n) per hash or comparison where n is the length of
+     * the array.
+     *
+     * @return the byte array hashing strategy.
+     */
+    static HashingStrategy<byte[]> byteArrays() {
+        return Strategies.BYTE_ARRAYS;
+    }
+
+    /**
+     * Gets the strategy that hashes and compares int arrays by content.
+     *
+     * Time Complexity: O(n) per hash or comparison where n is the length of
+     * the array.
+     *
+     * @return the int array hashing strategy.
+     */
+    static HashingStrategy<int[]> intArrays() {
+        return Strategies.INT_ARRAYS;
+    }
+
+    /**
+     * Gets the strategy that hashes and compares long arrays by content.
+     *
+     * Time Complexity: O(n) per hash or comparison where n is the length of
+     * the array.
+     *
+     * @return the long array hashing strategy.
+     */
+    static HashingStrategy<long[]> longArrays() {
+        return Strategies.LONG_ARRAYS;
+    }
+
+    /**
+     * Gets the strategy that hashes and compares char sequences by their
+     * characters, so that a String and a StringBuilder with the same
+     * characters are the same key. The hash of a String is the same as its
+     * (cached) hashCode().
+     *
+     * Time Complexity: O(n) per hash or comparison where n is the length of
+     * the sequence, or O(1) to hash a String whose hashcode is cached.
+     *
+     * @return the char sequence hashing strategy.
+     */
+    static HashingStrategy<CharSequence> charSequences() {
+        return Strategies.CHAR_SEQUENCES;
+    }
+}
+
+/**
+ * The built in hashing strategies (@see HashingStrategy).
+ */
+@SuppressWarnings("rawtypes")
+final class Strategies {
+
+    // Uses the keys' own hashCode() and equals()
+    static final HashingStrategy DEFAULT = new HashingStrategy<Object>() {
+        @Override
+        public int hash(Object key) {
+            return key.hashCode();
+        }
+
+        @Override
+        public boolean equivalent(Object a, Object b) {
+            return a.equals(b);
+        }
+    };
+
+    // Compares byte arrays by content
+    static final HashingStrategy<byte[]> BYTE_ARRAYS =
+            new HashingStrategy<byte[]>() {
+        @Override
+        public int hash(byte[] key) {
+            return Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equivalent(byte[] a, byte[] b) {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    // Compares int arrays by content
+    static final HashingStrategy<int[]> INT_ARRAYS =
+            new HashingStrategy<int[]>() {
+        @Override
+        public int hash(int[] key) {
+            return Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equivalent(int[] a, int[] b) {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    // Compares long arrays by content
+    static final HashingStrategy<long[]> LONG_ARRAYS =
+            new HashingStrategy<long[]>() {
+        @Override
+        public int hash(long[] key) {
+            return Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equivalent(long[] a, long[] b) {
+            return Arrays.equals(a, b);
+        }
+    };
+
+    // Compares char sequences by their characters
+    static final HashingStrategy<CharSequence> CHAR_SEQUENCES =
+            new HashingStrategy<CharSequence>() {
+        @Override
+        public int hash(CharSequence key) {
+            if (key instanceof String) {
+                return key.hashCode();
+            }
+            // Same polynomial as String.hashCode()
+            int h = 0;
+            for (int i = 0; i < key.length(); i++) {
+                h = 31 * h + key.charAt(i);
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equivalent(CharSequence a, CharSequence b) {
+            if (a instanceof String && b instanceof String) {
+                return a.equals(b);
+            }
+            if (a.length() != b.length()) {
+                return false;
+            }
+            for (int i = 0; i < a.length(); i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    };
+
+    private Strategies() {
+    }
+}
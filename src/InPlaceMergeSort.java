@@ -0,0 +1,235 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A stable merge sort of arrays of objects that works within a buffer of a
+ * bounded size, rather than an auxiliary copy of the whole array
+ * (@see SortingAlgorithms).
+ *
+ * Runs are sorted with insertion sort and merged in place. A merge first
+ * skips the elements of each run that are already in position, and if the
+ * shorter of what remains fits in the buffer, it is copied there and merged
+ * back directly. Otherwise the larger run is split at its median, the other
+ * run is split at the same key with a binary search, and the two inner parts
+ * are swapped with a rotation so that two smaller, independent merges remain.
+ * Rotations also use the buffer when one side fits in it, and three reversals
+ * when neither does.
+ *
+ * The buffer may have any length, including zero, so the caller chooses the
+ * trade-off: a buffer of n / 2 elements gives an ordinary merge sort, one of
+ * sqrt(n) elements buffers every merge of short runs and the last levels of
+ * every split, and an empty buffer sorts with O(1) extra memory.
+ */
+final class InPlaceMergeSort {
+
+    // Runs of at most this many elements are sorted with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private InPlaceMergeSort() {
+    }
+
+    /**
+     * Sorts the array with a stable merge sort, using a buffer of about
+     * sqrt(n) elements.
+     *
+     * Time Complexity: O(n log^2 n).
+     *
+     * Memory Complexity: O(sqrt n) for the buffer, plus O(log n) for the
+     * recursion.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     */
+    static <T> void sort(T[] input, Comparator<? super T> comparator) {
+        Object[] buffer = new Object[(int) Math.ceil(Math.sqrt(input.length))];
+        if (SortMetrics.enabled) {
+            SortMetrics.allocated(
+                    (long) buffer.length * SortMetrics.REFERENCE_BYTES);
+        }
+        sort(input, comparator, buffer);
+    }
+
+    /**
+     * Sorts the array with a stable merge sort, using the given buffer as
+     * working space. The buffer is cleared afterwards, so it holds no
+     * references to the elements and can be reused.
+     *
+     * Time Complexity: O(n log n) if the buffer has at least n / 2
+     * elements, and O(n log^2 n) otherwise.
+     *
+     * Memory Complexity: O(log n) for the recursion, besides the buffer.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @param buffer The working space, of any length.
+     */
+    static <T> void sort(T[] input, Comparator<? super T> comparator,
+            Object[] buffer) {
+        try {
+            sort(input, 0, input.length, comparator, buffer);
+        } finally {
+            Arrays.fill(buffer, 0, Math.min(buffer.length, input.length / 2),
+                    null);
+        }
+    }
+
+    /**
+     * Sorts the range [lo, hi) of the array.
+     *
+     * @param input An array of objects.
+     * @param lo The first index of the range.
+     * @param hi The index after the last of the range.
+     * @param comparator The order to sort the array in.
+     * @param buffer The working space.
+     */
+    private static <T> void sort(T[] input, int lo, int hi,
+            Comparator<? super T> comparator, Object[] buffer) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            SortingAlgorithms.insertionSort(input, lo, hi, comparator);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sort(input, lo, mid, comparator, buffer);
+        sort(input, mid, hi, comparator, buffer);
+        merge(input, lo, mid, hi, comparator, buffer);
+    }
+
+    /**
+     * Merges the sorted runs [lo, mid) and [mid, hi) of the array in place.
+     * Ties are taken from the first run, so that the merge is stable.
+     *
+     * @param input An array of objects.
+     * @param lo The first index of the first run.
+     * @param mid The first index of the second run.
+     * @param hi The index after the last of the second run.
+     * @param comparator The order of the runs.
+     * @param buffer The working space.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void merge(T[] input, int lo, int mid, int hi,
+            Comparator<? super T> comparator, Object[] buffer) {
+        if (lo == mid || mid == hi ||
+                comparator.compare(input[mid - 1], input[mid]) <= 0) {
+            return;
+        }
+        // Elements of the first run not greater than the first of the second
+        // run, and elements of the second run not less than the last of the
+        // first run, are already in position
+        lo = bound(input, lo, mid, input[mid], true, comparator);
+        hi = bound(input, mid, hi, input[mid - 1], false, comparator);
+        int n1 = mid - lo, n2 = hi - mid;
+
+        if (n1 <= n2 && n1 <= buffer.length) {
+            // Merge forwards from the buffered first run
+            System.arraycopy(input, lo, buffer, 0, n1);
+            int i = 0, j = mid, k = lo;
+            while (i < n1 && j < hi) {
+                if (comparator.compare(input[j], (T) buffer[i]) < 0) {
+                    input[k++] = input[j++];
+                } else {
+                    input[k++] = (T) buffer[i++];
+                }
+            }
+            System.arraycopy(buffer, i, input, k, n1 - i);
+        } else if (n2 <= buffer.length) {
+            // Merge backwards from the buffered second run
+            System.arraycopy(input, mid, buffer, 0, n2);
+            int i = mid - 1, j = n2 - 1, k = hi - 1;
+            while (i >= lo && j >= 0) {
+                if (comparator.compare((T) buffer[j], input[i]) < 0) {
+                    input[k--] = input[i--];
+                } else {
+                    input[k--] = (T) buffer[j--];
+                }
+            }
+            System.arraycopy(buffer, 0, input, lo, j + 1);
+        } else {
+            // Split around the median of the larger run, as in MergeSort, and
+            // swap the inner parts so that the halves merge independently
+            int cut1, cut2;
+            if (n1 >= n2) {
+                cut1 = (lo + mid) >>> 1;
+                cut2 = bound(input, mid, hi, input[cut1], false, comparator);
+            } else {
+                cut2 = (mid + hi) >>> 1;
+                cut1 = bound(input, lo, mid, input[cut2], true, comparator);
+            }
+            rotate(input, cut1, mid, cut2, buffer);
+            int split = cut1 + (cut2 - mid);
+            merge(input, lo, cut1, split, comparator, buffer);
+            merge(input, split, split + (mid - cut1), hi, comparator, buffer);
+        }
+    }
+
+    /**
+     * Swaps the adjacent ranges [lo, mid) and [mid, hi) of the array,
+     * keeping the order within each.
+     *
+     * @param input An array of objects.
+     * @param lo The first index of the first range.
+     * @param mid The first index of the second range.
+     * @param hi The index after the last of the second range.
+     * @param buffer The working space.
+     */
+    private static void rotate(Object[] input, int lo, int mid, int hi,
+            Object[] buffer) {
+        int n1 = mid - lo, n2 = hi - mid;
+        if (n1 == 0 || n2 == 0) {
+            return;
+        }
+        if (n1 <= buffer.length && n1 <= n2) {
+            System.arraycopy(input, lo, buffer, 0, n1);
+            System.arraycopy(input, mid, input, lo, n2);
+            System.arraycopy(buffer, 0, input, lo + n2, n1);
+        } else if (n2 <= buffer.length) {
+            System.arraycopy(input, mid, buffer, 0, n2);
+            System.arraycopy(input, lo, input, lo + n2, n1);
+            System.arraycopy(buffer, 0, input, lo, n2);
+        } else {
+            reverse(input, lo, mid);
+            reverse(input, mid, hi);
+            reverse(input, lo, hi);
+        }
+    }
+
+    /**
+     * Reverses the range [from, to) of the array.
+     *
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    private static void reverse(Object[] input, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            Object temp = input[i];
+            input[i] = input[j];
+            input[j] = temp;
+        }
+    }
+
+    /**
+     * Finds the first index in the sorted range [lo, hi) whose element is
+     * not less than (or if inclusive, greater than) the key.
+     *
+     * @param input The array containing the range.
+     * @param lo The first index of the range.
+     * @param hi The index after the last of the range.
+     * @param key The key to search for.
+     * @param inclusive If true, elements equal to key are also skipped.
+     * @param comparator The order of the range.
+     * @return The index of the first element after the key.
+     */
+    private static <T> int bound(T[] input, int lo, int hi, T key,
+            boolean inclusive, Comparator<? super T> comparator) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparator.compare(input[mid], key);
+            if (cmp < 0 || (inclusive && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,364 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A min priority queue of int ids in [0, capacity) with long priorities, on a
+ * quaternary heap, as for (@see IndexedQuaternaryHeap).
+ *
+ * The caller chooses the ids, such as the vertices of a graph, so an id is
+ * its own handle. The priorities are stored in heap order in a long array
+ * next to an int array of the ids, and the heap position of each id in a
+ * third array, all allocated once by the constructor. No operation
+ * allocates.
+ */
+public final class IndexedLongQuaternaryHeap {
+
+    // Stores the heap position of the root
+    private static final int ROOT = 3;
+
+    // Stores the priorities in heap order, from index ROOT
+    private final long[] priorities;
+
+    // Stores the id of each priority, in heap order
+    private final int[] ids;
+
+    // Stores the heap position of each id, or -1 if it is not in the queue
+    private final int[] positions;
+
+    // Stores the number of ids in the queue
+    private int size;
+
+    /**
+     * Constructs an empty priority queue for the ids [0, capacity).
+     *
+     * Time Complexity: O(capacity) to allocate the arrays.
+     *
+     * Memory Complexity: O(capacity).
+     *
+     * @param capacity the number of ids.
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public IndexedLongQuaternaryHeap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.priorities = new long[ROOT + capacity];
+        this.ids = new int[ROOT + capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Adds the id to the queue with the given priority.
+     *
+     * Time Complexity: O(log_4 n) because the id moves up at most the height
+     * of the heap.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param id an id in [0, capacity) that is not in the queue.
+     * @param priority the priority of the id.
+     * @throws IllegalArgumentException if the id is out of range or already
+     *         in the queue.
+     */
+    public void insert(int id, long priority) {
+        if (id < 0 || id >= positions.length || positions[id] >= 0) {
+            throw new IllegalArgumentException();
+        }
+        siftUp(ROOT + size++, priority, id);
+    }
+
+    /**
+     * Gets the id with the least priority without removing it.
+     *
+     * Time Complexity: O(1).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the id with the least priority.
+     * @throws NoSuchElementException if the queue is empty.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return ids[ROOT];
+    }
+
+    /**
+     * Gets the least priority of the queue.
+     *
+     * Time Complexity: O(1).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the least priority.
+     * @throws NoSuchElementException if the queue is empty.
+     */
+    public long peekPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return priorities[ROOT];
+    }
+
+    /**
+     * Removes the id with the least priority from the queue.
+     *
+     * Time Complexity: O(log_4 n) because a bottom-up sift compares the
+     * children at each level of the heap.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the id with the least priority.
+     * @throws NoSuchElementException if the queue is empty.
+     */
+    public int poll() {
+        int id = peek();
+        removeAt(ROOT);
+        return id;
+    }
+
+    /**
+     * Gets the priority of an id in the queue.
+     *
+     * Time Complexity: O(1).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param id an id in the queue.
+     * @return its priority.
+     * @throws IllegalArgumentException if the id is not in the queue.
+     */
+    public long priority(int id) {
+        return priorities[position(id)];
+    }
+
+    /**
+     * Checks whether the id is in the queue.
+     *
+     * @param id the id.
+     * @return true if the id is in the queue.
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < positions.length && positions[id] >= 0;
+    }
+
+    /**
+     * Lowers the priority of an id in the queue, moving it towards the root.
+     *
+     * Time Complexity: O(log_4 n) because one parent is compared per level.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param id an id in the queue.
+     * @param priority the new priority, not greater than the old.
+     * @throws IllegalArgumentException if the id is not in the queue or the
+     *         priority is greater than the old one.
+     */
+    public void decreaseKey(int id, long priority) {
+        int position = position(id);
+        if (priority > priorities[position]) {
+            throw new IllegalArgumentException();
+        }
+        siftUp(position, priority, id);
+    }
+
+    /**
+     * Raises the priority of an id in the queue, moving it away from the
+     * root.
+     *
+     * Time Complexity: O(log_4 n) because the children are compared at each
+     * level.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param id an id in the queue.
+     * @param priority the new priority, not less than the old.
+     * @throws IllegalArgumentException if the id is not in the queue or the
+     *         priority is less than the old one.
+     */
+    public void increaseKey(int id, long priority) {
+        int position = position(id);
+        if (priority < priorities[position]) {
+            throw new IllegalArgumentException();
+        }
+        siftDown(position, priority, id);
+    }
+
+    /**
+     * Removes an id from the queue.
+     *
+     * Time Complexity: O(log_4 n) because the last id takes its place and is
+     * sifted up or down.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param id an id in the queue.
+     * @return its priority.
+     * @throws IllegalArgumentException if the id is not in the queue.
+     */
+    public long remove(int id) {
+        int position = position(id);
+        long priority = priorities[position];
+        removeAt(position);
+        return priority;
+    }
+
+    /**
+     * @return the number of ids in the queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the queue has no ids.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the number of ids, which are [0, capacity).
+     */
+    public int capacity() {
+        return positions.length;
+    }
+
+    /**
+     * Gets the heap position of an id.
+     *
+     * @param id the id.
+     * @return its heap position.
+     * @throws IllegalArgumentException if the id is not in the queue.
+     */
+    private int position(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException();
+        }
+        return positions[id];
+    }
+
+    /**
+     * Removes the id at a heap position, filling its place with the last id
+     * of the heap.
+     *
+     * @param position the heap position.
+     */
+    private void removeAt(int position) {
+        positions[ids[position]] = -1;
+        int last = ROOT + --size;
+        if (position == last) {
+            return;
+        }
+        long value = priorities[last];
+        int id = ids[last];
+        if (position > ROOT && value < priorities[parent(position)]) {
+            siftUp(position, value, id);
+        } else {
+            siftDown(position, value, id);
+        }
+    }
+
+    /**
+     * Moves the priority up from the hole until its parent is not greater.
+     *
+     * @param hole the heap position of the hole.
+     * @param value the priority to place.
+     * @param id the id of the priority.
+     */
+    private void siftUp(int hole, long value, int id) {
+        while (hole > ROOT) {
+            int parent = parent(hole);
+            if (priorities[parent] <= value) {
+                break;
+            }
+            move(parent, hole);
+            hole = parent;
+        }
+        place(hole, value, id);
+    }
+
+    /**
+     * Performs a bottom-up downheap, as in (@see DaryHeap): the hole moves
+     * down to a leaf along the lesser children, and the priority then moves
+     * back up from the leaf, stopping at the start.
+     *
+     * @param start the heap position of the hole.
+     * @param value the priority to place.
+     * @param id the id of the priority.
+     */
+    private void siftDown(int start, long value, int id) {
+        int end = ROOT + size;
+        int lastParent = parent(end - 1);
+        int hole = start;
+        while (hole <= lastParent) {
+            int first = firstChild(hole);
+            int last = Math.min(first + 4, end);
+            int least = first;
+            for (int k = first + 1; k < last; k++) {
+                if (priorities[k] < priorities[least]) {
+                    least = k;
+                }
+            }
+            move(least, hole);
+            hole = least;
+        }
+        while (hole > start) {
+            int parent = parent(hole);
+            if (priorities[parent] <= value) {
+                break;
+            }
+            move(parent, hole);
+            hole = parent;
+        }
+        place(hole, value, id);
+    }
+
+    /**
+     * Moves the priority at one heap position to another, with its id.
+     *
+     * @param from the heap position of the priority.
+     * @param to the heap position to move it to.
+     */
+    private void move(int from, int to) {
+        priorities[to] = priorities[from];
+        ids[to] = ids[from];
+        positions[ids[to]] = to;
+    }
+
+    /**
+     * Places a priority and its id at a heap position.
+     *
+     * @param position the heap position.
+     * @param value the priority.
+     * @param id the id of the priority.
+     */
+    private void place(int position, long value, int id) {
+        priorities[position] = value;
+        ids[position] = id;
+        positions[id] = position;
+    }
+
+    /**
+     * Gets the heap position of the first child of a node.
+     *
+     * @param parent the heap position of the node.
+     * @return the heap position of its first child, a multiple of 4.
+     */
+    private static int firstChild(int parent) {
+        return (parent - ROOT + 1) << 2;
+    }
+
+    /**
+     * Gets the heap position of the parent of a node, which is less than
+     * ROOT for the root itself.
+     *
+     * @param child the heap position of the node.
+     * @return the heap position of its parent.
+     */
+    private static int parent(int child) {
+        return (child >> 2) + ROOT - 1;
+    }
+}
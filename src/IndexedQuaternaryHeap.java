@@ -0,0 +1,409 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A min priority queue on a quaternary heap, which returns a handle for each
+ * element so that it can later be re-prioritised or removed in
+ * O(log_4 n) time, as Dijkstra's algorithm and timer wheels need
+ * (@see QuaternaryHeapsort).
+ *
+ * The heap is laid out as in (@see DaryHeap) with an arity of 4: the root is
+ * at index 3, so the four children of each node start at a multiple of 4.
+ * The elements are stored in heap order next to their handles, so that a
+ * sift compares adjacent elements rather than following the handles, and
+ * the heap position of each handle is kept up to date as elements move.
+ *
+ * A handle is valid until its element is polled or removed, after which it
+ * may be reused for a later insert. Inserting allocates only when the arrays
+ * have to grow.
+ *
+ * @param <T> the type of the elements.
+ */
+public final class IndexedQuaternaryHeap<T> {
+
+    // Stores the heap position of the root
+    private static final int ROOT = 3;
+
+    // Stores the initial number of handles
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Stores the elements in heap order, from index ROOT
+    private Object[] elements;
+
+    // Stores the handle of each element, in heap order
+    private int[] handles;
+
+    // Stores the heap position of each handle, or -1 if it is free
+    private int[] positions;
+
+    // Stores the free handles, as a stack
+    private int[] free;
+
+    // Stores the number of free handles
+    private int freeCount;
+
+    // Stores the number of elements
+    private int size;
+
+    // Stores the order of the queue, least first
+    private final Comparator<? super T> comparator;
+
+    /**
+     * Constructs an empty priority queue of elements in their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedQuaternaryHeap() {
+        this((Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Constructs an empty priority queue of elements in the order of the
+     * given comparator.
+     *
+     * @param comparator the order of the queue, least first.
+     */
+    public IndexedQuaternaryHeap(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.elements = new Object[ROOT + INITIAL_CAPACITY];
+        this.handles = new int[ROOT + INITIAL_CAPACITY];
+        this.positions = new int[INITIAL_CAPACITY];
+        this.free = new int[INITIAL_CAPACITY];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Adds the element to the queue.
+     *
+     * Time Complexity: O(log_4 n) amortized, because the element moves up at
+     * most the height of the heap, and the arrays are doubled when full.
+     *
+     * Memory Complexity: O(1) amortized.
+     *
+     * @param element the element to add.
+     * @return the handle of the element.
+     * @throws NullPointerException if the element is null.
+     */
+    public int insert(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        int handle;
+        if (freeCount > 0) {
+            handle = free[--freeCount];
+        } else {
+            handle = size;
+            if (handle == positions.length) {
+                grow();
+            }
+        }
+        siftUp(ROOT + size++, element, handle);
+        return handle;
+    }
+
+    /**
+     * Gets the least element of the queue without removing it.
+     *
+     * Time Complexity: O(1).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the least element, or null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        return (T) elements[ROOT];
+    }
+
+    /**
+     * Gets the handle of the least element of the queue.
+     *
+     * Time Complexity: O(1).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the handle of the least element, or -1 if the queue is empty.
+     */
+    public int peekHandle() {
+        return size == 0 ? -1 : handles[ROOT];
+    }
+
+    /**
+     * Removes the least element of the queue. Its handle becomes free.
+     *
+     * Time Complexity: O(log_4 n) because a bottom-up sift compares the
+     * children at each level of the heap.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the least element, or null if the queue is empty.
+     */
+    public T poll() {
+        if (size == 0) {
+            return null;
+        }
+        return removeAt(ROOT);
+    }
+
+    /**
+     * Gets the element with the given handle.
+     *
+     * Time Complexity: O(1).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param handle the handle of an element of the queue.
+     * @return the element.
+     * @throws IllegalArgumentException if the handle is not in the queue.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int handle) {
+        return (T) elements[position(handle)];
+    }
+
+    /**
+     * Checks whether the handle belongs to an element of the queue.
+     *
+     * @param handle the handle.
+     * @return true if the handle is in the queue.
+     */
+    public boolean contains(int handle) {
+        return handle >= 0 && handle < positions.length &&
+                positions[handle] >= 0;
+    }
+
+    /**
+     * Replaces the element with the given handle by one that is not greater,
+     * moving it towards the root.
+     *
+     * Time Complexity: O(log_4 n) because one parent is compared per level.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param handle the handle of an element of the queue.
+     * @param element the new element, not greater than the old.
+     * @throws IllegalArgumentException if the handle is not in the queue or
+     *         the element is greater than the old one.
+     * @throws NullPointerException if the element is null.
+     */
+    @SuppressWarnings("unchecked")
+    public void decreaseKey(int handle, T element) {
+        int position = position(handle);
+        if (comparator.compare(element, (T) elements[position]) > 0) {
+            throw new IllegalArgumentException();
+        }
+        siftUp(position, element, handle);
+    }
+
+    /**
+     * Replaces the element with the given handle by one that is not less,
+     * moving it away from the root.
+     *
+     * Time Complexity: O(log_4 n) because the children are compared at each
+     * level.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param handle the handle of an element of the queue.
+     * @param element the new element, not less than the old.
+     * @throws IllegalArgumentException if the handle is not in the queue or
+     *         the element is less than the old one.
+     * @throws NullPointerException if the element is null.
+     */
+    @SuppressWarnings("unchecked")
+    public void increaseKey(int handle, T element) {
+        int position = position(handle);
+        if (comparator.compare(element, (T) elements[position]) < 0) {
+            throw new IllegalArgumentException();
+        }
+        siftDown(position, element, handle);
+    }
+
+    /**
+     * Removes the element with the given handle. The handle becomes free.
+     *
+     * Time Complexity: O(log_4 n) because the last element takes its place
+     * and is sifted up or down.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @param handle the handle of an element of the queue.
+     * @return the element.
+     * @throws IllegalArgumentException if the handle is not in the queue.
+     */
+    public T remove(int handle) {
+        return removeAt(position(handle));
+    }
+
+    /**
+     * @return the number of elements in the queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the queue has no elements.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the heap position of a handle.
+     *
+     * @param handle the handle.
+     * @return its heap position.
+     * @throws IllegalArgumentException if the handle is not in the queue.
+     */
+    private int position(int handle) {
+        if (!contains(handle)) {
+            throw new IllegalArgumentException();
+        }
+        return positions[handle];
+    }
+
+    /**
+     * Removes the element at a heap position, filling its place with the
+     * last element of the heap, and frees its handle.
+     *
+     * @param position the heap position.
+     * @return the element removed.
+     */
+    @SuppressWarnings("unchecked")
+    private T removeAt(int position) {
+        T removed = (T) elements[position];
+        int handle = handles[position];
+        int last = ROOT + --size;
+        T value = (T) elements[last];
+        int valueHandle = handles[last];
+        elements[last] = null;
+        positions[handle] = -1;
+        free[freeCount++] = handle;
+        if (position != last) {
+            if (position > ROOT && comparator.compare(value,
+                    (T) elements[parent(position)]) < 0) {
+                siftUp(position, value, valueHandle);
+            } else {
+                siftDown(position, value, valueHandle);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Moves the value up from the hole until its parent is not greater.
+     *
+     * @param hole the heap position of the hole.
+     * @param value the element to place.
+     * @param handle the handle of the element.
+     */
+    @SuppressWarnings("unchecked")
+    private void siftUp(int hole, T value, int handle) {
+        while (hole > ROOT) {
+            int parent = parent(hole);
+            if (comparator.compare((T) elements[parent], value) <= 0) {
+                break;
+            }
+            move(parent, hole);
+            hole = parent;
+        }
+        place(hole, value, handle);
+    }
+
+    /**
+     * Performs a bottom-up downheap, as in (@see DaryHeap): the hole moves
+     * down to a leaf along the lesser children, and the value then moves
+     * back up from the leaf, stopping at the start.
+     *
+     * @param start the heap position of the hole.
+     * @param value the element to place.
+     * @param handle the handle of the element.
+     */
+    @SuppressWarnings("unchecked")
+    private void siftDown(int start, T value, int handle) {
+        int end = ROOT + size;
+        int lastParent = parent(end - 1);
+        int hole = start;
+        while (hole <= lastParent) {
+            int first = firstChild(hole);
+            int last = Math.min(first + 4, end);
+            int least = first;
+            for (int k = first + 1; k < last; k++) {
+                if (comparator.compare((T) elements[k],
+                        (T) elements[least]) < 0) {
+                    least = k;
+                }
+            }
+            move(least, hole);
+            hole = least;
+        }
+        while (hole > start) {
+            int parent = parent(hole);
+            if (comparator.compare((T) elements[parent], value) <= 0) {
+                break;
+            }
+            move(parent, hole);
+            hole = parent;
+        }
+        place(hole, value, handle);
+    }
+
+    /**
+     * Moves the element at one heap position to another, with its handle.
+     *
+     * @param from the heap position of the element.
+     * @param to the heap position to move it to.
+     */
+    private void move(int from, int to) {
+        elements[to] = elements[from];
+        handles[to] = handles[from];
+        positions[handles[to]] = to;
+    }
+
+    /**
+     * Places an element and its handle at a heap position.
+     *
+     * @param position the heap position.
+     * @param value the element.
+     * @param handle the handle of the element.
+     */
+    private void place(int position, T value, int handle) {
+        elements[position] = value;
+        handles[position] = handle;
+        positions[handle] = position;
+    }
+
+    /**
+     * Doubles the number of handles and the capacity of the heap.
+     */
+    private void grow() {
+        int capacity = positions.length * 2;
+        elements = Arrays.copyOf(elements, ROOT + capacity);
+        handles = Arrays.copyOf(handles, ROOT + capacity);
+        free = Arrays.copyOf(free, capacity);
+        int old = positions.length;
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, old, capacity, -1);
+    }
+
+    /**
+     * Gets the heap position of the first child of a node.
+     *
+     * @param parent the heap position of the node.
+     * @return the heap position of its first child, a multiple of 4.
+     */
+    private static int firstChild(int parent) {
+        return (parent - ROOT + 1) << 2;
+    }
+
+    /**
+     * Gets the heap position of the parent of a node, which is less than
+     * ROOT for the root itself.
+     *
+     * @param child the heap position of the node.
+     * @return the heap position of its parent.
+     */
+    private static int parent(int child) {
+        return (child >> 2) + ROOT - 1;
+    }
+}
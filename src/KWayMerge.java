@@ -0,0 +1,186 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A k-way merge of sorted sources, iterated as a single sorted sequence.
+ *
+ * The merge keeps a tournament tree of losers: each internal node stores the
+ * source that lost the match played there, and the overall winner is kept
+ * separately. After the winner's element is taken, only the matches on the
+ * path from its source's leaf to the root are replayed, so each element costs
+ * ceil(log2 k) comparisons, about half as many as a binary heap. Of equal
+ * elements, the one from the source with the smaller index wins, so the merge
+ * is stable.
+ *
+ * Iterating allocates nothing per element: the tree is an int array of source
+ * indexes and the current element of each source is kept in an array.
+ */
+final class KWayMerge<T> implements Iterator<T> {
+
+    // Stores the sources
+    private final Iterator<? extends T>[] sources;
+
+    // Stores the current element of each source
+    private final T[] heads;
+
+    // Stores whether each source has no elements left
+    private final boolean[] exhausted;
+
+    // Stores the winner at index 0 and the loser of each match at indexes
+    // [1, k), where the children of node i are 2i and 2i + 1, and the leaf
+    // of source s is k + s
+    private final int[] tree;
+
+    // Stores the order of the sources
+    private final Comparator<? super T> comparator;
+
+    /**
+     * Constructs a merge of the given sources.
+     *
+     * Time Complexity: O(k) because each match of the tree is played once.
+     *
+     * Memory Complexity: O(k) because of the tree and the current elements.
+     *
+     * @param sources the sources, each sorted by the comparator.
+     * @param comparator the order of the sources.
+     */
+    @SuppressWarnings("unchecked")
+    private KWayMerge(Iterator<? extends T>[] sources,
+            Comparator<? super T> comparator) {
+        int k = sources.length;
+        this.sources = sources;
+        this.heads = (T[]) new Object[k];
+        this.exhausted = new boolean[k];
+        this.tree = new int[Math.max(k, 1)];
+        this.comparator = comparator;
+        for (int s = 0; s < k; s++) {
+            advance(s);
+        }
+        if (k > 0) {
+            tree[0] = build(1);
+        }
+    }
+
+    /**
+     * Merges sorted iterators.
+     *
+     * @param sources the sources, each sorted by the comparator.
+     * @param comparator the order of the sources.
+     * @return an iterator over the elements of every source, in order.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> KWayMerge<T> of(List<? extends Iterator<? extends T>> sources,
+            Comparator<? super T> comparator) {
+        return new KWayMerge<>(
+                (Iterator<? extends T>[]) sources.toArray(new Iterator<?>[0]),
+                comparator);
+    }
+
+    /**
+     * Merges sorted arrays.
+     *
+     * @param sources the sources, each sorted by the comparator.
+     * @param comparator the order of the sources.
+     * @return an iterator over the elements of every source, in order.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> KWayMerge<T> of(T[][] sources,
+            Comparator<? super T> comparator) {
+        Iterator<? extends T>[] iterators =
+                (Iterator<? extends T>[]) new Iterator<?>[sources.length];
+        for (int s = 0; s < sources.length; s++) {
+            iterators[s] = Arrays.asList(sources[s]).iterator();
+        }
+        return new KWayMerge<>(iterators, comparator);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return sources.length > 0 && !exhausted[tree[0]];
+    }
+
+    /**
+     * Takes the smallest remaining element, and replays the matches of its
+     * source with the source's next element.
+     *
+     * Time Complexity: O(log k) because one match is replayed per level.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @return the smallest remaining element.
+     * @throws NoSuchElementException if every source is exhausted.
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int winner = tree[0];
+        T result = heads[winner];
+        advance(winner);
+        for (int node = (winner + sources.length) >> 1; node > 0;
+                node >>= 1) {
+            if (beats(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+        return result;
+    }
+
+    /**
+     * Plays the matches of the subtree of a node, storing the losers.
+     *
+     * @param node the index of the node.
+     * @return the winner of the subtree.
+     */
+    private int build(int node) {
+        int k = sources.length;
+        if (node >= k) {
+            return node - k;
+        }
+        int left = build(2 * node);
+        int right = build(2 * node + 1);
+        if (beats(right, left)) {
+            tree[node] = left;
+            return right;
+        }
+        tree[node] = right;
+        return left;
+    }
+
+    /**
+     * Compares the current elements of two sources. An exhausted source loses
+     * every match, and ties go to the smaller index.
+     *
+     * @param a the index of one source.
+     * @param b the index of the other source.
+     * @return true if a wins the match.
+     */
+    private boolean beats(int a, int b) {
+        if (exhausted[a] || exhausted[b]) {
+            return !exhausted[a];
+        }
+        int cmp = comparator.compare(heads[a], heads[b]);
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    /**
+     * Moves a source to its next element.
+     *
+     * @param s the index of the source.
+     */
+    private void advance(int s) {
+        if (sources[s].hasNext()) {
+            heads[s] = sources[s].next();
+        } else {
+            heads[s] = null;
+            exhausted[s] = true;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+import java.util.Comparator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stable sorts of arrays of objects by a key that is extracted once per
+ * element (decorate-sort-undecorate), for keys that are expensive to compute
+ * (@see SortingAlgorithms).
+ *
+ * The keys are extracted into an array alongside an index permutation, and
+ * the two arrays are merge sorted together, alternating with one auxiliary
+ * copy of each as in (@see MergeSort). Comparisons read the keys directly, so
+ * the key extractor runs n times instead of O(n log n) times. long and double
+ * keys are kept in a long[] and compared as primitives. Finally, the
+ * permutation is applied to the array.
+ */
+final class KeySort {
+
+    // Runs of at most this many elements are sorted with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private KeySort() {
+    }
+
+    /**
+     * Sorts the array by a key in the order of a comparator.
+     *
+     * Time Complexity: O(n log n) comparisons of keys and n key extractions.
+     *
+     * Memory Complexity: O(n) for the keys, the permutation and their copies.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param comparator The order of the keys.
+     */
+    static <T, K> void sort(T[] input, Function<? super T, ? extends K> key,
+            Comparator<? super K> comparator) {
+        int n = input.length;
+        if (n < 2) {
+            return;
+        }
+        Object[] keys = new Object[n];
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.apply(input[i]);
+            permutation[i] = i;
+        }
+        if (SortMetrics.enabled) {
+            // Two copies each of the keys and the permutation, and the copy
+            // of the input made by permute()
+            SortMetrics.allocated((long) n * (3 * SortMetrics.REFERENCE_BYTES +
+                    2 * Integer.BYTES));
+        }
+        @SuppressWarnings("unchecked")
+        Comparator<Object> order = (Comparator<Object>) comparator;
+        sort(keys, permutation, keys.clone(), permutation.clone(), 0, n,
+                order);
+        permute(input, permutation);
+    }
+
+    /**
+     * Sorts the array by a long key.
+     *
+     * Time Complexity: O(n log n) comparisons of longs and n key extractions.
+     *
+     * Memory Complexity: O(n) for the keys, the permutation and their copies.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param reversed If true, sort by descending key.
+     */
+    static <T> void sortByLong(T[] input, ToLongFunction<? super T> key,
+            boolean reversed) {
+        int n = input.length;
+        if (n < 2) {
+            return;
+        }
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            // ~k reverses the order of longs, so ties stay in input order
+            long k = key.applyAsLong(input[i]);
+            keys[i] = reversed ? ~k : k;
+        }
+        sort(input, keys);
+    }
+
+    /**
+     * Sorts the array by a double key, in the order of Double.compare().
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param reversed If true, sort by descending key.
+     */
+    static <T> void sortByDouble(T[] input,
+            ToDoubleFunction<? super T> key, boolean reversed) {
+        int n = input.length;
+        if (n < 2) {
+            return;
+        }
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            // Flipping the magnitude bits of negative values orders the bits
+            // as Double.compare() orders the values
+            long bits = Double.doubleToLongBits(key.applyAsDouble(input[i]));
+            long k = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            keys[i] = reversed ? ~k : k;
+        }
+        sort(input, keys);
+    }
+
+    /**
+     * Sorts the array by the given long keys, one per element.
+     *
+     * @param input An array of objects.
+     * @param keys The key of each element.
+     */
+    private static <T> void sort(T[] input, long[] keys) {
+        int n = input.length;
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+        if (SortMetrics.enabled) {
+            // Two copies each of the keys and the permutation, and the copy
+            // of the input made by permute()
+            SortMetrics.allocated((long) n * (2 * Long.BYTES +
+                    2 * Integer.BYTES + SortMetrics.REFERENCE_BYTES));
+        }
+        sort(keys, permutation, keys.clone(), permutation.clone(), 0, n);
+        permute(input, permutation);
+    }
+
+    /**
+     * Moves each element of the array to its sorted position.
+     *
+     * @param input An array of objects.
+     * @param permutation The original index of the element at each sorted
+     *                    position.
+     */
+    private static <T> void permute(T[] input, int[] permutation) {
+        T[] original = input.clone();
+        for (int i = 0; i < input.length; i++) {
+            input[i] = original[permutation[i]];
+        }
+    }
+
+    /**
+     * Sorts the range [lo, hi) of the keys and the permutation into dst,
+     * using the same range of scratch as working space. The range of both
+     * must contain the same keys and indexes before the sort.
+     *
+     * @param dstKeys The keys to sort the range into.
+     * @param dst The permutation to sort the range into.
+     * @param scratchKeys The keys to use as working space.
+     * @param scratch The permutation to use as working space.
+     * @param lo The first index of the range.
+     * @param hi The index after the last of the range.
+     * @param comparator The order of the keys.
+     */
+    private static void sort(Object[] dstKeys, int[] dst,
+            Object[] scratchKeys, int[] scratch, int lo, int hi,
+            Comparator<Object> comparator) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                Object key = dstKeys[i];
+                int index = dst[i];
+                int j = i;
+                while (j > lo && comparator.compare(dstKeys[j - 1], key) > 0) {
+                    dstKeys[j] = dstKeys[j - 1];
+                    dst[j] = dst[j - 1];
+                    j--;
+                }
+                dstKeys[j] = key;
+                dst[j] = index;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sort(scratchKeys, scratch, dstKeys, dst, lo, mid, comparator);
+        sort(scratchKeys, scratch, dstKeys, dst, mid, hi, comparator);
+        // Merge the halves, taking ties from the left half
+        int i = lo, j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid &&
+                    comparator.compare(scratchKeys[j], scratchKeys[i]) >= 0)) {
+                dstKeys[k] = scratchKeys[i];
+                dst[k] = scratch[i++];
+            } else {
+                dstKeys[k] = scratchKeys[j];
+                dst[k] = scratch[j++];
+            }
+        }
+    }
+
+    /**
+     * Sorts the range [lo, hi) of the long keys and the permutation into dst,
+     * as for object keys.
+     *
+     * @param dstKeys The keys to sort the range into.
+     * @param dst The permutation to sort the range into.
+     * @param scratchKeys The keys to use as working space.
+     * @param scratch The permutation to use as working space.
+     * @param lo The first index of the range.
+     * @param hi The index after the last of the range.
+     */
+    private static void sort(long[] dstKeys, int[] dst, long[] scratchKeys,
+            int[] scratch, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                long key = dstKeys[i];
+                int index = dst[i];
+                int j = i;
+                while (j > lo && dstKeys[j - 1] > key) {
+                    dstKeys[j] = dstKeys[j - 1];
+                    dst[j] = dst[j - 1];
+                    j--;
+                }
+                dstKeys[j] = key;
+                dst[j] = index;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        sort(scratchKeys, scratch, dstKeys, dst, lo, mid);
+        sort(scratchKeys, scratch, dstKeys, dst, mid, hi);
+        // Merge the halves, taking ties from the left half
+        int i = lo, j = mid;
+        for (int k = lo; k < hi; k++) {
+            if (j >= hi || (i < mid && scratchKeys[j] >= scratchKeys[i])) {
+                dstKeys[k] = scratchKeys[i];
+                dst[k] = scratch[i++];
+            } else {
+                dstKeys[k] = scratchKeys[j];
+                dst[k] = scratch[j++];
+            }
+        }
+    }
+}
@@ -1,5 +1,8 @@
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.ObjIntConsumer;
+import java.util.function.UnaryOperator;
 
 /**
  * LinkedMultiHashSet is an implementation of a (@see MultiSet), using a hashtable as the internal
@@ -17,6 +20,9 @@ import java.util.NoSuchElementException;
  * 
  * Collision handling for elements with the same hashcode (i.e. with hashCode()) should be done
  * using linear probing, as described in lectures.
+ *
+ * Elements are hashed and compared with a (@see HashingStrategy), which by default uses the
+ * elements' own hashCode() and equals().
  * 
  * @param <T> type of elements in the set
  */
@@ -70,6 +76,19 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
     // Stores the entry that was last inserted
     private Entry<T> lastEntry;
 
+    // Stores the strategy used to hash and compare elements
+    private final HashingStrategy<? super T> strategy;
+
+    // Stores the number of DEFUNCT entries in the array
+    private int tombstones;
+
+    // Stores the hot path metrics, or null if metrics are disabled
+    private MultiSetMetrics metrics;
+
+    // Stores the counts of the slots for sampling, or null until the first
+    // sample
+    private FenwickTree weights;
+
     /**
      * Constructs a LinkedMultiHashSet with a capacity of initialCapacity.
      *
@@ -79,6 +98,23 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      * @param initialCapacity the initial capacity of the LinkedMultiHashSet.
      */
     public LinkedMultiHashSet(int initialCapacity) {
+        this(initialCapacity, HashingStrategy.defaultStrategy());
+    }
+
+    /**
+     * Constructs a LinkedMultiHashSet with a capacity of initialCapacity, that
+     * hashes and compares elements with the given strategy instead of their
+     * own hashCode() and equals().
+     *
+     * Memory Complexity: O(n) where n is the initialCapacity because memory
+     * is allocated based on the max capacity of the array.
+     *
+     * @param initialCapacity the initial capacity of the LinkedMultiHashSet.
+     * @param strategy the strategy used to hash and compare elements.
+     */
+    public LinkedMultiHashSet(int initialCapacity,
+            HashingStrategy<? super T> strategy) {
+        this.strategy = strategy;
         capacity = initialCapacity;
         size = 0;
         distinctCount = 0;
@@ -96,7 +132,7 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      */
     @Override
     public void add(T element) {
-        insert(element, 1);
+        insert(element, 1, null);
     }
 
     /**
@@ -108,7 +144,28 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      */
     @Override
     public void add(T element, int count) {
-        insert(element, count);
+        insert(element, count, null);
+    }
+
+    /**
+     * Adds count occurrences of the element with a single probe of the
+     * array, storing a copy of the element made by the copier only if the
+     * element is not already in the set. This lets a caller count a reusable
+     * view of an element, such as a (@see ByteSlice) of a buffer, without
+     * checking contains() first and probing twice.
+     *
+     * Time Complexity: O(n) if all slots are full because then all slots would
+     * need to be searched.
+     *
+     * Memory Complexity: O(1) besides the copy, because a constant amount of
+     * memory is allocated for the indexes.
+     *
+     * @param element the element, which may be a view that is reused.
+     * @param count the number of occurrences of the element to add.
+     * @param copier makes the key to store for an element that is new.
+     */
+    public void add(T element, int count, UnaryOperator<T> copier) {
+        insert(element, count, copier);
     }
 
     /**
@@ -121,8 +178,7 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
     @Override
     public boolean contains(T element) {
         int slot = findSlot(element);
-        return slot != -1 && !isAvailable(entries[slot]) &&
-                entries[slot].value > 0;
+        return slot != -1 && entries[slot] != null;
     }
 
     /**
@@ -134,7 +190,8 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      */
     @Override
     public int count(T element) {
-        return contains(element) ? entries[findSlot(element)].value : 0;
+        int slot = findSlot(element);
+        return slot != -1 && entries[slot] != null ? entries[slot].value : 0;
     }
 
     /**
@@ -191,6 +248,28 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
         return distinctCount;
     }
 
+    /**
+     * The counts of the slots are kept in a Fenwick tree, which is built on
+     * the first sample and then updated by every add and remove.
+     *
+     * Time Complexity: O(log n) where n is the capacity because the Fenwick
+     * tree is searched by halving, or O(n) for the first sample because the
+     * tree needs to be built.
+     *
+     * Memory Complexity: O(n) for the first sample because the tree stores a
+     * count per slot, then O(1).
+     */
+    @Override
+    public T sample(Random random) throws NoSuchElementException {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (weights == null) {
+            buildWeights();
+        }
+        return entries[weights.find(random.nextInt(size))].key;
+    }
+
     /**
      * Time Complexity: O(1) because assigning the private variables are
      * primitive operations.
@@ -247,10 +326,65 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
         };
     }
 
+    /**
+     * Performs the given action on each distinct element and its count, in
+     * the iteration order.
+     *
+     * Time Complexity: O(n) where n is the number of distinct elements
+     * because each entry is visited once.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param action the action to perform on each element and its count.
+     */
+    public void forEachEntry(ObjIntConsumer<? super T> action) {
+        for (Entry<T> entry = firstEntry; entry != null;
+                entry = entry.nextEntry) {
+            action.accept(entry.key, entry.value);
+        }
+    }
+
+    /**
+     * Enables recording of hot path metrics (@see MultiSetMetrics). Has no
+     * effect if metrics are already enabled.
+     *
+     * @return the metrics of this set.
+     */
+    public MultiSetMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new MultiSetMetrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * Disables recording of hot path metrics and discards recorded metrics.
+     */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Takes a snapshot of the hot path metrics and the current load factor
+     * and number of DEFUNCT entries. The probe histograms and resize metrics
+     * are empty if metrics are not enabled.
+     *
+     * Time Complexity: O(1) because the histograms have a fixed size.
+     *
+     * Memory Complexity: O(1) because the histograms have a fixed size.
+     *
+     * @return the snapshot.
+     */
+    public MultiSetMetrics.Snapshot metricsSnapshot() {
+        MultiSetMetrics source = metrics != null ? metrics :
+                new MultiSetMetrics();
+        return source.snapshot(capacity, distinctCount, tombstones);
+    }
+
     /**
      * Normalises the given hashcode to the range [0, capacity - 1].
      *
-     * Time Complexity: O(1) because abs and % are primitive functions.
+     * Time Complexity: O(1) because & and % are primitive functions.
      *
      * Memory Complexity: O(1) because a constant amount of memory is allocated.
      *
@@ -258,7 +392,8 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      * @return the normalised hashcode.
      */
     private int normaliseHash(int hashcode) {
-        return Math.abs(hashcode) % capacity;
+        // Clear the sign bit, as Math.abs(Integer.MIN_VALUE) is negative
+        return (hashcode & 0x7fffffff) % capacity;
     }
 
     /**
@@ -276,8 +411,9 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
     }
 
     /**
-     * Finds the next free slot for the given element or the slot where the
-     * element already exists in the set.
+     * Finds the slot where the element exists in the set, or the empty slot
+     * that ends its probe chain. DEFUNCT entries are probed past, as the
+     * element may have been inserted after them.
      *
      * Time Complexity: O(n) if all slots are full because then all slots would
      * need to be searched.
@@ -286,17 +422,22 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      * for the indexes.
      *
      * @param element the element to find a slot for.
-     * @return the slot for the element.
+     * @return the slot of the element, the null slot ending its probe chain,
+     *         or -1 if neither is found.
      */
     private int findSlot(T element) {
-        int h = normaliseHash(element.hashCode());
-        int i = h;
+        int h = normaliseHash(strategy.hash(element));
+        int i = h, probes = 0;
         do {
-            if (isAvailable(entries[i]) || entries[i].key.equals(element)) {
+            probes++;
+            if (entries[i] == null || (entries[i] != DEFUNCT &&
+                    strategy.equivalent(entries[i].key, element))) {
+                recordProbe(MultiSetMetrics.Operation.FIND_SLOT, probes);
                 return i;
             }
             i = (i + 1) % capacity;
         } while (i != h);
+        recordProbe(MultiSetMetrics.Operation.FIND_SLOT, probes);
         return -1;
     }
 
@@ -311,30 +452,42 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      *
      * @param element the element to insert.
      * @param count the number of occurrences of the element to add.
+     * @param copier makes the key to store for a new element, or null to
+     *               store the element itself.
      */
-    private void insert(T element, int count) {
+    private void insert(T element, int count, UnaryOperator<T> copier) {
         int defunctSlot = -1, slot = -1;
-        int h = normaliseHash(element.hashCode());
-        int i = h;
+        int h = normaliseHash(strategy.hash(element));
+        int i = h, probes = 0;
         do {
+            probes++;
             if (entries[i] == null) {
                 slot = i;
                 break;
-            } else if (defunctSlot == -1 && entries[i].equals(DEFUNCT)) {
-                defunctSlot = i;
-            } else if (entries[i].key.equals(element)) {
+            } else if (entries[i].equals(DEFUNCT)) {
+                // Reuse the first DEFUNCT entry if the element is not found
+                if (defunctSlot == -1) {
+                    defunctSlot = i;
+                }
+            } else if (strategy.equivalent(entries[i].key, element)) {
                 slot = i;
                 break;
             }
             i = (i + 1) % capacity;
         } while (i != h);
+        recordProbe(MultiSetMetrics.Operation.INSERT, probes);
 
-        if (slot == -1 && defunctSlot >= 0) {
+        // A new element reuses the first DEFUNCT entry of its probe chain. An
+        // element that is found stays in its slot, as moving it would leave
+        // a null that cuts the probe chains of the elements after it
+        if ((slot == -1 || entries[slot] == null) && defunctSlot >= 0) {
             slot = defunctSlot;
+            tombstones--;
         }
         // Create new entry
         if (isAvailable(entries[slot])) {
-            entries[slot] = new Entry<>(element, 0, lastEntry);
+            T key = copier != null ? copier.apply(element) : element;
+            entries[slot] = new Entry<>(key, 0, lastEntry);
             distinctCount++;
             if (lastEntry != null) {
                 lastEntry.nextEntry = entries[slot];
@@ -345,13 +498,12 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
         }
         entries[slot].value += count;
         size += count;
+        if (weights != null) {
+            weights.add(slot, count);
+        }
 
         if (distinctCount == capacity) {
             resize();
-        // Replace DEFUNCT entry with updated entry
-        } else if (defunctSlot >= 0 && slot != defunctSlot) {
-            entries[defunctSlot] = entries[slot];
-            entries[slot] = null;
         }
     }
 
@@ -370,15 +522,18 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      * count > the number of occurrences of the element.
      */
     private void discard(T element, int count) throws NoSuchElementException {
-        int slot = -1, h = normaliseHash(element.hashCode());
-        int i = h;
+        int slot = -1, h = normaliseHash(strategy.hash(element));
+        int i = h, probes = 0;
         do {
-            if (!isAvailable(entries[i]) && entries[i].key.equals(element)) {
+            probes++;
+            if (!isAvailable(entries[i]) &&
+                    strategy.equivalent(entries[i].key, element)) {
                 slot = i;
                 break;
             }
             i = (i + 1) % capacity;
         } while (i != h);
+        recordProbe(MultiSetMetrics.Operation.DISCARD, probes);
 
         if (slot == -1 || count > entries[slot].value) {
             throw new NoSuchElementException();
@@ -386,19 +541,23 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
 
         size -= count;
         entries[slot].value -= count;
+        if (weights != null) {
+            weights.add(slot, -count);
+        }
         if (entries[slot].value == 0) {
-            if (distinctCount == 1) {
-                firstEntry = null;
-            } else {
-                firstEntry = firstEntry.nextEntry;
-            }
+            // Unlink the entry from the iteration order
             if (entries[slot].prevEntry != null) {
                 entries[slot].prevEntry.nextEntry = entries[slot].nextEntry;
+            } else {
+                firstEntry = entries[slot].nextEntry;
             }
             if (entries[slot].nextEntry != null) {
                 entries[slot].nextEntry.prevEntry = entries[slot].prevEntry;
+            } else {
+                lastEntry = entries[slot].prevEntry;
             }
             entries[slot] = DEFUNCT;
+            tombstones++;
             distinctCount--;
         }
     }
@@ -413,11 +572,62 @@ public class LinkedMultiHashSet<T> implements MultiSet<T>, Iterable<T> {
      * of the array.
      */
     private void resize() {
+        long start = metrics != null ? System.nanoTime() : 0;
         capacity *= 2;
         Entry<T>[] oldEntries = entries;
         entries = new Entry[capacity];
+        // The keys are distinct and there are no DEFUNCT entries yet, so each
+        // goes in the first null slot of its chain. Probing directly rather
+        // than with findSlot() keeps rehashing out of the probe histograms
         for (int i = 0; i < capacity / 2; i++) {
-            entries[findSlot(oldEntries[i].key)] = oldEntries[i];
+            int slot = normaliseHash(strategy.hash(oldEntries[i].key));
+            while (entries[slot] != null) {
+                slot = (slot + 1) % capacity;
+            }
+            entries[slot] = oldEntries[i];
+        }
+        // Only live entries are copied over
+        tombstones = 0;
+        if (weights != null) {
+            buildWeights();
+        }
+        if (metrics != null) {
+            metrics.recordResize(capacity / 2, capacity,
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Builds the Fenwick tree of the counts of the slots.
+     *
+     * Time Complexity: O(n) where n is the capacity because each slot is
+     * visited once.
+     *
+     * Memory Complexity: O(n) because a count is stored per slot.
+     */
+    private void buildWeights() {
+        int[] counts = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            if (!isAvailable(entries[i])) {
+                counts[i] = entries[i].value;
+            }
+        }
+        weights = new FenwickTree(counts);
+    }
+
+    /**
+     * Records the probe length of an operation if metrics are enabled.
+     *
+     * Time Complexity: O(1) because recording a probe is constant time.
+     *
+     * Memory Complexity: O(1) because no memory is allocated.
+     *
+     * @param operation the operation that probed the array.
+     * @param probes the number of slots probed.
+     */
+    private void recordProbe(MultiSetMetrics.Operation operation, int probes) {
+        if (metrics != null) {
+            metrics.recordProbe(operation, probes);
         }
     }
 }
\ No newline at end of file
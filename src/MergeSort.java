@@ -0,0 +1,248 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A stable merge sort of arrays of objects, which can run either sequentially
+ * or in parallel on the common ForkJoinPool (@see SortingAlgorithms).
+ *
+ * The sort alternates between the input array and one auxiliary array: each
+ * level of the recursion sorts its halves into the other array and merges them
+ * back, so elements are never copied back before a merge. Short runs are
+ * sorted with insertion sort, and a merge is replaced by a copy when the last
+ * element of the left run is not greater than the first of the right run.
+ *
+ * In parallel, the halves are sorted as separate fork/join tasks, and large
+ * merges are themselves split in two around the median of the larger run and
+ * done in parallel, so that the final merges do not serialise the sort.
+ */
+final class MergeSort {
+
+    // Runs of at most this many elements are sorted with insertion sort
+    static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // Sorts and merges of at most this many elements are not split into
+    // parallel tasks
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private MergeSort() {
+    }
+
+    /**
+     * Sorts the array with a stable merge sort.
+     *
+     * Time Complexity: O(n log n), or O(n) if the input is already sorted
+     * because every merge is replaced by a copy.
+     *
+     * Memory Complexity: O(n) because of the auxiliary array.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @param parallel If true, the sort runs on the common ForkJoinPool.
+     */
+    static <T> void sort(T[] input, Comparator<? super T> comparator,
+            boolean parallel) {
+        if (input.length < 2) {
+            return;
+        }
+        // Both arrays start with the same elements, see sort()
+        T[] aux = input.clone();
+        if (SortMetrics.enabled) {
+            SortMetrics.allocated(
+                    (long) aux.length * SortMetrics.REFERENCE_BYTES);
+        }
+        if (parallel && input.length > PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(
+                    new SortTask<>(input, aux, 0, input.length, comparator));
+        } else {
+            sort(input, aux, 0, input.length, comparator);
+        }
+    }
+
+    /**
+     * Sorts the range [from, to) of the array with a stable merge sort. The
+     * range is sorted in a copy, so that the auxiliary array is only as long
+     * as the range.
+     *
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param comparator The order to sort the range in.
+     * @param parallel If true, the sort runs on the common ForkJoinPool.
+     */
+    static <T> void sort(T[] input, int from, int to,
+            Comparator<? super T> comparator, boolean parallel) {
+        if (from == 0 && to == input.length) {
+            sort(input, comparator, parallel);
+            return;
+        }
+        T[] range = Arrays.copyOfRange(input, from, to);
+        sort(range, comparator, parallel);
+        System.arraycopy(range, 0, input, from, range.length);
+    }
+
+    /**
+     * Sorts the range [lo, hi) into dst, using the same range of scratch as
+     * working space. The range of both arrays must contain the same elements
+     * before the sort.
+     *
+     * @param dst The array to sort the range into.
+     * @param scratch The array to use as working space.
+     * @param lo The first index of the range.
+     * @param hi The index after the last of the range.
+     * @param comparator The order to sort the array in.
+     */
+    private static <T> void sort(T[] dst, T[] scratch, int lo, int hi,
+            Comparator<? super T> comparator) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            SortingAlgorithms.insertionSort(dst, lo, hi, comparator);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        // Sort the halves into scratch, using dst as their working space
+        sort(scratch, dst, lo, mid, comparator);
+        sort(scratch, dst, mid, hi, comparator);
+        merge(scratch, dst, lo, mid, mid, hi, lo, comparator);
+    }
+
+    /**
+     * Merges the sorted runs src[lo1, hi1) and src[lo2, hi2) into dst
+     * starting at index out. Ties are taken from the first run, so that the
+     * merge is stable.
+     *
+     * @param src The array containing the runs.
+     * @param dst The array to merge into.
+     * @param lo1 The first index of the first run.
+     * @param hi1 The index after the last of the first run.
+     * @param lo2 The first index of the second run.
+     * @param hi2 The index after the last of the second run.
+     * @param out The index in dst of the first merged element.
+     * @param comparator The order of the runs.
+     */
+    private static <T> void merge(T[] src, T[] dst, int lo1, int hi1, int lo2,
+            int hi2, int out, Comparator<? super T> comparator) {
+        // The runs are already in order
+        if (lo1 == hi1 || lo2 == hi2 ||
+                comparator.compare(src[hi1 - 1], src[lo2]) <= 0) {
+            System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+            System.arraycopy(src, lo2, dst, out + hi1 - lo1, hi2 - lo2);
+            return;
+        }
+        int i = lo1, j = lo2;
+        while (i < hi1 && j < hi2) {
+            if (comparator.compare(src[j], src[i]) < 0) {
+                dst[out++] = src[j++];
+            } else {
+                dst[out++] = src[i++];
+            }
+        }
+        System.arraycopy(src, i, dst, out, hi1 - i);
+        System.arraycopy(src, j, dst, out + hi1 - i, hi2 - j);
+    }
+
+    /**
+     * Finds the first index in the sorted range [lo, hi) whose element is
+     * greater than (or if inclusive, greater than or equal to) the key.
+     *
+     * @param input The array containing the range.
+     * @param lo The first index of the range.
+     * @param hi The index after the last of the range.
+     * @param key The key to search for.
+     * @param inclusive If true, elements equal to key are also skipped.
+     * @param comparator The order of the range.
+     * @return The index of the first element after the key.
+     */
+    private static <T> int bound(T[] input, int lo, int hi, T key,
+            boolean inclusive, Comparator<? super T> comparator) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparator.compare(input[mid], key);
+            if (cmp < 0 || (inclusive && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Sorts a range into dst in parallel, see sort()
+    @SuppressWarnings("serial")
+    private static final class SortTask<T> extends RecursiveAction {
+
+        private final T[] dst, scratch;
+        private final int lo, hi;
+        private final Comparator<? super T> comparator;
+
+        private SortTask(T[] dst, T[] scratch, int lo, int hi,
+                Comparator<? super T> comparator) {
+            this.dst = dst;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD) {
+                sort(dst, scratch, lo, hi, comparator);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask<>(scratch, dst, lo, mid, comparator),
+                    new SortTask<>(scratch, dst, mid, hi, comparator));
+            new MergeTask<>(scratch, dst, lo, mid, mid, hi, lo, comparator)
+                    .compute();
+        }
+    }
+
+    // Merges two runs into dst in parallel, see merge()
+    @SuppressWarnings("serial")
+    private static final class MergeTask<T> extends RecursiveAction {
+
+        private final T[] src, dst;
+        private final int lo1, hi1, lo2, hi2, out;
+        private final Comparator<? super T> comparator;
+
+        private MergeTask(T[] src, T[] dst, int lo1, int hi1, int lo2, int hi2,
+                int out, Comparator<? super T> comparator) {
+            this.src = src;
+            this.dst = dst;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.out = out;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1, n2 = hi2 - lo2;
+            if (n1 + n2 <= PARALLEL_THRESHOLD || n1 == 0 || n2 == 0 ||
+                    comparator.compare(src[hi1 - 1], src[lo2]) <= 0) {
+                merge(src, dst, lo1, hi1, lo2, hi2, out, comparator);
+                return;
+            }
+            // Split around the median of the larger run. Elements of the
+            // first run equal to a key from the second run go before it,
+            // and elements of the second run equal to a key from the first
+            // run go after it, to keep the merge stable.
+            int mid1, mid2;
+            if (n1 >= n2) {
+                mid1 = (lo1 + hi1) >>> 1;
+                mid2 = bound(src, lo2, hi2, src[mid1], false, comparator);
+            } else {
+                mid2 = (lo2 + hi2) >>> 1;
+                mid1 = bound(src, lo1, hi1, src[mid2], true, comparator);
+            }
+            int split = out + (mid1 - lo1) + (mid2 - lo2);
+            invokeAll(new MergeTask<>(src, dst, lo1, mid1, lo2, mid2, out,
+                            comparator),
+                    new MergeTask<>(src, dst, mid1, hi1, mid2, hi2, split,
+                            comparator));
+        }
+    }
+}
@@ -0,0 +1,274 @@
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent, relaxed min priority queue (a MultiQueue): q quaternary heaps
+ * (@see DaryHeap), each behind its own lock, instead of one heap behind one
+ * lock.
+ *
+ * add() pushes onto a randomly chosen heap. poll() reads the least element
+ * of two randomly chosen heaps, without locking, and pops from the heap with
+ * the lesser one. If the chosen lock is held by another thread, the call
+ * chooses again rather than waiting, so threads spread over the heaps and
+ * throughput scales with the number of threads until the heaps are
+ * saturated.
+ *
+ * The price is that poll() is relaxed: it returns one of the least elements,
+ * not always the least. For a single consumer and random heap choices, the
+ * rank of the element returned (the number of smaller elements still in the
+ * queue) is O(q) in expectation and O(q log q) with high probability, as
+ * shown for the two-choice process by Alistarh et al., "The Power of Choice
+ * in Priority Scheduling" (PODC 2017). Choosing only one heap would let the
+ * rank error grow without bound. Concurrent calls add roughly the number of
+ * calls in flight on other threads to the rank error. Two heaps per thread
+ * is the usual choice.
+ *
+ * poll() returns null only after finding every heap empty, so a null can
+ * miss elements added concurrently. size() is likewise a sum of the heap
+ * sizes read one at a time.
+ *
+ * @param <T> the type of the elements.
+ */
+public final class MultiQueue<T> {
+
+    // Stores the number of heaps per available processor by default
+    private static final int HEAPS_PER_PROCESSOR = 2;
+
+    // Stores the heaps
+    private final Heap<T>[] heaps;
+
+    /**
+     * Constructs an empty queue of elements in their natural order, with
+     * two heaps per available processor.
+     */
+    @SuppressWarnings("unchecked")
+    public MultiQueue() {
+        this((Comparator<? super T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Constructs an empty queue of elements in the order of the given
+     * comparator, with two heaps per available processor.
+     *
+     * @param comparator the order of the queue, least first.
+     */
+    public MultiQueue(Comparator<? super T> comparator) {
+        this(HEAPS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors(),
+                comparator);
+    }
+
+    /**
+     * Constructs an empty queue of elements in the order of the given
+     * comparator.
+     *
+     * @param heaps the number of heaps, q; at least 1. More heaps mean less
+     *              contention but a larger rank error.
+     * @param comparator the order of the queue, least first.
+     * @throws IllegalArgumentException if there are no heaps.
+     */
+    @SuppressWarnings("unchecked")
+    public MultiQueue(int heaps, Comparator<? super T> comparator) {
+        if (heaps < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.heaps = (Heap<T>[]) new Heap<?>[heaps];
+        for (int i = 0; i < heaps; i++) {
+            this.heaps[i] = new Heap<>(comparator);
+        }
+    }
+
+    /**
+     * Adds the element to a randomly chosen heap.
+     *
+     * Time Complexity: O(log_4 (n / q)) amortized, besides waiting for locks.
+     *
+     * Memory Complexity: O(1) amortized.
+     *
+     * @param element the element to add.
+     * @throws NullPointerException if the element is null.
+     */
+    public void add(T element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; ; attempt++) {
+            Heap<T> heap = heaps[random.nextInt(heaps.length)];
+            if (lock(heap, attempt)) {
+                try {
+                    heap.heap.add(element);
+                    heap.update();
+                } finally {
+                    heap.lock.unlock();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes one of the least elements: the lesser of the least elements of
+     * two randomly chosen heaps.
+     *
+     * Time Complexity: O(log_4 (n / q)), besides waiting for locks, or O(q)
+     * if the chosen heaps are empty.
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the element, or null if every heap was found empty.
+     */
+    public T poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; ; attempt++) {
+            Heap<T> first = heaps[random.nextInt(heaps.length)];
+            Heap<T> second = heaps[random.nextInt(heaps.length)];
+            T top1 = first.top;
+            T top2 = second.top;
+            if (top1 == null && top2 == null) {
+                return pollAny(random.nextInt(heaps.length));
+            }
+            Heap<T> heap = top2 == null ||
+                    (top1 != null && first.compare(top1, top2) <= 0) ?
+                    first : second;
+            if (lock(heap, attempt)) {
+                try {
+                    // The top may have been taken since it was read, so
+                    // this pops whatever is least now
+                    T element = heap.heap.poll();
+                    if (element != null) {
+                        heap.update();
+                        return element;
+                    }
+                } finally {
+                    heap.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of elements, summed over the heaps one at a time.
+     *
+     * Time Complexity: O(q).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return the number of elements.
+     */
+    public int size() {
+        int size = 0;
+        for (Heap<T> heap : heaps) {
+            size += heap.size;
+        }
+        return size;
+    }
+
+    /**
+     * Checks whether every heap is empty, one at a time.
+     *
+     * Time Complexity: O(q).
+     *
+     * Memory Complexity: O(1).
+     *
+     * @return true if every heap was found empty.
+     */
+    public boolean isEmpty() {
+        for (Heap<T> heap : heaps) {
+            if (heap.top != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pops from the first heap found not to be empty, starting from the
+     * given heap, after two random choices found both empty.
+     *
+     * @param start the index of the heap to start from.
+     * @return the element, or null if every heap was found empty.
+     */
+    private T pollAny(int start) {
+        for (int i = 0; i < heaps.length; i++) {
+            Heap<T> heap = heaps[(start + i) % heaps.length];
+            if (heap.top == null) {
+                continue;
+            }
+            heap.lock.lock();
+            try {
+                T element = heap.heap.poll();
+                if (element != null) {
+                    heap.update();
+                    return element;
+                }
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Locks a heap, giving up if it is held by another thread, unless every
+     * heap could have been tried by now, in which case it waits.
+     *
+     * @param heap the heap.
+     * @param attempt the number of locks this call has given up on.
+     * @return true if the heap is locked.
+     */
+    private boolean lock(Heap<T> heap, int attempt) {
+        if (attempt < heaps.length) {
+            return heap.lock.tryLock();
+        }
+        heap.lock.lock();
+        return true;
+    }
+
+    // A heap of the queue and its lock
+    private static final class Heap<T> {
+
+        // Stores the lock, which guards heap
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Stores the elements
+        private final DaryHeap<T> heap;
+
+        // Stores the order of the elements
+        private final Comparator<? super T> comparator;
+
+        // Stores the least element, or null if the heap is empty, so that it
+        // can be read without locking
+        private volatile T top;
+
+        // Stores the number of elements, so that it can be read without
+        // locking
+        private volatile int size;
+
+        // Creates an empty Heap
+        private Heap(Comparator<? super T> comparator) {
+            this.heap = new DaryHeap<>(4, comparator);
+            this.comparator = comparator;
+        }
+
+        /**
+         * Publishes the least element and the size, after a change to the
+         * heap. Must be called holding the lock.
+         */
+        private void update() {
+            top = heap.peek();
+            size = heap.size();
+        }
+
+        /**
+         * Compares two elements in the order of the heap.
+         *
+         * @param a the first element.
+         * @param b the second element.
+         * @return the comparison of a to b.
+         */
+        private int compare(T a, T b) {
+            return comparator.compare(a, b);
+        }
+    }
+}
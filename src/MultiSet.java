@@ -1,4 +1,6 @@
+import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 /**
  * A collection that behaves like a set, but that can contain duplicate elements.
@@ -82,6 +84,37 @@ public interface MultiSet<T> {
      */
     int distinctCount();
 
+    /**
+     * Returns a random element of the multiset, where each element is chosen
+     * with probability proportional to its count.
+     *
+     * The default implementation walks the iteration of a multiset that is
+     * also Iterable, where each element appears once per occurrence, to a
+     * random occurrence, in O(n) time. Implementations should override it
+     * with a faster walk where they can.
+     *
+     * @param random the source of randomness
+     * @return the chosen element
+     * @throws NoSuchElementException if the multiset is empty
+     * @throws UnsupportedOperationException if the multiset is not Iterable
+     * and does not override this method
+     * @require random != null
+     */
+    @SuppressWarnings("unchecked")
+    default T sample(Random random) throws NoSuchElementException {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        if (!(this instanceof Iterable)) {
+            throw new UnsupportedOperationException();
+        }
+        Iterator<T> occurrences = ((Iterable<T>) this).iterator();
+        for (int skip = random.nextInt(size()); skip > 0; skip--) {
+            occurrences.next();
+        }
+        return occurrences.next();
+    }
+
     /**
      * Returns the maximum number of *distinct* elements the internal data
      * structure can contain before resizing.
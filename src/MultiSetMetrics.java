@@ -0,0 +1,293 @@
+import java.util.Arrays;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Records hot path metrics for a (@see LinkedMultiHashSet): a histogram of the
+ * probe lengths of findSlot, insert and discard, and the number and duration
+ * of resizes.
+ *
+ * Metrics are only recorded once enabled with
+ * LinkedMultiHashSet.enableMetrics(); a disabled set only pays for a null
+ * check. Recorded metrics can be read as a (@see Snapshot), or committed as a
+ * JFR event with Snapshot.commit(). A JFR event is also committed for every
+ * resize of a set with metrics enabled.
+ *
+ * Probe lengths are bucketed by powers of two: bucket k counts probes with a
+ * length in [2^k, 2^(k + 1)).
+ *
+ * Not thread safe, like the set it belongs to.
+ */
+public class MultiSetMetrics {
+
+    /**
+     * The operations whose probe lengths are recorded.
+     */
+    public enum Operation {
+        FIND_SLOT, INSERT, DISCARD
+    }
+
+    // Stores the number of probe length buckets
+    static final int BUCKETS = 32;
+
+    // Stores the probe length histogram of each operation
+    private final long[][] probes =
+            new long[Operation.values().length][BUCKETS];
+
+    // Stores the number of resizes
+    private long resizes;
+
+    // Stores the total time spent resizing, in nanoseconds
+    private long resizeNanos;
+
+    /**
+     * Records the probe length of an operation.
+     *
+     * Time Complexity: O(1) because computing the bucket and incrementing it
+     * are primitive operations.
+     *
+     * Memory Complexity: O(1) because no memory is allocated.
+     *
+     * @param operation the operation that probed the table.
+     * @param length the number of slots probed, at least 1.
+     */
+    void recordProbe(Operation operation, int length) {
+        probes[operation.ordinal()][bucket(length)]++;
+    }
+
+    /**
+     * Records a resize of the table.
+     *
+     * Time Complexity: O(1) because committing a JFR event is constant time.
+     *
+     * Memory Complexity: O(1) because a single event is allocated.
+     *
+     * @param oldCapacity the capacity before the resize.
+     * @param newCapacity the capacity after the resize.
+     * @param nanos the time spent resizing, in nanoseconds.
+     */
+    void recordResize(int oldCapacity, int newCapacity, long nanos) {
+        resizes++;
+        resizeNanos += nanos;
+        ResizeEvent event = new ResizeEvent();
+        if (event.shouldCommit()) {
+            event.oldCapacity = oldCapacity;
+            event.newCapacity = newCapacity;
+            event.resizeNanos = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Clears all recorded metrics.
+     */
+    public void reset() {
+        for (long[] histogram : probes) {
+            Arrays.fill(histogram, 0);
+        }
+        resizes = 0;
+        resizeNanos = 0;
+    }
+
+    /**
+     * Takes a snapshot of the recorded metrics and the given table state.
+     *
+     * Time Complexity: O(1) because the histograms have a fixed size.
+     *
+     * Memory Complexity: O(1) because the histograms have a fixed size.
+     *
+     * @param capacity the capacity of the table.
+     * @param distinctCount the number of live entries in the table.
+     * @param tombstones the number of DEFUNCT entries in the table.
+     * @return the snapshot.
+     */
+    Snapshot snapshot(int capacity, int distinctCount, int tombstones) {
+        long[][] copy = new long[probes.length][];
+        for (int i = 0; i < probes.length; i++) {
+            copy[i] = probes[i].clone();
+        }
+        return new Snapshot(copy, resizes, resizeNanos, capacity,
+                distinctCount, tombstones);
+    }
+
+    /**
+     * Gets the histogram bucket of a probe length.
+     *
+     * @param length the probe length, at least 1.
+     * @return floor(log2(length)).
+     */
+    static int bucket(int length) {
+        return 31 - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * An immutable snapshot of the metrics of a LinkedMultiHashSet.
+     */
+    public static class Snapshot {
+
+        // Stores the probe length histogram of each operation
+        private final long[][] probes;
+
+        // Stores the number of resizes
+        private final long resizes;
+
+        // Stores the total time spent resizing, in nanoseconds
+        private final long resizeNanos;
+
+        // Stores the capacity of the table
+        private final int capacity;
+
+        // Stores the number of live entries in the table
+        private final int distinctCount;
+
+        // Stores the number of DEFUNCT entries in the table
+        private final int tombstones;
+
+        // Creates a Snapshot
+        private Snapshot(long[][] probes, long resizes, long resizeNanos,
+                int capacity, int distinctCount, int tombstones) {
+            this.probes = probes;
+            this.resizes = resizes;
+            this.resizeNanos = resizeNanos;
+            this.capacity = capacity;
+            this.distinctCount = distinctCount;
+            this.tombstones = tombstones;
+        }
+
+        /**
+         * Gets the probe length histogram of an operation, where bucket k
+         * counts probes with a length in [2^k, 2^(k + 1)).
+         *
+         * @param operation the operation.
+         * @return a copy of the histogram.
+         */
+        public long[] probeHistogram(Operation operation) {
+            return probes[operation.ordinal()].clone();
+        }
+
+        /**
+         * Gets the number of recorded probes of an operation.
+         *
+         * @param operation the operation.
+         * @return the number of probes.
+         */
+        public long probeCount(Operation operation) {
+            long total = 0;
+            for (long count : probes[operation.ordinal()]) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * @return the number of resizes.
+         */
+        public long resizes() {
+            return resizes;
+        }
+
+        /**
+         * @return the total time spent resizing, in nanoseconds.
+         */
+        public long resizeNanos() {
+            return resizeNanos;
+        }
+
+        /**
+         * @return the number of DEFUNCT entries in the table.
+         */
+        public int tombstones() {
+            return tombstones;
+        }
+
+        /**
+         * @return the fraction of slots holding a live entry.
+         */
+        public double loadFactor() {
+            return (double) distinctCount / capacity;
+        }
+
+        /**
+         * @return the fraction of slots holding a live or DEFUNCT entry,
+         *         which determines the length of unsuccessful probes.
+         */
+        public double occupiedFactor() {
+            return (double) (distinctCount + tombstones) / capacity;
+        }
+
+        /**
+         * Commits this snapshot as a JFR event, if JFR is recording it.
+         */
+        public void commit() {
+            SnapshotEvent event = new SnapshotEvent();
+            if (event.shouldCommit()) {
+                event.capacity = capacity;
+                event.distinctCount = distinctCount;
+                event.tombstones = tombstones;
+                event.loadFactor = loadFactor();
+                event.resizes = resizes;
+                event.resizeNanos = resizeNanos;
+                event.findSlotProbes = probeCount(Operation.FIND_SLOT);
+                event.insertProbes = probeCount(Operation.INSERT);
+                event.discardProbes = probeCount(Operation.DISCARD);
+                event.commit();
+            }
+        }
+    }
+
+    // JFR event committed on every resize of a set with metrics enabled
+    @Name("LinkedMultiHashSet.Resize")
+    @Label("LinkedMultiHashSet Resize")
+    @Category("Data Structures")
+    static class ResizeEvent extends Event {
+
+        @Label("Old Capacity")
+        int oldCapacity;
+
+        @Label("New Capacity")
+        int newCapacity;
+
+        @Label("Resize Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long resizeNanos;
+    }
+
+    // JFR event committed by Snapshot.commit()
+    @Name("LinkedMultiHashSet.Metrics")
+    @Label("LinkedMultiHashSet Metrics")
+    @Category("Data Structures")
+    static class SnapshotEvent extends Event {
+
+        @Label("Capacity")
+        int capacity;
+
+        @Label("Distinct Count")
+        int distinctCount;
+
+        @Label("Tombstones")
+        int tombstones;
+
+        @Label("Load Factor")
+        double loadFactor;
+
+        @Label("Resizes")
+        long resizes;
+
+        @Label("Total Resize Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long resizeNanos;
+
+        @Label("findSlot Probes")
+        long findSlotProbes;
+
+        @Label("insert Probes")
+        long insertProbes;
+
+        @Label("discard Probes")
+        long discardProbes;
+    }
+}
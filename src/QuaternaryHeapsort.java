@@ -1,3 +1,5 @@
+import java.util.Comparator;
+
 @SuppressWarnings("unchecked")
 public class QuaternaryHeapsort {
 
@@ -15,8 +17,26 @@ public class QuaternaryHeapsort {
      * @param input to be sorted (modified in place)
      */
     public static <T extends Comparable<T>> void quaternaryHeapsort(T[] input) {
-        // TODO: implement question 1 here
-        for (int i = input.length / 4 - 1; i >= 0; i--) {
+        if (SortMetrics.enabled) {
+            // Counts comparisons with a comparator, so that the Comparable
+            // heap sort has no metrics hooks
+            SortMetrics.measure("quaternaryHeapsort", input,
+                    Comparator.naturalOrder(),
+                    (a, c) -> quaternaryHeapsort(a, 0, a.length, c));
+            return;
+        }
+        heapsort(input);
+    }
+
+    /**
+     * Sorts the input array, in-place, using a quaternary heap sort, as for
+     * quaternaryHeapsort().
+     *
+     * @param input to be sorted (modified in place)
+     */
+    private static <T extends Comparable<T>> void heapsort(T[] input) {
+        // The last parent is the parent of the last element, (n - 2) / 4
+        for (int i = (input.length - 2) >> 2; i >= 0; i--) {
             quaternaryDownheap(input, i, input.length);
         }
         int size = input.length;
@@ -37,31 +57,34 @@ public class QuaternaryHeapsort {
      * Time Complexity: O(log n) because the heap has a height of O(log n) and
      * so O(log n) swaps will be required to restore the heap order.
      *
-     * Memory Complexity: O(1) because a constant amount of memory is required
-     * to temporarily store the children and the indexes.
+     * Memory Complexity: O(1) because the children are compared in place by
+     * index, and the element being moved down is held in a local while the
+     * larger children are shifted up, so nothing is allocated.
      *
      * @param input array representing a quaternary max heap.
      * @param start position in the array to start the downheap from.
      * @param size the size of the heap in the input array, starting from index 0
      */
     public static <T extends Comparable<T>> void quaternaryDownheap(T[] input, int start, int size) {
-        // TODO: implement question 1 here
+        T value = input[start];
         int j = start;
         while (hasChildren(j, size)) {
-            int largestChild = 0;
-            T[] children = getChildren(input, j, size);
-            for (int i = 1; i < children.length && children[i] != null; i++) {
-                if (children[largestChild].compareTo(children[i]) < 0) {
-                    largestChild = i;
+            // The first of the largest children, as for a sequence of swaps
+            int first = getLeftChildIndex(j);
+            int last = Math.min(first + 4, size);
+            int largestChildIndex = first;
+            for (int i = first + 1; i < last; i++) {
+                if (input[largestChildIndex].compareTo(input[i]) < 0) {
+                    largestChildIndex = i;
                 }
             }
-            int largestChildIndex = 4 * j + (largestChild + 1);
-            if (input[largestChildIndex].compareTo(input[j]) <= 0) {
+            if (input[largestChildIndex].compareTo(value) <= 0) {
                 break;
             }
-            swap(input, j, largestChildIndex);
+            input[j] = input[largestChildIndex];
             j = largestChildIndex;
         }
+        input[j] = value;
     }
 
     /**
@@ -96,32 +119,6 @@ public class QuaternaryHeapsort {
         return getLeftChildIndex(parent) < size;
     }
 
-    /**
-     * Gets the children of the parent.
-     *
-     * Time Complexity: O(1) because the loop will always get up to four
-     * children and this is independent of the size of the input array.
-     *
-     * Memory Complexity: O(1) because the memory allocated for storing four
-     * children.
-     *
-     * @param input array representing a quaternary max heap.
-     * @param parent the index of the parent.
-     * @param size the size of the heap in the input array
-     * @return the children of the parent.
-     */
-    private static <T extends Comparable<T>> T[] getChildren(T[] input,
-            int parent, int size) {
-        T[] children = (T[]) new Comparable[4];
-        for (int i = 1; i < 5; i++) {
-            int child = parent * 4 + i;
-            if (child < size) {
-                children[i - 1] = input[child];
-            }
-        }
-        return children;
-    }
-
     /**
      * Swaps the elements at index i and j in the input array.
      *
@@ -135,7 +132,7 @@ public class QuaternaryHeapsort {
      * @param i the index of the first element to swap.
      * @param j the index of the second element to swap.
      */
-    private static <T extends Comparable<T>> void swap(T[] input, int i,
+    private static <T> void swap(T[] input, int i,
             int j) {
         T tmp = input[i];
         input[i] = input[j];
@@ -161,4 +158,369 @@ public class QuaternaryHeapsort {
         quaternaryDownheap(input, 0, --size);
         return size;
     }
+
+    /**
+     * Sorts the range [from, to) of the input array, in-place, in the order of
+     * the given comparator, using a quaternary heap sort over the range.
+     *
+     * Time Complexity: O(n log n) where n is the length of the range, because
+     * each of the n downheaps requires O(log n) time.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes and does
+     * not allocate.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     * @param comparator the order to sort the range in
+     */
+    public static <T> void quaternaryHeapsort(T[] input, int from, int to,
+            Comparator<? super T> comparator) {
+        int size = to - from;
+        boolean measured = SortMetrics.enabled;
+        for (int i = (size - 2) >> 2; i >= 0; i--) {
+            downheap(input, from, i, size, comparator);
+        }
+        while (size > 1) {
+            if (measured) {
+                SortMetrics.swapped();
+            }
+            swap(input, from, from + --size);
+            downheap(input, from, 0, size, comparator);
+        }
+    }
+
+    /**
+     * Performs a downheap on a max heap stored in the range of the array
+     * starting at offset, holding the element being moved down in a local
+     * and shifting the larger children up instead of swapping.
+     *
+     * Time Complexity: O(log n) because the heap has a height of O(log n).
+     *
+     * Memory Complexity: O(1) because only indexes are stored.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the root of the heap in the array.
+     * @param start position in the heap to start the downheap from.
+     * @param size the size of the heap.
+     * @param comparator the order of the heap.
+     */
+    private static <T> void downheap(T[] input, int offset, int start,
+            int size, Comparator<? super T> comparator) {
+        T value = input[offset + start];
+        int j = start;
+        while (4 * j + 1 < size) {
+            int first = 4 * j + 1;
+            int last = Math.min(first + 4, size);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (comparator.compare(input[offset + k],
+                        input[offset + largest]) > 0) {
+                    largest = k;
+                }
+            }
+            if (comparator.compare(input[offset + largest], value) <= 0) {
+                break;
+            }
+            input[offset + j] = input[offset + largest];
+            j = largest;
+        }
+        input[offset + j] = value;
+    }
+
+    /**
+     * Sorts the input int array ascending, in-place, using a quaternary heap
+     * sort.
+     *
+     * Time Complexity: O(n log n) because each of the n downheaps requires
+     * O(log n) time.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes and the
+     * values are compared without boxing, so nothing is allocated.
+     *
+     * @param input to be sorted (modified in place)
+     */
+    public static void quaternaryHeapsort(int[] input) {
+        quaternaryHeapsort(input, 0, input.length);
+    }
+
+    /**
+     * Sorts the input long array ascending, in-place, using a quaternary heap
+     * sort.
+     *
+     * Time Complexity: O(n log n) because each of the n downheaps requires
+     * O(log n) time.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes and the
+     * values are compared without boxing, so nothing is allocated.
+     *
+     * @param input to be sorted (modified in place)
+     */
+    public static void quaternaryHeapsort(long[] input) {
+        quaternaryHeapsort(input, 0, input.length);
+    }
+
+    /**
+     * Sorts the input float array ascending, in-place, using a quaternary
+     * heap sort, ordering NaN and the zeros as for the double array sort.
+     *
+     * Time Complexity: O(n log n) because each of the n downheaps requires
+     * O(log n) time.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes and the
+     * values are compared without boxing, so nothing is allocated.
+     *
+     * @param input to be sorted (modified in place)
+     */
+    public static void quaternaryHeapsort(float[] input) {
+        int end = SortingAlgorithms.moveNaNsToEnd(input, 0, input.length);
+        quaternaryHeapsort(input, 0, end);
+        SortingAlgorithms.orderZeros(input, 0, end);
+    }
+
+    /**
+     * Sorts the input double array ascending, in-place, using a quaternary
+     * heap sort.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare(): the NaNs are moved to the end first, and the zeros
+     * are put in order after the rest has been sorted.
+     *
+     * Time Complexity: O(n log n) because each of the n downheaps requires
+     * O(log n) time.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes and the
+     * values are compared without boxing, so nothing is allocated.
+     *
+     * @param input to be sorted (modified in place)
+     */
+    public static void quaternaryHeapsort(double[] input) {
+        int end = SortingAlgorithms.moveNaNsToEnd(input, 0, input.length);
+        quaternaryHeapsort(input, 0, end);
+        SortingAlgorithms.orderZeros(input, 0, end);
+    }
+
+    /**
+     * Sorts the range [from, to) of the input int array ascending, in-place,
+     * using a quaternary heap sort over the range.
+     *
+     * Time Complexity: O(n log n) where n is the length of the range.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     */
+    static void quaternaryHeapsort(int[] input, int from, int to) {
+        int size = to - from;
+        for (int i = (size - 2) >> 2; i >= 0; i--) {
+            downheap(input, from, i, size);
+        }
+        while (size > 1) {
+            int tmp = input[from];
+            input[from] = input[from + --size];
+            input[from + size] = tmp;
+            downheap(input, from, 0, size);
+        }
+    }
+
+    /**
+     * Performs a downheap on a int max heap stored in the range of the array
+     * starting at offset.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the root of the heap in the array.
+     * @param start position in the heap to start the downheap from.
+     * @param size the size of the heap.
+     */
+    private static void downheap(int[] input, int offset, int start,
+            int size) {
+        int value = input[offset + start];
+        int j = start;
+        while (4 * j + 1 < size) {
+            int first = 4 * j + 1;
+            int last = Math.min(first + 4, size);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (input[offset + k] > input[offset + largest]) {
+                    largest = k;
+                }
+            }
+            if (input[offset + largest] <= value) {
+                break;
+            }
+            input[offset + j] = input[offset + largest];
+            j = largest;
+        }
+        input[offset + j] = value;
+    }
+
+    /**
+     * Sorts the range [from, to) of the input long array ascending, in-place,
+     * using a quaternary heap sort over the range.
+     *
+     * Time Complexity: O(n log n) where n is the length of the range.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     */
+    static void quaternaryHeapsort(long[] input, int from, int to) {
+        int size = to - from;
+        for (int i = (size - 2) >> 2; i >= 0; i--) {
+            downheap(input, from, i, size);
+        }
+        while (size > 1) {
+            long tmp = input[from];
+            input[from] = input[from + --size];
+            input[from + size] = tmp;
+            downheap(input, from, 0, size);
+        }
+    }
+
+    /**
+     * Performs a downheap on a long max heap stored in the range of the array
+     * starting at offset.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the root of the heap in the array.
+     * @param start position in the heap to start the downheap from.
+     * @param size the size of the heap.
+     */
+    private static void downheap(long[] input, int offset, int start,
+            int size) {
+        long value = input[offset + start];
+        int j = start;
+        while (4 * j + 1 < size) {
+            int first = 4 * j + 1;
+            int last = Math.min(first + 4, size);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (input[offset + k] > input[offset + largest]) {
+                    largest = k;
+                }
+            }
+            if (input[offset + largest] <= value) {
+                break;
+            }
+            input[offset + j] = input[offset + largest];
+            j = largest;
+        }
+        input[offset + j] = value;
+    }
+
+    /**
+     * Sorts the range [from, to) of the input float array ascending, in-place,
+     * using a quaternary heap sort over the range.
+     *
+     * Time Complexity: O(n log n) where n is the length of the range.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     */
+    static void quaternaryHeapsort(float[] input, int from, int to) {
+        int size = to - from;
+        for (int i = (size - 2) >> 2; i >= 0; i--) {
+            downheap(input, from, i, size);
+        }
+        while (size > 1) {
+            float tmp = input[from];
+            input[from] = input[from + --size];
+            input[from + size] = tmp;
+            downheap(input, from, 0, size);
+        }
+    }
+
+    /**
+     * Performs a downheap on a float max heap stored in the range of the array
+     * starting at offset.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the root of the heap in the array.
+     * @param start position in the heap to start the downheap from.
+     * @param size the size of the heap.
+     */
+    private static void downheap(float[] input, int offset, int start,
+            int size) {
+        float value = input[offset + start];
+        int j = start;
+        while (4 * j + 1 < size) {
+            int first = 4 * j + 1;
+            int last = Math.min(first + 4, size);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (input[offset + k] > input[offset + largest]) {
+                    largest = k;
+                }
+            }
+            if (input[offset + largest] <= value) {
+                break;
+            }
+            input[offset + j] = input[offset + largest];
+            j = largest;
+        }
+        input[offset + j] = value;
+    }
+
+    /**
+     * Sorts the range [from, to) of the input double array ascending, in-place,
+     * using a quaternary heap sort over the range.
+     *
+     * Time Complexity: O(n log n) where n is the length of the range.
+     *
+     * Memory Complexity: O(1) because the downheap works on indexes.
+     *
+     * @param input the array containing the range to sort (modified in place)
+     * @param from the index of the first element of the range
+     * @param to the index after the last element of the range
+     */
+    static void quaternaryHeapsort(double[] input, int from, int to) {
+        int size = to - from;
+        for (int i = (size - 2) >> 2; i >= 0; i--) {
+            downheap(input, from, i, size);
+        }
+        while (size > 1) {
+            double tmp = input[from];
+            input[from] = input[from + --size];
+            input[from + size] = tmp;
+            downheap(input, from, 0, size);
+        }
+    }
+
+    /**
+     * Performs a downheap on a double max heap stored in the range of the array
+     * starting at offset.
+     *
+     * @param input the array containing the heap.
+     * @param offset the index of the root of the heap in the array.
+     * @param start position in the heap to start the downheap from.
+     * @param size the size of the heap.
+     */
+    private static void downheap(double[] input, int offset, int start,
+            int size) {
+        double value = input[offset + start];
+        int j = start;
+        while (4 * j + 1 < size) {
+            int first = 4 * j + 1;
+            int last = Math.min(first + 4, size);
+            int largest = first;
+            for (int k = first + 1; k < last; k++) {
+                if (input[offset + k] > input[offset + largest]) {
+                    largest = k;
+                }
+            }
+            if (input[offset + largest] <= value) {
+                break;
+            }
+            input[offset + j] = input[offset + largest];
+            j = largest;
+        }
+        input[offset + j] = value;
+    }
 }
@@ -0,0 +1,395 @@
+import java.util.function.ToLongFunction;
+
+/**
+ * Radix sorts for integer keys and strings (@see SortingAlgorithms).
+ *
+ * int[], long[] and objects with a long key are sorted with a least
+ * significant digit (LSD) radix sort on 8 bit digits. Keys are first rebased
+ * by subtracting the minimum key, which orders negative keys before positive
+ * ones without special handling of the sign bit, and makes the high digits
+ * zero when the keys span a narrow range (such as timestamps). The counts of
+ * every digit are computed in a single pass, and a pass over a digit that is
+ * the same for every key is skipped. Each pass is stable, and the passes
+ * alternate between the input and one buffer.
+ *
+ * Strings are sorted with multikey (three-way radix) quicksort, which
+ * partitions on one character at a time and never compares the common prefix
+ * of a partition again, falling back to insertion sort for small partitions.
+ * As in the introsort of (@see SortingAlgorithms), it recurses into the
+ * smaller partitions and loops on the largest, and a partition that is more
+ * than 2 log n unequal splits deep is heap sorted instead, so the worst case
+ * is O(n log n) comparisons of the remaining suffixes.
+ */
+final class RadixSort {
+
+    // Stores the number of bits in a digit
+    private static final int BITS = 8;
+
+    // Stores the number of values of a digit
+    private static final int RADIX = 1 << BITS;
+
+    // Partitions of at most this many strings are sorted with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private RadixSort() {
+    }
+
+    /**
+     * Sorts the array ascending with an LSD radix sort.
+     *
+     * Time Complexity: O(n w) where w = 4 is the number of digits of an int,
+     * or fewer when the keys span a narrow range.
+     *
+     * Memory Complexity: O(n) for the buffer.
+     *
+     * @param input An array of ints.
+     */
+    static void sort(int[] input) {
+        int n = input.length;
+        if (n < 2) {
+            return;
+        }
+        int min = input[0];
+        for (int value : input) {
+            min = Math.min(min, value);
+        }
+        int digits = Integer.SIZE / BITS;
+        int[][] counts = new int[digits][RADIX + 1];
+        for (int value : input) {
+            int key = value - min;
+            for (int d = 0; d < digits; d++) {
+                counts[d][((key >>> (d * BITS)) & (RADIX - 1)) + 1]++;
+            }
+        }
+        int[] src = input, dst = new int[n];
+        for (int d = 0; d < digits; d++) {
+            int shift = d * BITS;
+            if (!toOffsets(counts[d], n)) {
+                continue;
+            }
+            for (int value : src) {
+                dst[counts[d][((value - min) >>> shift) & (RADIX - 1)]++] =
+                        value;
+            }
+            int[] temp = src;
+            src = dst;
+            dst = temp;
+        }
+        if (src != input) {
+            System.arraycopy(src, 0, input, 0, n);
+        }
+    }
+
+    /**
+     * Sorts the array ascending with an LSD radix sort.
+     *
+     * Time Complexity: O(n w) where w = 8 is the number of digits of a long,
+     * or fewer when the keys span a narrow range.
+     *
+     * Memory Complexity: O(n) for the buffer.
+     *
+     * @param input An array of longs.
+     */
+    static void sort(long[] input) {
+        int n = input.length;
+        if (n < 2) {
+            return;
+        }
+        long min = input[0];
+        for (long value : input) {
+            min = Math.min(min, value);
+        }
+        int digits = Long.SIZE / BITS;
+        int[][] counts = new int[digits][RADIX + 1];
+        for (long value : input) {
+            long key = value - min;
+            for (int d = 0; d < digits; d++) {
+                counts[d][(int) ((key >>> (d * BITS)) & (RADIX - 1)) + 1]++;
+            }
+        }
+        long[] src = input, dst = new long[n];
+        for (int d = 0; d < digits; d++) {
+            int shift = d * BITS;
+            if (!toOffsets(counts[d], n)) {
+                continue;
+            }
+            for (long value : src) {
+                dst[counts[d][(int) (((value - min) >>> shift) &
+                        (RADIX - 1))]++] = value;
+            }
+            long[] temp = src;
+            src = dst;
+            dst = temp;
+        }
+        if (src != input) {
+            System.arraycopy(src, 0, input, 0, n);
+        }
+    }
+
+    /**
+     * Sorts the array of objects by a long key with a stable LSD radix sort.
+     * The key of each element is extracted exactly once.
+     *
+     * Time Complexity: O(n w) where w = 8 is the number of digits of a long,
+     * or fewer when the keys span a narrow range.
+     *
+     * Memory Complexity: O(n) for the keys and the buffers.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param reversed If true, sort by descending key. Elements with equal
+     *                 keys keep their relative order either way.
+     */
+    static <T> void sort(T[] input, ToLongFunction<? super T> key,
+            boolean reversed) {
+        int n = input.length;
+        if (n < 2) {
+            return;
+        }
+        long[] keys = new long[n];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.applyAsLong(input[i]);
+            min = Math.min(min, keys[i]);
+        }
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            keys[i] -= min;
+            max = Math.max(max, keys[i] ^ Long.MIN_VALUE);
+        }
+        // Complementing the rebased keys within their range reverses the
+        // order while keeping the high digits zero
+        if (reversed) {
+            long range = max ^ Long.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                keys[i] = range - keys[i];
+            }
+        }
+        int digits = Long.SIZE / BITS;
+        int[][] counts = new int[digits][RADIX + 1];
+        for (long k : keys) {
+            for (int d = 0; d < digits; d++) {
+                counts[d][(int) ((k >>> (d * BITS)) & (RADIX - 1)) + 1]++;
+            }
+        }
+        T[] src = input, dst = input.clone();
+        long[] srcKeys = keys, dstKeys = new long[n];
+        if (SortMetrics.enabled) {
+            SortMetrics.allocated((long) n * (SortMetrics.REFERENCE_BYTES +
+                    2 * Long.BYTES));
+        }
+        for (int d = 0; d < digits; d++) {
+            int shift = d * BITS;
+            if (!toOffsets(counts[d], n)) {
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = counts[d][(int) ((srcKeys[i] >>> shift) &
+                        (RADIX - 1))]++;
+                dst[slot] = src[i];
+                dstKeys[slot] = srcKeys[i];
+            }
+            T[] temp = src;
+            src = dst;
+            dst = temp;
+            long[] tempKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tempKeys;
+        }
+        if (src != input) {
+            System.arraycopy(src, 0, input, 0, n);
+        }
+    }
+
+    /**
+     * Turns the counts of a digit into the starting offset of each value in
+     * the output, unless every key has the same value of the digit.
+     *
+     * @param counts The count of each value of the digit, shifted up by one
+     *               index.
+     * @param n The number of keys.
+     * @return false if the pass over the digit can be skipped.
+     */
+    private static boolean toOffsets(int[] counts, int n) {
+        for (int r = 1; r <= RADIX; r++) {
+            if (counts[r] == n) {
+                return false;
+            }
+        }
+        for (int r = 0; r < RADIX; r++) {
+            counts[r + 1] += counts[r];
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the array of strings ascending, in the order of
+     * String.compareTo(), with multikey quicksort.
+     *
+     * Time Complexity: O(n log n + D) expected, where D is the total length
+     * of the distinguishing prefixes of the strings, and O(n log n)
+     * comparisons of suffixes in the worst case.
+     *
+     * Memory Complexity: O(log n) for the recursion.
+     *
+     * @param input An array of strings, none null.
+     */
+    static void sort(String[] input) {
+        sort(input, 0, input.length - 1, 0, depthLimit(input.length));
+    }
+
+    /**
+     * Sorts the range of strings, which share their first depth characters.
+     *
+     * @param input An array of strings.
+     * @param lo The left index of the range.
+     * @param hi The right index of the range.
+     * @param depth The index of the character to partition on.
+     * @param depthLimit The remaining unequal splits before falling back to
+     *                   heap sort.
+     */
+    private static void sort(String[] input, int lo, int hi, int depth,
+            int depthLimit) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                int from = depth;
+                QuaternaryHeapsort.quaternaryHeapsort(input, lo, hi + 1,
+                        (a, b) -> compare(a, b, from));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            int pivot = median(charAt(input[lo], depth),
+                    charAt(input[mid], depth), charAt(input[hi], depth));
+
+            // Partition into < pivot [lo, lt), == pivot [lt, gt] and
+            // > pivot (gt, hi] on the character at depth
+            int lt = lo, i = lo, gt = hi;
+            while (i <= gt) {
+                int c = charAt(input[i], depth);
+                if (c < pivot) {
+                    swap(input, lt++, i++);
+                } else if (c > pivot) {
+                    swap(input, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            // Recurse into the two smaller partitions and loop on the
+            // largest. Strings that ended at depth are all equal, so the
+            // middle partition is done if the pivot is past the end
+            int less = lt - lo, greater = hi - gt;
+            int equal = pivot < 0 ? 0 : gt - lt + 1;
+            if (equal > less && equal > greater) {
+                sort(input, lo, lt - 1, depth, depthLimit - 1);
+                sort(input, gt + 1, hi, depth, depthLimit - 1);
+                lo = lt;
+                hi = gt;
+                depth++;
+                continue;
+            }
+            if (equal > 0) {
+                sort(input, lt, gt, depth + 1, depthLimit);
+            }
+            if (less < greater) {
+                sort(input, lo, lt - 1, depth, depthLimit - 1);
+                lo = gt + 1;
+            } else {
+                sort(input, gt + 1, hi, depth, depthLimit - 1);
+                hi = lt - 1;
+            }
+            depthLimit--;
+        }
+        insertionSort(input, lo, hi, depth);
+    }
+
+    /**
+     * Sorts the range of strings, which share their first depth characters,
+     * with insertion sort.
+     *
+     * @param input An array of strings.
+     * @param lo The left index of the range.
+     * @param hi The right index of the range.
+     * @param depth The number of characters the strings share.
+     */
+    private static void insertionSort(String[] input, int lo, int hi,
+            int depth) {
+        for (int i = lo + 1; i <= hi; i++) {
+            String value = input[i];
+            int j = i;
+            while (j > lo && compare(input[j - 1], value, depth) > 0) {
+                input[j] = input[j - 1];
+                j--;
+            }
+            input[j] = value;
+        }
+    }
+
+    /**
+     * Compares two strings that share their first depth characters, as
+     * String.compareTo() would, starting from the character at depth.
+     *
+     * @param a The first string.
+     * @param b The second string.
+     * @param depth The number of characters the strings share.
+     * @return The comparison of a to b.
+     */
+    private static int compare(String a, String b, int depth) {
+        int n = Math.min(a.length(), b.length());
+        for (int i = depth; i < n; i++) {
+            int c = a.charAt(i) - b.charAt(i);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Gets the number of unequal splits allowed before multikey quicksort
+     * falls back to heap sort, 2 floor(log2 n), as for quick sort.
+     *
+     * @param length The number of strings to sort.
+     * @return The depth limit.
+     */
+    private static int depthLimit(int length) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(length, 1)));
+    }
+
+    /**
+     * Gets the character of the string at an index, or -1 past its end so
+     * that shorter strings sort first.
+     *
+     * @param s The string.
+     * @param index The index of the character.
+     * @return The character, or -1.
+     */
+    private static int charAt(String s, int index) {
+        return index < s.length() ? s.charAt(index) : -1;
+    }
+
+    /**
+     * Gets the median of three values.
+     *
+     * @param a The first value.
+     * @param b The second value.
+     * @param c The third value.
+     * @return The median.
+     */
+    private static int median(int a, int b, int c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /**
+     * Swaps the elements at the given indexes.
+     *
+     * @param input An array of strings.
+     * @param i The index of one of the elements.
+     * @param j The index of the other element.
+     */
+    private static void swap(String[] input, int i, int j) {
+        String temp = input[i];
+        input[i] = input[j];
+        input[j] = temp;
+    }
+}
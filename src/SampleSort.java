@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+/**
+ * A parallel sample sort of arrays of objects on the common ForkJoinPool
+ * (@see SortingAlgorithms).
+ *
+ * A random sample of the array is sorted and every OVERSAMPLING-th element of
+ * it is taken as a splitter, so that the k buckets between the splitters get
+ * about n / k elements each. The splitters are laid out as an implicit binary
+ * search tree (in breadth-first order), and each element finds its bucket by
+ * descending the tree for exactly log2 k levels, turning on the sign of the
+ * comparison rather than branching on it.
+ *
+ * Blocks of the array are classified in parallel, recording the bucket of
+ * each element and the size of each bucket per block. The elements are then
+ * scattered in parallel into an auxiliary array, in which each bucket is
+ * sorted independently with quick sort and copied back. Unlike a parallel
+ * merge sort, no element is moved more than twice before its bucket is
+ * sorted, however many threads there are.
+ */
+final class SampleSort {
+
+    // Arrays of at most this many elements are sorted sequentially
+    static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+
+    // Stores the largest number of buckets, so a bucket index fits in a byte
+    private static final int MAX_BUCKETS = 1 << 8;
+
+    // Stores the smallest average number of elements per bucket
+    private static final int MIN_BUCKET_SIZE = 1 << 10;
+
+    // Stores the number of sampled elements per bucket
+    private static final int OVERSAMPLING = 16;
+
+    private SampleSort() {
+    }
+
+    /**
+     * Sorts the array with a parallel sample sort.
+     *
+     * Time Complexity: O(n log n / p) expected with p threads, as long as
+     * the buckets are balanced.
+     *
+     * Memory Complexity: O(n) for the auxiliary array and the bucket of each
+     * element.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void sort(T[] input, Comparator<? super T> comparator) {
+        int n = input.length;
+        if (n <= SEQUENTIAL_THRESHOLD) {
+            SortingAlgorithms.quickSort(input, comparator);
+            return;
+        }
+        int buckets = Math.min(MAX_BUCKETS,
+                Integer.highestOneBit(n / MIN_BUCKET_SIZE));
+        int levels = Integer.numberOfTrailingZeros(buckets);
+        T[] tree = splitterTree(input, buckets, comparator);
+
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int blocks = Math.max(1, Math.min(4 * parallelism,
+                n / SEQUENTIAL_THRESHOLD));
+        byte[] bucketOf = new byte[n];
+        int[][] counts = new int[blocks][buckets];
+
+        // Classify each block, counting the size of each bucket in the block
+        parallelFor(blocks, b -> {
+            int[] count = counts[b];
+            for (int i = start(n, blocks, b), end = start(n, blocks, b + 1);
+                    i < end; i++) {
+                T element = input[i];
+                int node = 1;
+                for (int level = 0; level < levels; level++) {
+                    // Go right if the splitter is less than the element
+                    node = 2 * node +
+                            (comparator.compare(tree[node], element) >>> 31);
+                }
+                bucketOf[i] = (byte) (node - buckets);
+                count[node - buckets]++;
+            }
+        });
+
+        // Turn the counts into the offset of each block in each bucket
+        int[] bucketStart = new int[buckets + 1];
+        for (int j = 0, offset = 0; j < buckets; j++) {
+            bucketStart[j] = offset;
+            for (int b = 0; b < blocks; b++) {
+                int count = counts[b][j];
+                counts[b][j] = offset;
+                offset += count;
+            }
+        }
+        bucketStart[buckets] = n;
+
+        T[] aux = (T[]) new Object[n];
+        if (SortMetrics.enabled) {
+            // The bucket of each element and the auxiliary array
+            SortMetrics.allocated((long) n * (1 + SortMetrics.REFERENCE_BYTES));
+        }
+        parallelFor(blocks, b -> {
+            int[] offset = counts[b];
+            for (int i = start(n, blocks, b), end = start(n, blocks, b + 1);
+                    i < end; i++) {
+                aux[offset[bucketOf[i] & 0xff]++] = input[i];
+            }
+        });
+        parallelFor(buckets, j -> {
+            int from = bucketStart[j], to = bucketStart[j + 1];
+            SortingAlgorithms.quickSort(aux, from, to, comparator);
+            System.arraycopy(aux, from, input, from, to - from);
+        });
+    }
+
+    /**
+     * Chooses buckets - 1 splitters from a sorted random sample of the array,
+     * and lays them out as an implicit binary search tree: the children of
+     * node i are 2i and 2i + 1, and node 1 is the root.
+     *
+     * @param input An array of objects.
+     * @param buckets The number of buckets, a power of two.
+     * @param comparator The order to sort the array in.
+     * @return The tree, with index 0 unused.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] splitterTree(T[] input, int buckets,
+            Comparator<? super T> comparator) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        T[] sample = (T[]) new Object[buckets * OVERSAMPLING];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = input[random.nextInt(input.length)];
+        }
+        SortingAlgorithms.quickSort(sample, comparator);
+        T[] splitters = (T[]) new Object[buckets - 1];
+        for (int i = 0; i < splitters.length; i++) {
+            splitters[i] = sample[(i + 1) * OVERSAMPLING - 1];
+        }
+        T[] tree = (T[]) new Object[buckets];
+        fill(tree, 1, splitters, 0);
+        return tree;
+    }
+
+    /**
+     * Fills the subtree of a node with consecutive splitters, in order.
+     *
+     * @param tree The tree.
+     * @param node The index of the node.
+     * @param splitters The sorted splitters.
+     * @param next The index of the next splitter to place.
+     * @return The index of the next splitter after the subtree.
+     */
+    private static <T> int fill(T[] tree, int node, T[] splitters, int next) {
+        if (node >= tree.length) {
+            return next;
+        }
+        next = fill(tree, 2 * node, splitters, next);
+        tree[node] = splitters[next++];
+        return fill(tree, 2 * node + 1, splitters, next);
+    }
+
+    /**
+     * Gets the first index of a block of the array.
+     *
+     * @param n The length of the array.
+     * @param blocks The number of blocks.
+     * @param b The index of the block.
+     * @return The first index of the block.
+     */
+    private static int start(int n, int blocks, int b) {
+        return (int) ((long) n * b / blocks);
+    }
+
+    /**
+     * Runs a task for each index in [0, count) on the common ForkJoinPool,
+     * and waits for them all.
+     *
+     * @param count The number of tasks.
+     * @param body The task, given its index.
+     */
+    private static void parallelFor(int count, IntConsumer body) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> body.accept(index)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chooses a sorting algorithm from cheap measurements of the input, and counts
+ * how often each algorithm is chosen (@see SortingAlgorithms#sort).
+ *
+ * For arrays of objects, in order:
+ * - tiny arrays are sorted with insertion sort;
+ * - arrays with few ascending or few descending runs are sorted with
+ *   TimSort, which sorts them in close to linear time;
+ * - String, Integer and Long arrays in their natural (or reverse) order are
+ *   sorted with a radix sort;
+ * - large arrays are sorted with the parallel sample sort, unless a sample
+ *   shows that most elements are duplicates, which would put them into a few
+ *   large buckets;
+ * - everything else is sorted with quick sort, which partitions duplicates
+ *   out of the way.
+ *
+ * Runs are measured by counting the descents and ascents between adjacent
+ * elements, stopping as soon as both exceed n / RUN_DIVISOR, so random input
+ * costs only a few comparisons per RUN_DIVISOR elements.
+ *
+ * int[] and long[] arrays are sorted with an LSD radix sort once they are
+ * large enough for it to beat quick sort, and float[] and double[] arrays
+ * with quick sort. The dispatched sorts are not stable.
+ */
+final class SortDispatcher {
+
+    /**
+     * The algorithms that the dispatcher chooses between.
+     */
+    enum Algorithm {
+        INSERTION_SORT, TIM_SORT, RADIX_SORT, PARALLEL_SAMPLE_SORT, QUICK_SORT
+    }
+
+    // Arrays of at most this many objects are sorted with insertion sort
+    static final int INSERTION_SORT_THRESHOLD = 32;
+
+    // Arrays of more than this many ints or longs are sorted with radix sort
+    static final int PRIMITIVE_RADIX_THRESHOLD = 1 << 10;
+
+    // Arrays of more than this many objects are sorted with radix sort, when
+    // their key type allows it
+    static final int RADIX_THRESHOLD = 1 << 8;
+
+    // Arrays of more than this many objects are sorted in parallel, if there
+    // is more than one thread in the common ForkJoinPool
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Arrays with at most n / RUN_DIVISOR descents (or ascents) are
+    // considered presorted
+    static final int RUN_DIVISOR = 64;
+
+    // Stores the number of elements sampled to estimate duplicates
+    private static final int SAMPLE_SIZE = 64;
+
+    // Samples with at most this many distinct elements are considered to be
+    // mostly duplicates
+    private static final int FEW_DISTINCT = SAMPLE_SIZE / 8;
+
+    // Stores the number of times each algorithm has been chosen
+    private static final LongAdder[] DECISIONS =
+            new LongAdder[Algorithm.values().length];
+
+    static {
+        for (int i = 0; i < DECISIONS.length; i++) {
+            DECISIONS[i] = new LongAdder();
+        }
+    }
+
+    private SortDispatcher() {
+    }
+
+    /**
+     * Sorts the array with the algorithm chosen for it.
+     *
+     * Time Complexity: O(n log n), O(n) for presorted arrays, or O(n w) for
+     * radix sorted keys of w bytes.
+     *
+     * Memory Complexity: O(n) at most, for the sorts that use a buffer.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @return The algorithm that sorted the array.
+     */
+    static <T> Algorithm sort(T[] input, Comparator<? super T> comparator) {
+        return sort(input, comparator, comparator);
+    }
+
+    /**
+     * Sorts the array with the algorithm chosen for the given order, making
+     * its comparisons through a comparator of the same order, such as one
+     * that counts them. The choice depends on the identity of the order, so
+     * wrapping the comparator does not change it.
+     *
+     * @param input An array of objects.
+     * @param order The order to sort the array in, as given by the caller.
+     * @param comparator The comparator to compare with, in the same order.
+     * @return The algorithm that sorted the array.
+     */
+    static <T> Algorithm sort(T[] input, Comparator<? super T> order,
+            Comparator<? super T> comparator) {
+        Algorithm algorithm = choose(input, order, comparator);
+        DECISIONS[algorithm.ordinal()].increment();
+        switch (algorithm) {
+            case INSERTION_SORT:
+                SortingAlgorithms.insertionSort(input, comparator);
+                break;
+            case TIM_SORT:
+                SortingAlgorithms.timSort(input, comparator);
+                break;
+            case RADIX_SORT:
+                boolean reversed = order != Comparator.naturalOrder();
+                if (input instanceof String[]) {
+                    SortingAlgorithms.radixSort((String[]) input, reversed);
+                } else {
+                    SortingAlgorithms.radixSort(input,
+                            x -> ((Number) x).longValue(), reversed);
+                }
+                break;
+            case PARALLEL_SAMPLE_SORT:
+                SortingAlgorithms.parallelSampleSort(input, comparator);
+                break;
+            default:
+                SortingAlgorithms.quickSort(input, comparator);
+        }
+        return algorithm;
+    }
+
+    /**
+     * Chooses the algorithm to sort an array of objects with.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @return The algorithm.
+     */
+    static <T> Algorithm choose(T[] input, Comparator<? super T> comparator) {
+        return choose(input, comparator, comparator);
+    }
+
+    /**
+     * Chooses the algorithm to sort an array of objects with, checking the
+     * identity of the order but comparing with the given comparator.
+     *
+     * @param input An array of objects.
+     * @param order The order to sort the array in, as given by the caller.
+     * @param comparator The comparator to compare with, in the same order.
+     * @return The algorithm.
+     */
+    private static <T> Algorithm choose(T[] input, Comparator<? super T> order,
+            Comparator<? super T> comparator) {
+        int n = input.length;
+        if (n <= INSERTION_SORT_THRESHOLD) {
+            return Algorithm.INSERTION_SORT;
+        }
+        if (isPresorted(input, comparator)) {
+            return Algorithm.TIM_SORT;
+        }
+        if (n > RADIX_THRESHOLD && hasRadixKeys(input, order)) {
+            return Algorithm.RADIX_SORT;
+        }
+        if (n > PARALLEL_THRESHOLD &&
+                ForkJoinPool.getCommonPoolParallelism() > 1 &&
+                !isMostlyDuplicates(input, comparator)) {
+            return Algorithm.PARALLEL_SAMPLE_SORT;
+        }
+        return Algorithm.QUICK_SORT;
+    }
+
+    /**
+     * Sorts the int array with radix sort if it is large enough, or quick
+     * sort otherwise.
+     *
+     * @param input An array of ints.
+     * @param reversed If true, sort descending.
+     * @return The algorithm that sorted the array.
+     */
+    static Algorithm sort(int[] input, boolean reversed) {
+        if (input.length > PRIMITIVE_RADIX_THRESHOLD) {
+            SortingAlgorithms.radixSort(input, reversed);
+            return record(Algorithm.RADIX_SORT);
+        }
+        SortingAlgorithms.quickSort(input, reversed);
+        return record(Algorithm.QUICK_SORT);
+    }
+
+    /**
+     * Sorts the long array with radix sort if it is large enough, or quick
+     * sort otherwise.
+     *
+     * @param input An array of longs.
+     * @param reversed If true, sort descending.
+     * @return The algorithm that sorted the array.
+     */
+    static Algorithm sort(long[] input, boolean reversed) {
+        if (input.length > PRIMITIVE_RADIX_THRESHOLD) {
+            SortingAlgorithms.radixSort(input, reversed);
+            return record(Algorithm.RADIX_SORT);
+        }
+        SortingAlgorithms.quickSort(input, reversed);
+        return record(Algorithm.QUICK_SORT);
+    }
+
+    /**
+     * Sorts the float array with quick sort.
+     *
+     * @param input An array of floats.
+     * @param reversed If true, sort descending.
+     * @return The algorithm that sorted the array.
+     */
+    static Algorithm sort(float[] input, boolean reversed) {
+        SortingAlgorithms.quickSort(input, reversed);
+        return record(Algorithm.QUICK_SORT);
+    }
+
+    /**
+     * Sorts the double array with quick sort.
+     *
+     * @param input An array of doubles.
+     * @param reversed If true, sort descending.
+     * @return The algorithm that sorted the array.
+     */
+    static Algorithm sort(double[] input, boolean reversed) {
+        SortingAlgorithms.quickSort(input, reversed);
+        return record(Algorithm.QUICK_SORT);
+    }
+
+    /**
+     * Gets the number of times each algorithm has been chosen since the
+     * counts were last reset.
+     *
+     * @return The count of each algorithm.
+     */
+    static Map<Algorithm, Long> decisions() {
+        Map<Algorithm, Long> decisions = new EnumMap<>(Algorithm.class);
+        for (Algorithm algorithm : Algorithm.values()) {
+            decisions.put(algorithm, DECISIONS[algorithm.ordinal()].sum());
+        }
+        return decisions;
+    }
+
+    /**
+     * Resets the count of each algorithm to zero.
+     */
+    static void resetDecisions() {
+        for (LongAdder count : DECISIONS) {
+            count.reset();
+        }
+    }
+
+    /**
+     * Counts a choice of algorithm.
+     *
+     * @param algorithm The algorithm chosen.
+     * @return The algorithm.
+     */
+    private static Algorithm record(Algorithm algorithm) {
+        DECISIONS[algorithm.ordinal()].increment();
+        return algorithm;
+    }
+
+    /**
+     * Checks whether the array has at most n / RUN_DIVISOR descents or at
+     * most n / RUN_DIVISOR ascents between adjacent elements.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @return true if the array is close to sorted or reverse sorted.
+     */
+    private static <T> boolean isPresorted(T[] input,
+            Comparator<? super T> comparator) {
+        int limit = input.length / RUN_DIVISOR;
+        int descents = 0, ascents = 0;
+        for (int i = 1; i < input.length; i++) {
+            int cmp = comparator.compare(input[i - 1], input[i]);
+            if (cmp > 0) {
+                descents++;
+            } else if (cmp < 0) {
+                ascents++;
+            }
+            if (descents > limit && ascents > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the array can be radix sorted: its elements are all
+     * Strings, Integers or Longs, in their natural order or its reverse.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @return true if the array can be radix sorted.
+     */
+    private static <T> boolean hasRadixKeys(T[] input,
+            Comparator<? super T> comparator) {
+        if (comparator != Comparator.naturalOrder() &&
+                comparator != Comparator.reverseOrder()) {
+            return false;
+        }
+        Class<?> type = input.getClass().getComponentType();
+        return type == String.class || type == Integer.class ||
+                type == Long.class;
+    }
+
+    /**
+     * Checks whether an evenly spaced sample of the array has few distinct
+     * elements.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @return true if the sample is mostly duplicates.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> boolean isMostlyDuplicates(T[] input,
+            Comparator<? super T> comparator) {
+        T[] sample = (T[]) new Object[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            sample[i] = input[(int) ((long) input.length * i / SAMPLE_SIZE)];
+        }
+        SortingAlgorithms.insertionSort(sample, comparator);
+        int distinct = 1;
+        for (int i = 1; i < SAMPLE_SIZE; i++) {
+            if (comparator.compare(sample[i - 1], sample[i]) != 0) {
+                distinct++;
+            }
+        }
+        return distinct <= FEW_DISTINCT;
+    }
+}
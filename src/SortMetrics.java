@@ -0,0 +1,372 @@
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Records the cost of each call to the object sorts of
+ * (@see SortingAlgorithms) and (@see QuaternaryHeapsort): the number of
+ * comparisons and swaps, the deepest level of quick sort partitioning and
+ * the number of heap sort fallbacks, the bytes of auxiliary arrays allocated,
+ * and the elapsed time.
+ *
+ * Metrics are off by default and only recorded once enabled with enable().
+ * Each measured call is then passed to the listener as a
+ * (@see Measurement), and committed as a JFR event if JFR is recording it.
+ * Each sort reads the flag on entry and keeps it in a local for its inner
+ * loops, so a disabled sort pays for a volatile read per call rather than
+ * per comparison or swap; comparators are not wrapped and nothing is
+ * allocated.
+ *
+ * Comparisons are counted with a wrapper around the comparator, so they are
+ * counted on every thread of a parallel sort. Swaps, depth and allocations
+ * are only counted on the thread that called the sort. A sort called by
+ * another sort, such as the algorithm chosen by sort(), is counted as part of
+ * the outer call. Arrays of references are counted at REFERENCE_BYTES per
+ * element, as with compressed oops. The primitive sorts are not measured.
+ */
+public final class SortMetrics {
+
+    // Stores the number of bytes counted per element of an array of
+    // references
+    static final int REFERENCE_BYTES = 4;
+
+    // Stores whether metrics are enabled, read once on entry to each sort
+    static volatile boolean enabled;
+
+    // Stores the listener for measurements, or null
+    private static volatile Consumer<? super Measurement> listener;
+
+    // Stores the call being measured on each thread, or null
+    private static final ThreadLocal<Call> CURRENT = new ThreadLocal<>();
+
+    private SortMetrics() {
+    }
+
+    /**
+     * Enables metrics, committing each measurement as a JFR event only.
+     */
+    public static void enable() {
+        enable(null);
+    }
+
+    /**
+     * Enables metrics, passing each measurement to the listener and
+     * committing it as a JFR event. The listener is called on the thread that
+     * called the sort, after the sort returns.
+     *
+     * @param listener the listener, or null for JFR events only.
+     */
+    public static void enable(Consumer<? super Measurement> listener) {
+        SortMetrics.listener = listener;
+        enabled = true;
+    }
+
+    /**
+     * Disables metrics. Calls already being measured still complete their
+     * measurement.
+     */
+    public static void disable() {
+        enabled = false;
+        listener = null;
+    }
+
+    /**
+     * Sorts the array, measuring the call unless it is part of a call that
+     * is already being measured.
+     *
+     * @param algorithm the name of the sort.
+     * @param input the array to sort.
+     * @param comparator the order to sort the array in.
+     * @param sort the sort, given the array and the comparator to use.
+     */
+    static <T> void measure(String algorithm, T[] input,
+            Comparator<? super T> comparator,
+            BiConsumer<T[], Comparator<? super T>> sort) {
+        if (CURRENT.get() != null) {
+            sort.accept(input, comparator);
+            return;
+        }
+        Call call = new Call();
+        Comparator<T> counting = (a, b) -> {
+            call.comparisons.increment();
+            return comparator.compare(a, b);
+        };
+        CURRENT.set(call);
+        long start = System.nanoTime();
+        try {
+            sort.accept(input, counting);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            CURRENT.remove();
+            call.finish(algorithm, input.length, nanos);
+        }
+    }
+
+    /**
+     * Counts a swap of two elements.
+     */
+    static void swapped() {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.swaps++;
+        }
+    }
+
+    /**
+     * Starts counting the partitioning depth of a quick sort.
+     *
+     * @param depthLimit the depth at which it falls back to heap sort.
+     */
+    static void quickSort(int depthLimit) {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.depthLimit = depthLimit;
+        }
+    }
+
+    /**
+     * Counts a level of quick sort partitioning.
+     *
+     * @param depthLimit the remaining depth before falling back to heap sort,
+     *                   after this level.
+     */
+    static void partitioned(int depthLimit) {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.maxDepth = Math.max(call.maxDepth,
+                    call.depthLimit - depthLimit);
+        }
+    }
+
+    /**
+     * Counts a quick sort falling back to heap sort.
+     */
+    static void fellBack() {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.fallbacks++;
+        }
+    }
+
+    /**
+     * Counts an auxiliary allocation.
+     *
+     * @param bytes the size of the allocation, in bytes.
+     */
+    static void allocated(long bytes) {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.auxBytes += bytes;
+        }
+    }
+
+    // The counters of a call being measured
+    private static final class Call {
+
+        // Stores the number of comparisons, from any thread
+        private final LongAdder comparisons = new LongAdder();
+
+        // Stores the number of swaps
+        private long swaps;
+
+        // Stores the depth limit of the current quick sort
+        private int depthLimit;
+
+        // Stores the deepest level of quick sort partitioning
+        private int maxDepth;
+
+        // Stores the number of heap sort fallbacks
+        private int fallbacks;
+
+        // Stores the number of bytes of auxiliary arrays allocated
+        private long auxBytes;
+
+        /**
+         * Reports the measurement of the call.
+         *
+         * @param algorithm the name of the sort.
+         * @param length the number of elements sorted.
+         * @param nanos the elapsed time, in nanoseconds.
+         */
+        private void finish(String algorithm, int length, long nanos) {
+            Measurement measurement = new Measurement(algorithm, length,
+                    comparisons.sum(), swaps, maxDepth, fallbacks, auxBytes,
+                    nanos);
+            measurement.commit();
+            Consumer<? super Measurement> current = listener;
+            if (current != null) {
+                current.accept(measurement);
+            }
+        }
+    }
+
+    /**
+     * An immutable measurement of a call to a sort.
+     */
+    public static final class Measurement {
+
+        // Stores the name of the sort
+        private final String algorithm;
+
+        // Stores the number of elements sorted
+        private final int length;
+
+        // Stores the number of comparisons
+        private final long comparisons;
+
+        // Stores the number of swaps
+        private final long swaps;
+
+        // Stores the deepest level of quick sort partitioning
+        private final int maxDepth;
+
+        // Stores the number of heap sort fallbacks
+        private final int fallbacks;
+
+        // Stores the number of bytes of auxiliary arrays allocated
+        private final long auxBytes;
+
+        // Stores the elapsed time, in nanoseconds
+        private final long nanos;
+
+        // Creates a Measurement
+        private Measurement(String algorithm, int length, long comparisons,
+                long swaps, int maxDepth, int fallbacks, long auxBytes,
+                long nanos) {
+            this.algorithm = algorithm;
+            this.length = length;
+            this.comparisons = comparisons;
+            this.swaps = swaps;
+            this.maxDepth = maxDepth;
+            this.fallbacks = fallbacks;
+            this.auxBytes = auxBytes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return the name of the sort, such as "quickSort".
+         */
+        public String algorithm() {
+            return algorithm;
+        }
+
+        /**
+         * @return the number of elements sorted.
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * @return the number of comparisons.
+         */
+        public long comparisons() {
+            return comparisons;
+        }
+
+        /**
+         * @return the number of swaps. Merge sorts move elements without
+         *         swapping them, so they report none.
+         */
+        public long swaps() {
+            return swaps;
+        }
+
+        /**
+         * @return the deepest level of quick sort partitioning, or 0 if no
+         *         quick sort ran.
+         */
+        public int maxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * @return the number of times quick sort fell back to heap sort
+         *         because it partitioned too deep.
+         */
+        public int fallbacks() {
+            return fallbacks;
+        }
+
+        /**
+         * @return the number of bytes of auxiliary arrays allocated.
+         */
+        public long auxBytes() {
+            return auxBytes;
+        }
+
+        /**
+         * @return the elapsed time, in nanoseconds.
+         */
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * Commits this measurement as a JFR event, if JFR is recording it.
+         */
+        public void commit() {
+            SortEvent event = new SortEvent();
+            if (event.shouldCommit()) {
+                event.algorithm = algorithm;
+                event.length = length;
+                event.comparisons = comparisons;
+                event.swaps = swaps;
+                event.maxDepth = maxDepth;
+                event.fallbacks = fallbacks;
+                event.auxBytes = auxBytes;
+                event.nanos = nanos;
+                event.commit();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return algorithm + "[length=" + length + ", comparisons=" +
+                    comparisons + ", swaps=" + swaps + ", maxDepth=" +
+                    maxDepth + ", fallbacks=" + fallbacks + ", auxBytes=" +
+                    auxBytes + ", nanos=" + nanos + "]";
+        }
+    }
+
+    // JFR event committed for every measured sort
+    @Name("SortingAlgorithms.Sort")
+    @Label("Sort")
+    @Category("Algorithms")
+    static class SortEvent extends Event {
+
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Length")
+        int length;
+
+        @Label("Comparisons")
+        long comparisons;
+
+        @Label("Swaps")
+        long swaps;
+
+        @Label("Max Partition Depth")
+        int maxDepth;
+
+        @Label("Heap Sort Fallbacks")
+        int fallbacks;
+
+        @Label("Auxiliary Allocation")
+        @DataAmount
+        long auxBytes;
+
+        @Label("Sort Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+}
@@ -0,0 +1,771 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * SortedMultiSet is an implementation of a (@see MultiSet), using a B-tree as the internal
+ * data structure, with iteration in ascending order of the elements.
+ *
+ * Each node of the B-tree stores up to 2t - 1 distinct elements in a sorted array, along with
+ * the count of each element, so a search touches few, densely packed nodes. Every node is also
+ * augmented with the total count of the elements in its subtree, which allows order statistics
+ * by occurrence: the rank of an element, the element at a given position (e.g. a percentile)
+ * and the total count of the elements in a range, all in O(log n) time.
+ *
+ * Elements are ordered, and considered equal, according to compareTo().
+ *
+ * @param <T> type of elements in the set
+ */
+@SuppressWarnings("unchecked")
+public class SortedMultiSet<T extends Comparable<? super T>>
+        implements MultiSet<T>, Iterable<T> {
+
+    // Stores the minimum degree of the B-tree, every node other than the root
+    // has between t - 1 and 2t - 1 elements
+    private static final int MIN_DEGREE = 16;
+
+    // Stores the maximum number of elements in a node
+    private static final int MAX_KEYS = 2 * MIN_DEGREE - 1;
+
+    // Stores a node of the B-tree
+    private static class Node<T> {
+
+        // Stores the distinct elements of the node in ascending order
+        private final T[] keys = (T[]) new Comparable<?>[MAX_KEYS];
+
+        // Stores the number of occurrences of each element
+        private final int[] counts = new int[MAX_KEYS];
+
+        // Stores the children of the node, or null if it is a leaf
+        private final Node<T>[] children;
+
+        // Stores the number of elements in the node
+        private int n;
+
+        // Stores the total count of all elements in the subtree
+        private int total;
+
+        // Creates a Node
+        private Node(boolean leaf) {
+            children = leaf ? null : (Node<T>[]) new Node<?>[MAX_KEYS + 1];
+        }
+
+        // Checks if the node is a leaf
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        // Gets the element at index i
+        private T key(int i) {
+            return keys[i];
+        }
+    }
+
+    // Stores the root of the B-tree
+    private Node<T> root;
+
+    // Stores the number of distinct elements in the set
+    private int distinctCount;
+
+    // Stores the number of nodes in the B-tree
+    private int nodeCount;
+
+    /**
+     * Constructs an empty SortedMultiSet.
+     */
+    public SortedMultiSet() {
+        root = new Node<>(true);
+        nodeCount = 1;
+    }
+
+    /**
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n)
+     * and each node visited is searched in O(t) time for a constant t.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated
+     * per split node.
+     */
+    @Override
+    public void add(T element) {
+        add(element, 1);
+    }
+
+    /**
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n)
+     * and each node visited is searched in O(t) time for a constant t.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated
+     * per split node.
+     */
+    @Override
+    public void add(T element, int count) {
+        if (count == 0 || increment(root, element, count)) {
+            return;
+        }
+        if (root.n == MAX_KEYS) {
+            Node<T> newRoot = new Node<>(false);
+            nodeCount++;
+            newRoot.children[0] = root;
+            newRoot.total = root.total;
+            root = newRoot;
+            splitChild(newRoot, 0);
+        }
+        insertNonFull(root, element, count);
+        distinctCount++;
+    }
+
+    /**
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n).
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     */
+    @Override
+    public boolean contains(T element) {
+        return count(element) > 0;
+    }
+
+    /**
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n).
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     */
+    @Override
+    public int count(T element) {
+        Node<T> node = root;
+        while (true) {
+            int i = search(node, element);
+            if (i >= 0) {
+                return node.counts[i];
+            }
+            if (node.isLeaf()) {
+                return 0;
+            }
+            node = node.children[-i - 1];
+        }
+    }
+
+    /**
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n).
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     */
+    @Override
+    public void remove(T element) throws NoSuchElementException {
+        remove(element, 1);
+    }
+
+    /**
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n)
+     * and each node visited is rebalanced in O(t) time for a constant t.
+     *
+     * Memory Complexity: O(log n) because deleting an element recurses down
+     * the height of the B-tree.
+     */
+    @Override
+    public void remove(T element, int count) throws NoSuchElementException {
+        int current = count(element);
+        if (current == 0 || count > current) {
+            throw new NoSuchElementException();
+        }
+        if (count < current) {
+            increment(root, element, -count);
+            return;
+        }
+        delete(root, element);
+        if (root.n == 0 && !root.isLeaf()) {
+            root = root.children[0];
+            nodeCount--;
+        }
+        distinctCount--;
+    }
+
+    /**
+     * Time Complexity: O(1) because returning a value is a primitive operation.
+     *
+     * Memory complexity: O(1) because a constant amount of memory is allocated.
+     */
+    @Override
+    public int size() {
+        return root.total;
+    }
+
+    /**
+     * Time Complexity: O(1) because returning a value is a primitive operation.
+     *
+     * Memory complexity: O(1) because a constant amount of memory is allocated.
+     */
+    @Override
+    public int distinctCount() {
+        return distinctCount;
+    }
+
+    /**
+     * Returns the number of element slots in the nodes of the B-tree. Adding
+     * an element never resizes, but may allocate a new node.
+     *
+     * Time Complexity: O(1) because returning a value is a primitive operation.
+     *
+     * Memory complexity: O(1) because a constant amount of memory is allocated.
+     */
+    @Override
+    public int internalCapacity() {
+        return nodeCount * MAX_KEYS;
+    }
+
+    /**
+     * Time Complexity: O(log n) because select is O(log n).
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     */
+    @Override
+    public T sample(Random random) throws NoSuchElementException {
+        if (size() == 0) {
+            throw new NoSuchElementException();
+        }
+        return select(random.nextInt(size()));
+    }
+
+    /**
+     * Returns the total count of the elements less than the given element,
+     * i.e. the position of its first occurrence in the iteration order.
+     *
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n)
+     * and each node visited is scanned in O(t) time for a constant t.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param element the element to rank, need not be in the set.
+     * @return the count of elements less than element.
+     */
+    public int rank(T element) {
+        int rank = 0;
+        Node<T> node = root;
+        while (true) {
+            int i = 0;
+            while (i < node.n && node.key(i).compareTo(element) < 0) {
+                rank += node.counts[i] +
+                        (node.isLeaf() ? 0 : node.children[i].total);
+                i++;
+            }
+            if (node.isLeaf()) {
+                return rank;
+            }
+            if (i < node.n && node.key(i).compareTo(element) == 0) {
+                return rank + node.children[i].total;
+            }
+            node = node.children[i];
+        }
+    }
+
+    /**
+     * Returns the element at the given position of the iteration order, where
+     * each element occupies as many positions as its count. For example,
+     * select((int) (0.95 * size())) is the 95th percentile element.
+     *
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n)
+     * and each node visited is scanned in O(t) time for a constant t.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param index the position, in [0, size()).
+     * @return the element at the position.
+     * @throws IndexOutOfBoundsException if index is not in [0, size()).
+     */
+    public T select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        Node<T> node = root;
+        while (true) {
+            int i = 0;
+            while (true) {
+                if (!node.isLeaf()) {
+                    if (index < node.children[i].total) {
+                        break;
+                    }
+                    index -= node.children[i].total;
+                }
+                if (index < node.counts[i]) {
+                    return node.key(i);
+                }
+                index -= node.counts[i];
+                i++;
+            }
+            node = node.children[i];
+        }
+    }
+
+    /**
+     * Returns the total count of the elements between from and to, inclusive.
+     *
+     * Time Complexity: O(log n) because rank and count are O(log n).
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param from the lowest element of the range.
+     * @param to the highest element of the range.
+     * @return the count of elements in [from, to], or 0 if from > to.
+     */
+    public int rangeCount(T from, T to) {
+        if (from.compareTo(to) > 0) {
+            return 0;
+        }
+        return rank(to) + count(to) - rank(from);
+    }
+
+    /**
+     * Performs the given action on each distinct element and its count, in
+     * ascending order.
+     *
+     * Time Complexity: O(n) because every node is visited once.
+     *
+     * Memory Complexity: O(log n) because the traversal recurses down the
+     * height of the B-tree.
+     *
+     * @param action the action to perform on each element and its count.
+     */
+    public void forEachEntry(ObjIntConsumer<? super T> action) {
+        forEachEntry(root, action);
+    }
+
+    /**
+     * Iterates over the elements in ascending order, where each element is
+     * returned as many times as its count.
+     *
+     * Time Complexity: O(log n) to create, and O(1) amortised per element.
+     *
+     * Memory Complexity: O(log n) because a stack of the path to the current
+     * element is kept.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            // Stores the path from the root to the current node
+            private final Node<T>[] path =
+                    (Node<T>[]) new Node<?>[height() + 1];
+
+            // Stores the index of the next element of each node on the path
+            private final int[] indexes = new int[height() + 1];
+
+            // Stores the depth of the current node, or -1 if finished
+            private int depth = descend(root, 0);
+
+            // Stores the number of remaining occurrences of the next element
+            private int dupesLeft = depth >= 0 ? path[depth].counts[0] : 0;
+
+            // Pushes the leftmost path of the subtree, returning the depth of
+            // the deepest node, or depth - 1 if the subtree is empty
+            private int descend(Node<T> node, int depth) {
+                while (true) {
+                    path[depth] = node;
+                    indexes[depth] = 0;
+                    if (node.isLeaf()) {
+                        return node.n > 0 ? depth : depth - 1;
+                    }
+                    node = node.children[0];
+                    depth++;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return depth >= 0;
+            }
+
+            @Override
+            public T next() {
+                if (depth < 0) {
+                    throw new NoSuchElementException();
+                }
+                Node<T> node = path[depth];
+                T result = node.key(indexes[depth]);
+                if (--dupesLeft > 0) {
+                    return result;
+                }
+                // Advance to the next element in order
+                int i = ++indexes[depth];
+                if (!node.isLeaf()) {
+                    depth = descend(node.children[i], depth + 1);
+                } else {
+                    while (depth >= 0 && indexes[depth] == path[depth].n) {
+                        depth--;
+                    }
+                }
+                if (depth >= 0) {
+                    dupesLeft = path[depth].counts[indexes[depth]];
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Gets the height of the B-tree, where a single leaf has height 0.
+     *
+     * Time Complexity: O(log n) because the leftmost path is followed.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @return the height of the B-tree.
+     */
+    private int height() {
+        int height = 0;
+        for (Node<T> node = root; !node.isLeaf(); node = node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Binary searches the elements of a node.
+     *
+     * Time Complexity: O(log t) because the search space halves each step.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param node the node to search.
+     * @param element the element to search for.
+     * @return the index of the element if found, else (-(insertion point) - 1)
+     *         where the insertion point is also the index of the child to
+     *         search next.
+     */
+    private int search(Node<T> node, T element) {
+        int low = 0, high = node.n - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = node.key(mid).compareTo(element);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    /**
+     * Adds delta to the count of the element and the totals of the nodes on
+     * its path, if the element is in the subtree.
+     *
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n).
+     *
+     * Memory Complexity: O(log n) because it recurses down the height of the
+     * B-tree.
+     *
+     * @param node the root of the subtree.
+     * @param element the element to increment.
+     * @param delta the amount to add to the count.
+     * @return true if the element was found, else false.
+     */
+    private boolean increment(Node<T> node, T element, int delta) {
+        int i = search(node, element);
+        if (i >= 0) {
+            node.counts[i] += delta;
+        } else if (node.isLeaf() ||
+                !increment(node.children[-i - 1], element, delta)) {
+            return false;
+        }
+        node.total += delta;
+        return true;
+    }
+
+    /**
+     * Inserts a new element into the subtree of a node that is not full,
+     * splitting full nodes on the way down.
+     *
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n)
+     * and splitting a node is O(t) for a constant t.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated
+     * per split node.
+     *
+     * @param node the root of the subtree, not full.
+     * @param element the element to insert, not in the set.
+     * @param count the count of the element.
+     */
+    private void insertNonFull(Node<T> node, T element, int count) {
+        while (true) {
+            node.total += count;
+            int i = -search(node, element) - 1;
+            if (node.isLeaf()) {
+                System.arraycopy(node.keys, i, node.keys, i + 1, node.n - i);
+                System.arraycopy(node.counts, i, node.counts, i + 1,
+                        node.n - i);
+                node.keys[i] = element;
+                node.counts[i] = count;
+                node.n++;
+                return;
+            }
+            if (node.children[i].n == MAX_KEYS) {
+                splitChild(node, i);
+                if (node.key(i).compareTo(element) < 0) {
+                    i++;
+                }
+            }
+            node = node.children[i];
+        }
+    }
+
+    /**
+     * Splits the full child at index i of the parent into two nodes, moving
+     * its median element up into the parent.
+     *
+     * Time Complexity: O(t) because the upper half of the child is moved.
+     *
+     * Memory Complexity: O(t) because a new node is allocated.
+     *
+     * @param parent the parent of the full child, not full.
+     * @param i the index of the full child.
+     */
+    private void splitChild(Node<T> parent, int i) {
+        Node<T> left = parent.children[i];
+        Node<T> right = new Node<>(left.isLeaf());
+        nodeCount++;
+        int t = MIN_DEGREE;
+        T median = left.keys[t - 1];
+        int medianCount = left.counts[t - 1];
+        right.n = t - 1;
+        System.arraycopy(left.keys, t, right.keys, 0, t - 1);
+        System.arraycopy(left.counts, t, right.counts, 0, t - 1);
+        if (!left.isLeaf()) {
+            System.arraycopy(left.children, t, right.children, 0, t);
+            for (int j = t; j <= MAX_KEYS; j++) {
+                left.children[j] = null;
+            }
+        }
+        left.n = t - 1;
+        for (int j = t - 1; j < MAX_KEYS; j++) {
+            left.keys[j] = null;
+        }
+        right.total = computeTotal(right);
+        left.total -= right.total + medianCount;
+
+        // Make room for the median in the parent
+        System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.n - i);
+        System.arraycopy(parent.counts, i, parent.counts, i + 1, parent.n - i);
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2,
+                parent.n - i);
+        parent.keys[i] = median;
+        parent.counts[i] = medianCount;
+        parent.children[i + 1] = right;
+        parent.n++;
+    }
+
+    /**
+     * Deletes the element from the subtree of a node with at least t elements
+     * (or the root), merging and borrowing on the way down so that every node
+     * deleted from keeps at least t - 1 elements.
+     *
+     * Time Complexity: O(log n) because the height of the B-tree is O(log n)
+     * and rebalancing a node is O(t) for a constant t.
+     *
+     * Memory Complexity: O(log n) because it recurses down the height of the
+     * B-tree.
+     *
+     * @param node the root of the subtree.
+     * @param element the element to delete, in the subtree.
+     */
+    private void delete(Node<T> node, T element) {
+        int i = search(node, element);
+        if (i >= 0 && node.isLeaf()) {
+            node.total -= node.counts[i];
+            removeFromNode(node, i);
+            return;
+        }
+        if (i >= 0) {
+            Node<T> left = node.children[i], right = node.children[i + 1];
+            if (left.n >= MIN_DEGREE) {
+                // Replace the element with its predecessor
+                Node<T> pred = left;
+                while (!pred.isLeaf()) {
+                    pred = pred.children[pred.n];
+                }
+                T key = pred.key(pred.n - 1);
+                int count = pred.counts[pred.n - 1];
+                delete(left, key);
+                node.keys[i] = key;
+                node.counts[i] = count;
+            } else if (right.n >= MIN_DEGREE) {
+                // Replace the element with its successor
+                Node<T> succ = right;
+                while (!succ.isLeaf()) {
+                    succ = succ.children[0];
+                }
+                T key = succ.key(0);
+                int count = succ.counts[0];
+                delete(right, key);
+                node.keys[i] = key;
+                node.counts[i] = count;
+            } else {
+                merge(node, i);
+                delete(left, element);
+            }
+        } else {
+            i = -i - 1;
+            if (node.children[i].n < MIN_DEGREE) {
+                i = fill(node, i);
+            }
+            delete(node.children[i], element);
+        }
+        node.total = computeTotal(node);
+    }
+
+    /**
+     * Ensures the child at index i has at least t elements, by borrowing an
+     * element from a sibling or merging with a sibling.
+     *
+     * Time Complexity: O(t) because elements of the child are shifted.
+     *
+     * Memory Complexity: O(1) because no nodes are allocated.
+     *
+     * @param node the parent of the child.
+     * @param i the index of the child.
+     * @return the index of the child containing the original child's elements.
+     */
+    private int fill(Node<T> node, int i) {
+        Node<T> child = node.children[i];
+        if (i > 0 && node.children[i - 1].n >= MIN_DEGREE) {
+            // Borrow the separator from the parent and the last element of
+            // the left sibling
+            Node<T> sibling = node.children[i - 1];
+            System.arraycopy(child.keys, 0, child.keys, 1, child.n);
+            System.arraycopy(child.counts, 0, child.counts, 1, child.n);
+            child.keys[0] = node.keys[i - 1];
+            child.counts[0] = node.counts[i - 1];
+            if (!child.isLeaf()) {
+                System.arraycopy(child.children, 0, child.children, 1,
+                        child.n + 1);
+                child.children[0] = sibling.children[sibling.n];
+                sibling.children[sibling.n] = null;
+            }
+            child.n++;
+            node.keys[i - 1] = sibling.keys[sibling.n - 1];
+            node.counts[i - 1] = sibling.counts[sibling.n - 1];
+            sibling.keys[--sibling.n] = null;
+            sibling.total = computeTotal(sibling);
+            child.total = computeTotal(child);
+        } else if (i < node.n && node.children[i + 1].n >= MIN_DEGREE) {
+            // Borrow the separator from the parent and the first element of
+            // the right sibling
+            Node<T> sibling = node.children[i + 1];
+            child.keys[child.n] = node.keys[i];
+            child.counts[child.n] = node.counts[i];
+            if (!child.isLeaf()) {
+                child.children[child.n + 1] = sibling.children[0];
+                System.arraycopy(sibling.children, 1, sibling.children, 0,
+                        sibling.n);
+                sibling.children[sibling.n] = null;
+            }
+            child.n++;
+            node.keys[i] = sibling.keys[0];
+            node.counts[i] = sibling.counts[0];
+            removeFromNode(sibling, 0);
+            sibling.total = computeTotal(sibling);
+            child.total = computeTotal(child);
+        } else if (i < node.n) {
+            merge(node, i);
+        } else {
+            merge(node, --i);
+        }
+        return i;
+    }
+
+    /**
+     * Merges the child at index i + 1 and the separating element into the
+     * child at index i.
+     *
+     * Time Complexity: O(t) because the elements of the right child are moved.
+     *
+     * Memory Complexity: O(1) because no nodes are allocated.
+     *
+     * @param node the parent of the children.
+     * @param i the index of the left child.
+     */
+    private void merge(Node<T> node, int i) {
+        Node<T> left = node.children[i], right = node.children[i + 1];
+        left.keys[left.n] = node.keys[i];
+        left.counts[left.n] = node.counts[i];
+        System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+        System.arraycopy(right.counts, 0, left.counts, left.n + 1, right.n);
+        if (!left.isLeaf()) {
+            System.arraycopy(right.children, 0, left.children, left.n + 1,
+                    right.n + 1);
+        }
+        left.n += right.n + 1;
+        left.total += node.counts[i] + right.total;
+
+        System.arraycopy(node.children, i + 2, node.children, i + 1,
+                node.n - i - 1);
+        node.children[node.n] = null;
+        removeFromNode(node, i);
+        nodeCount--;
+    }
+
+    /**
+     * Removes the element at index i of a node, without changing its
+     * children.
+     *
+     * Time Complexity: O(t) because the following elements are shifted.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param node the node.
+     * @param i the index of the element.
+     */
+    private void removeFromNode(Node<T> node, int i) {
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.n - i - 1);
+        System.arraycopy(node.counts, i + 1, node.counts, i, node.n - i - 1);
+        node.keys[--node.n] = null;
+    }
+
+    /**
+     * Computes the total count of the elements in the subtree of a node from
+     * its counts and the totals of its children.
+     *
+     * Time Complexity: O(t) because each element and child is visited once.
+     *
+     * Memory Complexity: O(1) because a constant amount of memory is allocated.
+     *
+     * @param node the root of the subtree.
+     * @return the total count of the subtree.
+     */
+    private int computeTotal(Node<T> node) {
+        int total = 0;
+        for (int i = 0; i < node.n; i++) {
+            total += node.counts[i];
+        }
+        if (!node.isLeaf()) {
+            for (int i = 0; i <= node.n; i++) {
+                total += node.children[i].total;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Performs the action on each element of the subtree in ascending order.
+     *
+     * Time Complexity: O(n) where n is the size of the subtree.
+     *
+     * Memory Complexity: O(log n) because it recurses down the height of the
+     * subtree.
+     *
+     * @param node the root of the subtree.
+     * @param action the action to perform on each element and its count.
+     */
+    private void forEachEntry(Node<T> node, ObjIntConsumer<? super T> action) {
+        for (int i = 0; i < node.n; i++) {
+            if (!node.isLeaf()) {
+                forEachEntry(node.children[i], action);
+            }
+            action.accept(node.key(i), node.counts[i]);
+        }
+        if (!node.isLeaf()) {
+            forEachEntry(node.children[node.n], action);
+        }
+    }
+}
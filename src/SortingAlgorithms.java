@@ -1,4 +1,20 @@
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+@SuppressWarnings("unchecked")
 public class SortingAlgorithms {
+
+    // Ranges of at most this many elements are sorted with insertion sort by
+    // quick sort
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    // Ranges of more than this many elements use the median of three medians
+    // of three (ninther) as the quick sort pivot
+    private static final int NINTHER_THRESHOLD = 128;
+
     /**
      * Sorts the given array using the selection sort algorithm.
      * This should modify the array in-place.
@@ -10,29 +26,51 @@ public class SortingAlgorithms {
      */
     static <T extends Comparable> void selectionSort(T[] input,
             boolean reversed) {
-        if (reversed) {
-            for (int i = 0; i < input.length; i++) {
-                int max = i;
-                // Search for the max element in the unsorted part of the array
-                for (int j = i + 1; j < input.length; j++) {
-                    if (input[j].compareTo(input[max]) > 0) {
-                        max = j;
-                    }
-                }
-                swap(input, i, max);
-            }
+        selectionSort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array using the selection sort algorithm, in the order
+     * of the given comparator.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void selectionSort(T[] input, Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("selectionSort", input, comparator,
+                    (a, c) -> selectionSort(a, 0, a.length, c));
+            return;
         }
-        else {
-            for (int i = 0; i < input.length; i++) {
-                int min = i;
-                // Search for the min element in the unsorted part of the array
-                for (int j = i + 1; j < input.length; j++) {
-                    if (input[j].compareTo(input[min]) < 0) {
-                        min = j;
-                    }
+        selectionSort(input, 0, input.length, comparator);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given array using the selection sort
+     * algorithm, in the order of the given comparator.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param comparator The order to sort the range in.
+     * @requires input != null && comparator != null &&
+     *           0 <= from <= to <= input.length
+     */
+    static <T> void selectionSort(T[] input, int from, int to,
+            Comparator<? super T> comparator) {
+        boolean measured = SortMetrics.enabled;
+        for (int i = from; i < to; i++) {
+            int min = i;
+            // Search for the min element in the unsorted part of the array
+            for (int j = i + 1; j < to; j++) {
+                if (comparator.compare(input[j], input[min]) < 0) {
+                    min = j;
                 }
-                swap(input, i, min);
             }
+            swap(input, i, min, measured);
         }
     }
 
@@ -47,13 +85,47 @@ public class SortingAlgorithms {
      */
     static <T extends Comparable> void insertionSort(T[] input,
             boolean reversed) {
-        for (int i = 1; i < input.length; i++) {
+        insertionSort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array using the insertion sort algorithm, in the order
+     * of the given comparator.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void insertionSort(T[] input, Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("insertionSort", input, comparator,
+                    (a, c) -> insertionSort(a, 0, a.length, c));
+            return;
+        }
+        insertionSort(input, 0, input.length, comparator);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given array using the insertion sort
+     * algorithm, in the order of the given comparator.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param comparator The order to sort the range in.
+     * @requires input != null && comparator != null &&
+     *           0 <= from <= to <= input.length
+     */
+    static <T> void insertionSort(T[] input, int from, int to,
+            Comparator<? super T> comparator) {
+        for (int i = from + 1; i < to; i++) {
             T value = input[i];
             int j = i;
-            // Swap each element until it is in the correct position in the
-            // sorted part of the array
-            while (j > 0 && ((!reversed && input[j - 1].compareTo(value) > 0) ||
-                    (reversed && input[j - 1].compareTo(value) < 0))) {
+            // Shift each element until value is in the correct position in
+            // the sorted part of the array
+            while (j > from && comparator.compare(input[j - 1], value) > 0) {
                 input[j] = input[j - 1];
                 j--;
             }
@@ -72,151 +144,2145 @@ public class SortingAlgorithms {
      */
     static <T extends Comparable> void mergeSort(T[] input,
             boolean reversed) {
-        // Create an auxiliary array to store elements during the sort
-        T[] aux = (T[]) new Comparable[input.length];
-        recursiveMergeSort(input, aux, 0, input.length - 1, reversed);
+        mergeSort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array using the merge sort algorithm, in the order of
+     * the given comparator. The sort is stable: equal elements keep their
+     * relative order.
+     * This should modify the array in-place.
+     *
+     * Runs of up to 32 elements are sorted with insertion sort, the merges
+     * alternate between the input and one auxiliary array rather than
+     * copying back, and runs that are already in order are not merged
+     * (@see MergeSort).
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void mergeSort(T[] input, Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("mergeSort", input, comparator,
+                    (a, c) -> MergeSort.sort(a, c, false));
+            return;
+        }
+        MergeSort.sort(input, comparator, false);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given array using the merge sort
+     * algorithm, in the order of the given comparator. The sort is stable.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param comparator The order to sort the range in.
+     * @requires input != null && comparator != null &&
+     *           0 <= from <= to <= input.length
+     */
+    static <T> void mergeSort(T[] input, int from, int to,
+            Comparator<? super T> comparator) {
+        MergeSort.sort(input, from, to, comparator, false);
     }
 
     /**
-     * Recursively calls itself, to sort the array using merge sort.
+     * Sorts the given array using a stable merge sort that merges in place
+     * with a buffer of about sqrt(n) elements, instead of the auxiliary copy
+     * of the whole array that mergeSort allocates.
+     * This should modify the array in-place.
+     *
      * @param input An array of comparable objects.
-     * @param aux The auxiliary array to elements during the sort
-     * @param left The left index of the partition
-     * @param right The right index of the partition
      * @param reversed If false, the array should be sorted ascending.
      *                 Otherwise, it should be sorted descending.
+     * @requires input != null
      */
-    private static <T extends Comparable<T>> void recursiveMergeSort(T[] input,
-            T[] aux, int left, int right, boolean reversed) {
-        if (left < right) {
-            int mid = (left + right) / 2;
-            recursiveMergeSort(input, aux, left, mid, reversed);
-            recursiveMergeSort(input, aux, mid + 1, right, reversed);
-            merge(input, aux, left, mid, right, reversed);
+    static <T extends Comparable> void inPlaceMergeSort(T[] input,
+            boolean reversed) {
+        inPlaceMergeSort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array using a stable in-place merge sort, in the order
+     * of the given comparator, with a buffer of about sqrt(n) elements.
+     * This should modify the array in-place.
+     *
+     * Merges whose shorter run fits in the buffer are done through it, and
+     * longer merges are split into smaller ones with rotations
+     * (@see InPlaceMergeSort). This is slower than mergeSort, in
+     * O(n log^2 n) time, but bounds the extra memory to O(sqrt n).
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void inPlaceMergeSort(T[] input,
+            Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("inPlaceMergeSort", input, comparator,
+                    InPlaceMergeSort::sort);
+            return;
         }
+        InPlaceMergeSort.sort(input, comparator);
     }
 
     /**
-     * Merges sorted partitions.
-     * @param input An array of comparable objects with sorted partitions.
-     * @param aux The auxiliary array to elements during the sort
-     * @param left The left index of the partition.
-     * @param mid The middle index of the partition.
-     * @param right The right index of the partition.
+     * Sorts the given array using a stable in-place merge sort, in the order
+     * of the given comparator, with the given buffer as its working space.
+     * This should modify the array in-place.
+     *
+     * The buffer can have any length: with at least input.length / 2
+     * elements the sort takes O(n log n) time, and with none it uses O(1)
+     * extra memory. It is cleared when the sort returns, so the same buffer
+     * can be reused across calls to avoid allocating one per sort.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @param buffer The working space.
+     * @requires input != null && comparator != null && buffer != null
+     */
+    static <T> void inPlaceMergeSort(T[] input,
+            Comparator<? super T> comparator, Object[] buffer) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("inPlaceMergeSort", input, comparator,
+                    (a, c) -> InPlaceMergeSort.sort(a, c, buffer));
+            return;
+        }
+        InPlaceMergeSort.sort(input, comparator, buffer);
+    }
+
+    /**
+     * Sorts the given array using a parallel merge sort on the common
+     * ForkJoinPool. The sort is stable.
+     * This should modify the array in-place.
+     *
+     * @param input An array of comparable objects.
      * @param reversed If false, the array should be sorted ascending.
      *                 Otherwise, it should be sorted descending.
+     * @requires input != null
      */
-    private static <T extends Comparable<T>> void merge(T[] input,
-            T[] aux, int left, int mid, int right, boolean reversed) {
-        // Copy the partitions into the auxiliary array.
-        for (int k = left; k <= right; k++) {
-            aux[k] = input[k];
-        }
+    static <T extends Comparable> void parallelMergeSort(T[] input,
+            boolean reversed) {
+        parallelMergeSort(input, order(reversed));
+    }
 
-        int i = left, j = mid + 1;
-        // Copy the elements in the aux array to the input in sorted order.
-        for (int k = left; k <= right; k++) {
-            // If all elements in the left partition are already copied,
-            // copy over the elements in the right partition.
-            if (i > mid) {
-                input[k] = aux[j++];
-            // Copy over the elements in the left partition
-            } else if (j > right) {
-                input[k] = aux[i++];
-            } else {
-                // Copy over the next element in sorting order
-                if (reversed) {
-                    if (aux[i].compareTo(aux[j]) > 0) {
-                        input[k] = aux[i++];
-                    } else {
-                        input[k] = aux[j++];
-                    }
-                } else {
-                    if (aux[i].compareTo(aux[j]) < 0) {
-                        input[k] = aux[i++];
-                    } else {
-                        input[k] = aux[j++];
-                    }
-                }
-            }
+    /**
+     * Sorts the given array using a parallel merge sort on the common
+     * ForkJoinPool, in the order of the given comparator. Both the halves and
+     * large merges are split into parallel tasks. The sort is stable.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void parallelMergeSort(T[] input,
+            Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("parallelMergeSort", input, comparator,
+                    (a, c) -> MergeSort.sort(a, c, true));
+            return;
         }
+        MergeSort.sort(input, comparator, true);
     }
 
     /**
-     * Sorts the given array using the quick sort algorithm.
+     * Sorts the range [from, to) of the given array using a parallel merge
+     * sort on the common ForkJoinPool, in the order of the given comparator.
+     * The sort is stable.
      * This should modify the array in-place.
      *
-     * You should use the value at the middle of the input array(i.e. floor(n/2))
-     * as the pivot at each step.
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param comparator The order to sort the range in.
+     * @requires input != null && comparator != null &&
+     *           0 <= from <= to <= input.length
+     */
+    static <T> void parallelMergeSort(T[] input, int from, int to,
+            Comparator<? super T> comparator) {
+        MergeSort.sort(input, from, to, comparator, true);
+    }
+
+    /**
+     * Sorts the given array using a parallel sample sort on the common
+     * ForkJoinPool.
+     * This should modify the array in-place.
      *
      * @param input An array of comparable objects.
      * @param reversed If false, the array should be sorted ascending.
      *                 Otherwise, it should be sorted descending.
      * @requires input != null
      */
-    static <T extends Comparable> void quickSort(T[] input, boolean reversed) {
-        inPlaceQuickSort(input, 0, input.length - 1, reversed);
+    static <T extends Comparable> void parallelSampleSort(T[] input,
+            boolean reversed) {
+        parallelSampleSort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array using a parallel sample sort on the common
+     * ForkJoinPool, in the order of the given comparator.
+     * This should modify the array in-place.
+     *
+     * Splitters are chosen from an oversampled random sample, the elements
+     * are classified into buckets in parallel by descending an implicit
+     * binary search tree of the splitters, and each bucket is then sorted
+     * with quick sort as its own task (@see SampleSort). Each element is
+     * moved once before its bucket is sorted, rather than once per level of
+     * merging.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void parallelSampleSort(T[] input,
+            Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("parallelSampleSort", input, comparator,
+                    SampleSort::sort);
+            return;
+        }
+        SampleSort.sort(input, comparator);
     }
 
     /**
-     * Sorts the given array with quick sort.
+     * Sorts the given array using an adaptive, stable natural merge sort in
+     * the style of TimSort.
+     * This should modify the array in-place.
+     *
      * @param input An array of comparable objects.
-     * @param left The left index of the partition.
-     * @param right The right index of the partition.
      * @param reversed If false, the array should be sorted ascending.
      *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static <T extends Comparable> void timSort(T[] input, boolean reversed) {
+        timSort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array using an adaptive, stable natural merge sort in
+     * the style of TimSort, in the order of the given comparator.
+     * This should modify the array in-place.
+     *
+     * Ascending and strictly descending natural runs are found and kept,
+     * short runs are extended with binary insertion sort, and runs are merged
+     * with galloping (@see TimSort). Sorted, reverse sorted and nearly
+     * sorted arrays take close to linear time.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
      */
-    private static <T extends Comparable<T>> void inPlaceQuickSort(T[] input,
-            int left, int right, boolean reversed) {
-        if (left >= right) {
+    static <T> void timSort(T[] input, Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("timSort", input, comparator,
+                    (a, c) -> TimSort.sort(a, 0, a.length, c));
             return;
         }
-        // Swap the median element with the rightmost element
-        int pivotIndex = (right + left) / 2;
-        T pivot = input[pivotIndex];
-        swap(input, pivotIndex, right);
+        TimSort.sort(input, 0, input.length, comparator);
+    }
 
-        int i = left, j = right - 1;
-        while (i <= j) {
-            if (reversed) {
-                // Scan until reaching value <= pivot (or left marker)
-                while (i <= j && input[i].compareTo(pivot) > 0) {
-                    i++;
-                }
-                // Scan until reaching value >= pivot (or right marker)
-                while (i <= j && input[j].compareTo(pivot) < 0) {
-                    j--;
-                }
-            } else {
-                // Scan until reaching value >= pivot (or right marker)
-                while (i <= j && input[i].compareTo(pivot) < 0) {
+    /**
+     * Sorts the range [from, to) of the given array using an adaptive, stable
+     * natural merge sort in the style of TimSort, in the order of the given
+     * comparator.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param comparator The order to sort the range in.
+     * @requires input != null && comparator != null &&
+     *           0 <= from <= to <= input.length
+     */
+    static <T> void timSort(T[] input, int from, int to,
+            Comparator<? super T> comparator) {
+        TimSort.sort(input, from, to, comparator);
+    }
+
+    /**
+     * Sorts the given array using the quick sort algorithm.
+     * This should modify the array in-place.
+     *
+     * The quick sort is introspective: the pivot is the median of three
+     * elements (or of three medians of three, for large ranges), elements
+     * equal to the pivot are partitioned into the middle and not sorted
+     * further, and only the smaller partition is recursed into. If the
+     * recursion gets deeper than 2 log n, the range is sorted with
+     * QuaternaryHeapsort instead, and small ranges are sorted with insertion
+     * sort, so the worst case time is O(n log n) and the stack depth is
+     * O(log n).
+     *
+     * @param input An array of comparable objects.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static <T extends Comparable> void quickSort(T[] input, boolean reversed) {
+        quickSort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array using the quick sort algorithm, in the order of
+     * the given comparator.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void quickSort(T[] input, Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            SortMetrics.measure("quickSort", input, comparator,
+                    (a, c) -> quickSort(a, 0, a.length, c));
+            return;
+        }
+        quickSort(input, 0, input.length, comparator);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given array using the quick sort
+     * algorithm, in the order of the given comparator.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param comparator The order to sort the range in.
+     * @requires input != null && comparator != null &&
+     *           0 <= from <= to <= input.length
+     */
+    static <T> void quickSort(T[] input, int from, int to,
+            Comparator<? super T> comparator) {
+        int depthLimit = depthLimit(to - from);
+        boolean measured = SortMetrics.enabled;
+        if (measured) {
+            SortMetrics.quickSort(depthLimit);
+        }
+        inPlaceQuickSort(input, from, to - 1, depthLimit, measured,
+                comparator);
+    }
+
+    /**
+     * Rearranges the given array so that the element at index nth is the one
+     * that would be there if the array were sorted, every element before it
+     * is less than or equal to it, and every element after it is greater
+     * than or equal to it, and returns that element. With nth = n / 2 this is
+     * the median, and with nth = p * (n - 1) the p-th quantile.
+     * This should modify the array in-place.
+     *
+     * @param input An array of comparable objects.
+     * @param nth The index of the element to select.
+     * @param reversed If false, select in ascending order. Otherwise, in
+     *                 descending order.
+     * @return The selected element.
+     * @requires input != null && 0 <= nth < input.length
+     */
+    static <T extends Comparable> T select(T[] input, int nth,
+            boolean reversed) {
+        return select(input, nth, SortingAlgorithms.<T>order(reversed));
+    }
+
+    /**
+     * Rearranges the given array around its nth element in the order of the
+     * given comparator, as for select(T[], int, boolean), and returns it.
+     * This should modify the array in-place.
+     *
+     * The selection is introspective, like quickSort: it partitions around
+     * the same pivots but only continues into the partition containing nth,
+     * so it takes O(n) expected time. If it gets deeper than 2 log n, the
+     * remaining range is sorted with QuaternaryHeapsort instead, so the worst
+     * case time is O(n log n).
+     *
+     * @param input An array of objects.
+     * @param nth The index of the element to select.
+     * @param comparator The order to select in.
+     * @return The selected element.
+     * @requires input != null && comparator != null &&
+     *           0 <= nth < input.length
+     */
+    static <T> T select(T[] input, int nth, Comparator<? super T> comparator) {
+        int left = 0, right = input.length - 1;
+        int depthLimit = depthLimit(input.length);
+        boolean measured = SortMetrics.enabled;
+        while (right - left >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                QuaternaryHeapsort.quaternaryHeapsort(input, left, right + 1,
+                        comparator);
+                return input[nth];
+            }
+            swap(input, left, pivot(input, left, right, comparator),
+                    measured);
+            T pivot = input[left];
+
+            // Partition into < pivot [left, lt), == pivot [lt, i) and
+            // > pivot (gt, right]
+            int lt = left, i = left + 1, gt = right;
+            while (i <= gt) {
+                int cmp = comparator.compare(input[i], pivot);
+                if (cmp < 0) {
+                    swap(input, lt++, i++, measured);
+                } else if (cmp > 0) {
+                    swap(input, i, gt--, measured);
+                } else {
                     i++;
                 }
-                // Scan until reaching value <= pivot (or left marker)
-                while (i <= j && input[j].compareTo(pivot) > 0) {
-                    j--;
-                }
             }
-            if (i <= j) {
-                swap(input, i++, j--);
+
+            // Continue into the partition containing nth
+            if (nth < lt) {
+                right = lt - 1;
+            } else if (nth > gt) {
+                left = gt + 1;
+            } else {
+                return input[nth];
             }
         }
-        // Swap pivot into its correct position
-        swap(input, i, right);
-        inPlaceQuickSort(input, left, i - 1, reversed);
-        inPlaceQuickSort(input, i + 1, right, reversed);
+        insertionSort(input, left, right + 1, comparator);
+        return input[nth];
     }
 
     /**
-     * Swaps the elements at the given indexes.
-     * @param input An array that has elements to be swapped.
-     * @param i The index of one of the elements to be swapped.
-     * @param j The index of one of the elements to be swapped.
+     * Rearranges the given array so that its first k elements are the k
+     * smallest, in sorted order. The order of the other elements is
+     * unspecified. Sorting in reverse gives the k largest.
+     * This should modify the array in-place.
+     *
+     * @param input An array of comparable objects.
+     * @param k The number of elements to sort.
+     * @param reversed If false, sort the k smallest ascending. Otherwise,
+     *                 sort the k largest descending.
+     * @requires input != null && 0 <= k <= input.length
      */
-    private static <T extends Comparable<T>> void swap(T[] input, int i,
-            int j) {
-        T temp = input[i];
-        input[i] = input[j];
-        input[j] = temp;
+    static <T extends Comparable> void partialSort(T[] input, int k,
+            boolean reversed) {
+        partialSort(input, k, SortingAlgorithms.<T>order(reversed));
+    }
+
+    /**
+     * Rearranges the given array so that its first k elements are the
+     * smallest in the order of the given comparator, in sorted order.
+     * This should modify the array in-place.
+     *
+     * The k-th element is selected first, which moves the k smallest to the
+     * front in O(n) expected time, and only they are then sorted, so this
+     * takes O(n + k log k) expected time.
+     *
+     * @param input An array of objects.
+     * @param k The number of elements to sort.
+     * @param comparator The order to sort in.
+     * @requires input != null && comparator != null &&
+     *           0 <= k <= input.length
+     */
+    static <T> void partialSort(T[] input, int k,
+            Comparator<? super T> comparator) {
+        if (k == 0) {
+            return;
+        }
+        if (k < input.length) {
+            select(input, k - 1, comparator);
+        }
+        quickSort(input, 0, k, comparator);
+    }
+
+    /**
+     * Sorts the given array of strings using a multikey quick sort, which
+     * partitions on one character at a time (@see RadixSort), in the order of
+     * String.compareTo().
+     * This should modify the array in-place.
+     *
+     * @param input An array of strings.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && no element of input is null
+     */
+    static void radixSort(String[] input, boolean reversed) {
+        RadixSort.sort(input);
+        if (reversed) {
+            reverse(input, 0, input.length);
+        }
+    }
+
+    /**
+     * Sorts the given array by an integer key using a stable LSD radix sort
+     * (@see RadixSort), in O(n w) time where w is the number of bytes of the
+     * key. int keys can be extracted as they are.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by, extracted once per element.
+     * @param reversed If false, the array should be sorted by ascending key.
+     *                 Otherwise, it should be sorted by descending key.
+     * @requires input != null && key != null
+     */
+    static <T> void radixSort(T[] input, ToLongFunction<? super T> key,
+            boolean reversed) {
+        RadixSort.sort(input, key, reversed);
+    }
+
+    /**
+     * Sorts the given array by a comparable key, extracting the key of each
+     * element exactly once (@see KeySort). The sort is stable.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param reversed If false, the array should be sorted by ascending key.
+     *                 Otherwise, it should be sorted by descending key.
+     * @requires input != null && key != null
+     */
+    static <T, K extends Comparable> void sortByKey(T[] input,
+            Function<? super T, ? extends K> key, boolean reversed) {
+        sortByKey(input, key, SortingAlgorithms.<K>order(reversed));
+    }
+
+    /**
+     * Sorts the given array by a key in the order of the given comparator,
+     * extracting the key of each element exactly once. The sort is stable.
+     * This should modify the array in-place.
+     *
+     * The keys are extracted into an array alongside an index permutation,
+     * the two are merge sorted together, and the permutation is then applied
+     * to the array, so an expensive key is computed n times rather than
+     * O(n log n) times.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param comparator The order of the keys.
+     * @requires input != null && key != null && comparator != null
+     */
+    static <T, K> void sortByKey(T[] input,
+            Function<? super T, ? extends K> key,
+            Comparator<? super K> comparator) {
+        KeySort.sort(input, key, comparator);
+    }
+
+    /**
+     * Sorts the given array by a long key, extracting the key of each element
+     * exactly once into a long[] that is sorted with primitive comparisons.
+     * int keys can be extracted as they are. The sort is stable.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param reversed If false, the array should be sorted by ascending key.
+     *                 Otherwise, it should be sorted by descending key.
+     * @requires input != null && key != null
+     */
+    static <T> void sortByLongKey(T[] input, ToLongFunction<? super T> key,
+            boolean reversed) {
+        KeySort.sortByLong(input, key, reversed);
+    }
+
+    /**
+     * Sorts the given array by a double key, extracting the key of each
+     * element exactly once into a long[] that is sorted with primitive
+     * comparisons. Keys are ordered as by Double.compare(). The sort is
+     * stable.
+     * This should modify the array in-place.
+     *
+     * @param input An array of objects.
+     * @param key The key to sort by.
+     * @param reversed If false, the array should be sorted by ascending key.
+     *                 Otherwise, it should be sorted by descending key.
+     * @requires input != null && key != null
+     */
+    static <T> void sortByDoubleKey(T[] input,
+            ToDoubleFunction<? super T> key, boolean reversed) {
+        KeySort.sortByDouble(input, key, reversed);
+    }
+
+    /**
+     * Sorts the given array with the algorithm that suits it best, chosen
+     * from its size, how presorted it is, how many duplicates a sample of it
+     * has and the type of its elements (@see SortDispatcher). The sort is not
+     * stable.
+     * This should modify the array in-place.
+     *
+     * @param input An array of comparable objects.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static <T extends Comparable> void sort(T[] input, boolean reversed) {
+        sort(input, order(reversed));
+    }
+
+    /**
+     * Sorts the given array with the algorithm that suits it best, in the
+     * order of the given comparator (@see SortDispatcher). The sort is not
+     * stable.
+     * This should modify the array in-place.
+     *
+     * Strings, Integers and Longs are only radix sorted in the order of
+     * Comparator.naturalOrder() or Comparator.reverseOrder().
+     *
+     * @param input An array of objects.
+     * @param comparator The order to sort the array in.
+     * @requires input != null && comparator != null
+     */
+    static <T> void sort(T[] input, Comparator<? super T> comparator) {
+        if (SortMetrics.enabled) {
+            // Chooses by the caller's comparator, not the counting one
+            SortMetrics.measure("sort", input, comparator,
+                    (array, counting) ->
+                            SortDispatcher.sort(array, comparator, counting));
+            return;
+        }
+        SortDispatcher.sort(input, comparator);
+    }
+
+    /**
+     * Gets the number of times sort() has chosen each algorithm since the
+     * counts were last reset, across all threads.
+     *
+     * @return The count of each algorithm.
+     */
+    static Map<SortDispatcher.Algorithm, Long> sortDecisions() {
+        return SortDispatcher.decisions();
+    }
+
+    /**
+     * Resets the number of times sort() has chosen each algorithm to zero.
+     */
+    static void resetSortDecisions() {
+        SortDispatcher.resetDecisions();
+    }
+
+    /**
+     * Sorts the given range with introspective quick sort.
+     * @param input An array of objects.
+     * @param left The left index of the partition.
+     * @param right The right index of the partition.
+     * @param depthLimit The remaining depth before falling back to heap sort.
+     * @param measured Whether to count the sort in SortMetrics.
+     * @param comparator The order to sort the array in.
+     */
+    private static <T> void inPlaceQuickSort(T[] input, int left, int right,
+            int depthLimit, boolean measured,
+            Comparator<? super T> comparator) {
+        while (right - left >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                if (measured) {
+                    SortMetrics.fellBack();
+                }
+                QuaternaryHeapsort.quaternaryHeapsort(input, left, right + 1,
+                        comparator);
+                return;
+            }
+            if (measured) {
+                SortMetrics.partitioned(depthLimit);
+            }
+            // Move the pivot to the left of the range
+            swap(input, left, pivot(input, left, right, comparator),
+                    measured);
+            T pivot = input[left];
+
+            // Partition into < pivot [left, lt), == pivot [lt, i) and
+            // > pivot (gt, right]
+            int lt = left, i = left + 1, gt = right;
+            while (i <= gt) {
+                int cmp = comparator.compare(input[i], pivot);
+                if (cmp < 0) {
+                    swap(input, lt++, i++, measured);
+                } else if (cmp > 0) {
+                    swap(input, i, gt--, measured);
+                } else {
+                    i++;
+                }
+            }
+
+            // Recurse into the smaller partition and loop on the larger
+            if (lt - left < right - gt) {
+                inPlaceQuickSort(input, left, lt - 1, depthLimit, measured,
+                        comparator);
+                left = gt + 1;
+            } else {
+                inPlaceQuickSort(input, gt + 1, right, depthLimit, measured,
+                        comparator);
+                right = lt - 1;
+            }
+        }
+        insertionSort(input, left, right + 1, comparator);
+    }
+
+    /**
+     * Chooses the index of the quick sort pivot of the range: the median of
+     * the first, middle and last elements, or for large ranges the median of
+     * the medians of three evenly spaced groups of three.
+     * @param input An array of objects.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @param comparator The order to sort the array in.
+     * @return The index of the pivot.
+     */
+    private static <T> int pivot(T[] input, int left, int right,
+            Comparator<? super T> comparator) {
+        int mid = (left + right) >>> 1;
+        if (right - left < NINTHER_THRESHOLD) {
+            return median(input, left, mid, right, comparator);
+        }
+        int step = (right - left) / 8;
+        return median(input,
+                median(input, left, left + step, left + 2 * step, comparator),
+                median(input, mid - step, mid, mid + step, comparator),
+                median(input, right - 2 * step, right - step, right,
+                        comparator), comparator);
+    }
+
+    /**
+     * Gets the index of the median of three elements.
+     * @param input An array of objects.
+     * @param a The index of the first element.
+     * @param b The index of the second element.
+     * @param c The index of the third element.
+     * @param comparator The order to sort the array in.
+     * @return The index of the median element.
+     */
+    private static <T> int median(T[] input, int a, int b, int c,
+            Comparator<? super T> comparator) {
+        if (comparator.compare(input[a], input[b]) < 0) {
+            if (comparator.compare(input[b], input[c]) < 0) {
+                return b;
+            }
+            return comparator.compare(input[a], input[c]) < 0 ? c : a;
+        }
+        if (comparator.compare(input[a], input[c]) < 0) {
+            return a;
+        }
+        return comparator.compare(input[b], input[c]) < 0 ? c : b;
+    }
+
+    /**
+     * Gets the depth of recursion allowed before quick sort falls back to
+     * heap sort, 2 floor(log2 n).
+     * @param length The number of elements to sort.
+     * @return The depth limit.
+     */
+    private static int depthLimit(int length) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(length, 1)));
+    }
+
+    /**
+     * Gets the comparator for the natural order of comparable objects, or
+     * its reverse.
+     * @param reversed If false, the natural order. Otherwise, its reverse.
+     * @return The comparator.
+     */
+    private static <T extends Comparable> Comparator<T> order(
+            boolean reversed) {
+        return reversed ? (Comparator<T>) Comparator.reverseOrder() :
+                (Comparator<T>) Comparator.naturalOrder();
+    }
+
+    /**
+     * Swaps the elements at the given indexes.
+     * @param input An array that has elements to be swapped.
+     * @param i The index of one of the elements to be swapped.
+     * @param j The index of one of the elements to be swapped.
+     * @param measured Whether to count the swap in SortMetrics, as read once
+     *                 on entry to the sort.
+     */
+    private static <T> void swap(T[] input, int i, int j, boolean measured) {
+        if (measured) {
+            SortMetrics.swapped();
+        }
+        T temp = input[i];
+        input[i] = input[j];
+        input[j] = temp;
+    }
+
+    /**
+     * Sorts the given int array using the selection sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void selectionSort(int[] input, boolean reversed) {
+        selectionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given int array using the selection
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void selectionSort(int[] input, int from, int to,
+            boolean reversed) {
+        selectionSort(input, from, to - 1);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given long array using the selection sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void selectionSort(long[] input, boolean reversed) {
+        selectionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given long array using the selection
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void selectionSort(long[] input, int from, int to,
+            boolean reversed) {
+        selectionSort(input, from, to - 1);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given float array using the selection sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void selectionSort(float[] input, boolean reversed) {
+        selectionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given float array using the selection
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void selectionSort(float[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        selectionSort(input, from, end - 1);
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given double array using the selection sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void selectionSort(double[] input, boolean reversed) {
+        selectionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given double array using the selection
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void selectionSort(double[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        selectionSort(input, from, end - 1);
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given int array using the insertion sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void insertionSort(int[] input, boolean reversed) {
+        insertionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given int array using the insertion
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void insertionSort(int[] input, int from, int to,
+            boolean reversed) {
+        insertionSort(input, from, to - 1);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given long array using the insertion sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void insertionSort(long[] input, boolean reversed) {
+        insertionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given long array using the insertion
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void insertionSort(long[] input, int from, int to,
+            boolean reversed) {
+        insertionSort(input, from, to - 1);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given float array using the insertion sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void insertionSort(float[] input, boolean reversed) {
+        insertionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given float array using the insertion
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void insertionSort(float[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        insertionSort(input, from, end - 1);
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given double array using the insertion sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void insertionSort(double[] input, boolean reversed) {
+        insertionSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given double array using the insertion
+     * sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void insertionSort(double[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        insertionSort(input, from, end - 1);
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given int array using the merge sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void mergeSort(int[] input, boolean reversed) {
+        mergeSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given int array using the merge sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void mergeSort(int[] input, int from, int to,
+            boolean reversed) {
+        recursiveMergeSort(input, new int[to - from], from, to - 1);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given long array using the merge sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void mergeSort(long[] input, boolean reversed) {
+        mergeSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given long array using the merge sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void mergeSort(long[] input, int from, int to,
+            boolean reversed) {
+        recursiveMergeSort(input, new long[to - from], from, to - 1);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given float array using the merge sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void mergeSort(float[] input, boolean reversed) {
+        mergeSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given float array using the merge sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void mergeSort(float[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        recursiveMergeSort(input, new float[end - from], from, end - 1);
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given double array using the merge sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void mergeSort(double[] input, boolean reversed) {
+        mergeSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given double array using the merge sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void mergeSort(double[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        recursiveMergeSort(input, new double[end - from], from, end - 1);
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given int array using the quick sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * Partitioning and the sorting of small ranges do not branch on the
+     * values being compared (@see BranchlessSort).
+     *
+     * @param input An array of ints.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void quickSort(int[] input, boolean reversed) {
+        quickSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given int array using the quick sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void quickSort(int[] input, int from, int to,
+            boolean reversed) {
+        BranchlessSort.sort(input, from, to);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given long array using the quick sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void quickSort(long[] input, boolean reversed) {
+        quickSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given long array using the quick sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void quickSort(long[] input, int from, int to,
+            boolean reversed) {
+        inPlaceQuickSort(input, from, to - 1, depthLimit(to - from));
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given float array using the quick sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * Partitioning and the sorting of small ranges do not branch on the
+     * values being compared (@see BranchlessSort).
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void quickSort(float[] input, boolean reversed) {
+        quickSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given float array using the quick sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Float.compare().
+     *
+     * @param input An array of floats.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void quickSort(float[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        BranchlessSort.sort(input, from, end);
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given double array using the quick sort algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void quickSort(double[] input, boolean reversed) {
+        quickSort(input, 0, input.length, reversed);
+    }
+
+    /**
+     * Sorts the range [from, to) of the given double array using the quick sort
+     * algorithm.
+     * This should modify the array in-place, without boxing.
+     *
+     * NaN is ordered after every other value and -0.0 before 0.0, as by
+     * Double.compare().
+     *
+     * @param input An array of doubles.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null && 0 <= from <= to <= input.length
+     */
+    static void quickSort(double[] input, int from, int to,
+            boolean reversed) {
+        int end = moveNaNsToEnd(input, from, to);
+        inPlaceQuickSort(input, from, end - 1, depthLimit(end - from));
+        orderZeros(input, from, end);
+        if (reversed) {
+            reverse(input, from, to);
+        }
+    }
+
+    /**
+     * Sorts the given int array using an LSD radix sort (@see RadixSort).
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void radixSort(int[] input, boolean reversed) {
+        RadixSort.sort(input);
+        if (reversed) {
+            reverse(input, 0, input.length);
+        }
+    }
+
+    /**
+     * Sorts the given long array using an LSD radix sort (@see RadixSort).
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void radixSort(long[] input, boolean reversed) {
+        RadixSort.sort(input);
+        if (reversed) {
+            reverse(input, 0, input.length);
+        }
+    }
+
+    /**
+     * Sorts the given int array with radix sort if it has more than
+     * SortDispatcher.PRIMITIVE_RADIX_THRESHOLD elements, or quick sort
+     * otherwise, counting the choice as for objects.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of ints.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void sort(int[] input, boolean reversed) {
+        SortDispatcher.sort(input, reversed);
+    }
+
+    /**
+     * Sorts the given long array with radix sort if it has more than
+     * SortDispatcher.PRIMITIVE_RADIX_THRESHOLD elements, or quick sort
+     * otherwise, counting the choice as for objects.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of longs.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void sort(long[] input, boolean reversed) {
+        SortDispatcher.sort(input, reversed);
+    }
+
+    /**
+     * Sorts the given float array with quick sort, counting the choice as for
+     * objects.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of floats.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void sort(float[] input, boolean reversed) {
+        SortDispatcher.sort(input, reversed);
+    }
+
+    /**
+     * Sorts the given double array with quick sort, counting the choice as for
+     * objects.
+     * This should modify the array in-place, without boxing.
+     *
+     * @param input An array of doubles.
+     * @param reversed If false, the array should be sorted ascending.
+     *                 Otherwise, it should be sorted descending.
+     * @requires input != null
+     */
+    static void sort(double[] input, boolean reversed) {
+        SortDispatcher.sort(input, reversed);
+    }
+
+    /**
+     * Sorts the range of the array ascending with selection sort.
+     * @param input An array of ints.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void selectionSort(int[] input, int left, int right) {
+        for (int i = left; i < right; i++) {
+            int min = i;
+            // Search for the min element in the unsorted part of the array
+            for (int j = i + 1; j <= right; j++) {
+                if (input[j] < input[min]) {
+                    min = j;
+                }
+            }
+            swap(input, i, min);
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with insertion sort.
+     * @param input An array of ints.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void insertionSort(int[] input, int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            int value = input[i];
+            int j = i;
+            // Shift each larger element until value is in the correct
+            // position in the sorted part of the array
+            while (j > left && input[j - 1] > value) {
+                input[j] = input[j - 1];
+                j--;
+            }
+            input[j] = value;
+        }
+    }
+
+    /**
+     * Recursively calls itself, to sort the range ascending using merge sort.
+     * @param input An array of ints.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition
+     * @param right The right index of the partition
+     */
+    private static void recursiveMergeSort(int[] input, int[] aux, int left,
+            int right) {
+        if (left < right) {
+            int mid = (left + right) >>> 1;
+            recursiveMergeSort(input, aux, left, mid);
+            recursiveMergeSort(input, aux, mid + 1, right);
+            merge(input, aux, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges sorted partitions.
+     * @param input An array of ints with sorted partitions.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition.
+     * @param mid The middle index of the partition.
+     * @param right The right index of the partition.
+     */
+    private static void merge(int[] input, int[] aux, int left, int mid,
+            int right) {
+        // Indexes of aux are relative to left
+        System.arraycopy(input, left, aux, 0, right - left + 1);
+        int i = 0, j = mid + 1 - left;
+        for (int k = left; k <= right; k++) {
+            if (i > mid - left) {
+                input[k] = aux[j++];
+            } else if (j > right - left || aux[i] <= aux[j]) {
+                input[k] = aux[i++];
+            } else {
+                input[k] = aux[j++];
+            }
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with selection sort.
+     * @param input An array of longs.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void selectionSort(long[] input, int left, int right) {
+        for (int i = left; i < right; i++) {
+            int min = i;
+            // Search for the min element in the unsorted part of the array
+            for (int j = i + 1; j <= right; j++) {
+                if (input[j] < input[min]) {
+                    min = j;
+                }
+            }
+            swap(input, i, min);
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with insertion sort.
+     * @param input An array of longs.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void insertionSort(long[] input, int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            long value = input[i];
+            int j = i;
+            // Shift each larger element until value is in the correct
+            // position in the sorted part of the array
+            while (j > left && input[j - 1] > value) {
+                input[j] = input[j - 1];
+                j--;
+            }
+            input[j] = value;
+        }
+    }
+
+    /**
+     * Recursively calls itself, to sort the range ascending using merge sort.
+     * @param input An array of longs.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition
+     * @param right The right index of the partition
+     */
+    private static void recursiveMergeSort(long[] input, long[] aux, int left,
+            int right) {
+        if (left < right) {
+            int mid = (left + right) >>> 1;
+            recursiveMergeSort(input, aux, left, mid);
+            recursiveMergeSort(input, aux, mid + 1, right);
+            merge(input, aux, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges sorted partitions.
+     * @param input An array of longs with sorted partitions.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition.
+     * @param mid The middle index of the partition.
+     * @param right The right index of the partition.
+     */
+    private static void merge(long[] input, long[] aux, int left, int mid,
+            int right) {
+        // Indexes of aux are relative to left
+        System.arraycopy(input, left, aux, 0, right - left + 1);
+        int i = 0, j = mid + 1 - left;
+        for (int k = left; k <= right; k++) {
+            if (i > mid - left) {
+                input[k] = aux[j++];
+            } else if (j > right - left || aux[i] <= aux[j]) {
+                input[k] = aux[i++];
+            } else {
+                input[k] = aux[j++];
+            }
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with introspective quick sort.
+     * @param input An array of longs.
+     * @param left The left index of the partition.
+     * @param right The right index of the partition.
+     * @param depthLimit The remaining depth before falling back to heap sort.
+     */
+    private static void inPlaceQuickSort(long[] input, int left, int right,
+            int depthLimit) {
+        while (right - left >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                QuaternaryHeapsort.quaternaryHeapsort(input, left, right + 1);
+                return;
+            }
+            // Move the pivot to the left of the range
+            swap(input, left, pivot(input, left, right));
+            long pivot = input[left];
+
+            // Partition into < pivot [left, lt), == pivot [lt, i) and
+            // > pivot (gt, right]
+            int lt = left, i = left + 1, gt = right;
+            while (i <= gt) {
+                if (input[i] < pivot) {
+                    swap(input, lt++, i++);
+                } else if (input[i] > pivot) {
+                    swap(input, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            // Recurse into the smaller partition and loop on the larger
+            if (lt - left < right - gt) {
+                inPlaceQuickSort(input, left, lt - 1, depthLimit);
+                left = gt + 1;
+            } else {
+                inPlaceQuickSort(input, gt + 1, right, depthLimit);
+                right = lt - 1;
+            }
+        }
+        insertionSort(input, left, right);
+    }
+
+    /**
+     * Chooses the index of the quick sort pivot of the range, as for arrays
+     * of objects.
+     * @param input An array of longs.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @return The index of the pivot.
+     */
+    private static int pivot(long[] input, int left, int right) {
+        int mid = (left + right) >>> 1;
+        if (right - left < NINTHER_THRESHOLD) {
+            return median(input, left, mid, right);
+        }
+        int step = (right - left) / 8;
+        return median(input,
+                median(input, left, left + step, left + 2 * step),
+                median(input, mid - step, mid, mid + step),
+                median(input, right - 2 * step, right - step, right));
+    }
+
+    /**
+     * Gets the index of the median of three elements.
+     * @param input An array of longs.
+     * @param a The index of the first element.
+     * @param b The index of the second element.
+     * @param c The index of the third element.
+     * @return The index of the median element.
+     */
+    private static int median(long[] input, int a, int b, int c) {
+        if (input[a] < input[b]) {
+            if (input[b] < input[c]) {
+                return b;
+            }
+            return input[a] < input[c] ? c : a;
+        }
+        if (input[a] < input[c]) {
+            return a;
+        }
+        return input[b] < input[c] ? c : b;
+    }
+
+    /**
+     * Sorts the range of the array ascending with selection sort.
+     * @param input An array of floats.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void selectionSort(float[] input, int left, int right) {
+        for (int i = left; i < right; i++) {
+            int min = i;
+            // Search for the min element in the unsorted part of the array
+            for (int j = i + 1; j <= right; j++) {
+                if (input[j] < input[min]) {
+                    min = j;
+                }
+            }
+            swap(input, i, min);
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with insertion sort.
+     * @param input An array of floats.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void insertionSort(float[] input, int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            float value = input[i];
+            int j = i;
+            // Shift each larger element until value is in the correct
+            // position in the sorted part of the array
+            while (j > left && input[j - 1] > value) {
+                input[j] = input[j - 1];
+                j--;
+            }
+            input[j] = value;
+        }
+    }
+
+    /**
+     * Recursively calls itself, to sort the range ascending using merge sort.
+     * @param input An array of floats.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition
+     * @param right The right index of the partition
+     */
+    private static void recursiveMergeSort(float[] input, float[] aux, int left,
+            int right) {
+        if (left < right) {
+            int mid = (left + right) >>> 1;
+            recursiveMergeSort(input, aux, left, mid);
+            recursiveMergeSort(input, aux, mid + 1, right);
+            merge(input, aux, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges sorted partitions.
+     * @param input An array of floats with sorted partitions.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition.
+     * @param mid The middle index of the partition.
+     * @param right The right index of the partition.
+     */
+    private static void merge(float[] input, float[] aux, int left, int mid,
+            int right) {
+        // Indexes of aux are relative to left
+        System.arraycopy(input, left, aux, 0, right - left + 1);
+        int i = 0, j = mid + 1 - left;
+        for (int k = left; k <= right; k++) {
+            if (i > mid - left) {
+                input[k] = aux[j++];
+            } else if (j > right - left || aux[i] <= aux[j]) {
+                input[k] = aux[i++];
+            } else {
+                input[k] = aux[j++];
+            }
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with selection sort.
+     * @param input An array of doubles.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void selectionSort(double[] input, int left, int right) {
+        for (int i = left; i < right; i++) {
+            int min = i;
+            // Search for the min element in the unsorted part of the array
+            for (int j = i + 1; j <= right; j++) {
+                if (input[j] < input[min]) {
+                    min = j;
+                }
+            }
+            swap(input, i, min);
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with insertion sort.
+     * @param input An array of doubles.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     */
+    private static void insertionSort(double[] input, int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            double value = input[i];
+            int j = i;
+            // Shift each larger element until value is in the correct
+            // position in the sorted part of the array
+            while (j > left && input[j - 1] > value) {
+                input[j] = input[j - 1];
+                j--;
+            }
+            input[j] = value;
+        }
+    }
+
+    /**
+     * Recursively calls itself, to sort the range ascending using merge sort.
+     * @param input An array of doubles.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition
+     * @param right The right index of the partition
+     */
+    private static void recursiveMergeSort(double[] input, double[] aux, int left,
+            int right) {
+        if (left < right) {
+            int mid = (left + right) >>> 1;
+            recursiveMergeSort(input, aux, left, mid);
+            recursiveMergeSort(input, aux, mid + 1, right);
+            merge(input, aux, left, mid, right);
+        }
+    }
+
+    /**
+     * Merges sorted partitions.
+     * @param input An array of doubles with sorted partitions.
+     * @param aux The auxiliary array to elements during the sort, at least
+     *            as long as the partition
+     * @param left The left index of the partition.
+     * @param mid The middle index of the partition.
+     * @param right The right index of the partition.
+     */
+    private static void merge(double[] input, double[] aux, int left, int mid,
+            int right) {
+        // Indexes of aux are relative to left
+        System.arraycopy(input, left, aux, 0, right - left + 1);
+        int i = 0, j = mid + 1 - left;
+        for (int k = left; k <= right; k++) {
+            if (i > mid - left) {
+                input[k] = aux[j++];
+            } else if (j > right - left || aux[i] <= aux[j]) {
+                input[k] = aux[i++];
+            } else {
+                input[k] = aux[j++];
+            }
+        }
+    }
+
+    /**
+     * Sorts the range of the array ascending with introspective quick sort.
+     * @param input An array of doubles.
+     * @param left The left index of the partition.
+     * @param right The right index of the partition.
+     * @param depthLimit The remaining depth before falling back to heap sort.
+     */
+    private static void inPlaceQuickSort(double[] input, int left, int right,
+            int depthLimit) {
+        while (right - left >= INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                QuaternaryHeapsort.quaternaryHeapsort(input, left, right + 1);
+                return;
+            }
+            // Move the pivot to the left of the range
+            swap(input, left, pivot(input, left, right));
+            double pivot = input[left];
+
+            // Partition into < pivot [left, lt), == pivot [lt, i) and
+            // > pivot (gt, right]
+            int lt = left, i = left + 1, gt = right;
+            while (i <= gt) {
+                if (input[i] < pivot) {
+                    swap(input, lt++, i++);
+                } else if (input[i] > pivot) {
+                    swap(input, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            // Recurse into the smaller partition and loop on the larger
+            if (lt - left < right - gt) {
+                inPlaceQuickSort(input, left, lt - 1, depthLimit);
+                left = gt + 1;
+            } else {
+                inPlaceQuickSort(input, gt + 1, right, depthLimit);
+                right = lt - 1;
+            }
+        }
+        insertionSort(input, left, right);
+    }
+
+    /**
+     * Chooses the index of the quick sort pivot of the range, as for arrays
+     * of objects.
+     * @param input An array of doubles.
+     * @param left The left index of the range.
+     * @param right The right index of the range.
+     * @return The index of the pivot.
+     */
+    private static int pivot(double[] input, int left, int right) {
+        int mid = (left + right) >>> 1;
+        if (right - left < NINTHER_THRESHOLD) {
+            return median(input, left, mid, right);
+        }
+        int step = (right - left) / 8;
+        return median(input,
+                median(input, left, left + step, left + 2 * step),
+                median(input, mid - step, mid, mid + step),
+                median(input, right - 2 * step, right - step, right));
+    }
+
+    /**
+     * Gets the index of the median of three elements.
+     * @param input An array of doubles.
+     * @param a The index of the first element.
+     * @param b The index of the second element.
+     * @param c The index of the third element.
+     * @return The index of the median element.
+     */
+    private static int median(double[] input, int a, int b, int c) {
+        if (input[a] < input[b]) {
+            if (input[b] < input[c]) {
+                return b;
+            }
+            return input[a] < input[c] ? c : a;
+        }
+        if (input[a] < input[c]) {
+            return a;
+        }
+        return input[b] < input[c] ? c : b;
+    }
+
+    /**
+     * Swaps the elements at the given indexes.
+     * @param input An array that has elements to be swapped.
+     * @param i The index of one of the elements to be swapped.
+     * @param j The index of one of the elements to be swapped.
+     */
+    private static void swap(int[] input, int i, int j) {
+        int temp = input[i];
+        input[i] = input[j];
+        input[j] = temp;
+    }
+
+    /**
+     * Reverses the order of the elements of the range [from, to) of the
+     * array.
+     * @param input An array of objects.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    private static <T> void reverse(T[] input, int from, int to) {
+        boolean measured = SortMetrics.enabled;
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(input, i, j, measured);
+        }
+    }
+
+    /**
+     * Reverses the order of the elements of the range [from, to) of the
+     * array.
+     * @param input An array of ints.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    private static void reverse(int[] input, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(input, i, j);
+        }
+    }
+
+    /**
+     * Swaps the elements at the given indexes.
+     * @param input An array that has elements to be swapped.
+     * @param i The index of one of the elements to be swapped.
+     * @param j The index of one of the elements to be swapped.
+     */
+    private static void swap(long[] input, int i, int j) {
+        long temp = input[i];
+        input[i] = input[j];
+        input[j] = temp;
+    }
+
+    /**
+     * Reverses the order of the elements of the range [from, to) of the
+     * array.
+     * @param input An array of longs.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    private static void reverse(long[] input, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(input, i, j);
+        }
+    }
+
+    /**
+     * Swaps the elements at the given indexes.
+     * @param input An array that has elements to be swapped.
+     * @param i The index of one of the elements to be swapped.
+     * @param j The index of one of the elements to be swapped.
+     */
+    private static void swap(float[] input, int i, int j) {
+        float temp = input[i];
+        input[i] = input[j];
+        input[j] = temp;
+    }
+
+    /**
+     * Reverses the order of the elements of the range [from, to) of the
+     * array.
+     * @param input An array of floats.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    private static void reverse(float[] input, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(input, i, j);
+        }
+    }
+
+    /**
+     * Swaps the elements at the given indexes.
+     * @param input An array that has elements to be swapped.
+     * @param i The index of one of the elements to be swapped.
+     * @param j The index of one of the elements to be swapped.
+     */
+    private static void swap(double[] input, int i, int j) {
+        double temp = input[i];
+        input[i] = input[j];
+        input[j] = temp;
+    }
+
+    /**
+     * Reverses the order of the elements of the range [from, to) of the
+     * array.
+     * @param input An array of doubles.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     */
+    private static void reverse(double[] input, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(input, i, j);
+        }
+    }
+
+    /**
+     * Moves the NaNs of the range of the array to its end, so that the rest
+     * of the range can be sorted with primitive comparisons.
+     * @param input An array of floats.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @return The index after the last element that is not NaN.
+     */
+    static int moveNaNsToEnd(float[] input, int from, int to) {
+        int end = to;
+        for (int i = end - 1; i >= from; i--) {
+            if (input[i] != input[i]) {
+                swap(input, i, --end);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Orders -0.0 before 0.0 in the sorted range of the array, as primitive
+     * comparisons consider them equal.
+     * @param input An array of floats, sorted ascending in [from, end).
+     * @param from The index of the first element of the range.
+     * @param end The index after the last element that is not NaN.
+     */
+    static void orderZeros(float[] input, int from, int end) {
+        // Binary search for the first zero
+        int low = from, high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (input[mid] < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int negativeZeros = 0, i = low;
+        for (; i < end && input[i] == 0; i++) {
+            if (Float.floatToRawIntBits(input[i]) < 0) {
+                negativeZeros++;
+            }
+        }
+        for (int j = low; j < i; j++) {
+            input[j] = j - low < negativeZeros ? -0.0f : 0.0f;
+        }
+    }
+
+    /**
+     * Moves the NaNs of the range of the array to its end, so that the rest
+     * of the range can be sorted with primitive comparisons.
+     * @param input An array of doubles.
+     * @param from The index of the first element of the range.
+     * @param to The index after the last element of the range.
+     * @return The index after the last element that is not NaN.
+     */
+    static int moveNaNsToEnd(double[] input, int from, int to) {
+        int end = to;
+        for (int i = end - 1; i >= from; i--) {
+            if (input[i] != input[i]) {
+                swap(input, i, --end);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Orders -0.0 before 0.0 in the sorted range of the array, as primitive
+     * comparisons consider them equal.
+     * @param input An array of doubles, sorted ascending in [from, end).
+     * @param from The index of the first element of the range.
+     * @param end The index after the last element that is not NaN.
+     */
+    static void orderZeros(double[] input, int from, int end) {
+        // Binary search for the first zero
+        int low = from, high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (input[mid] < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int negativeZeros = 0, i = low;
+        for (; i < end && input[i] == 0; i++) {
+            if (Double.doubleToRawLongBits(input[i]) < 0) {
+                negativeZeros++;
+            }
+        }
+        for (int j = low; j < i; j++) {
+            input[j] = j - low < negativeZeros ? -0.0 : 0.0;
+        }
     }
 }
@@ -0,0 +1,413 @@
+import java.util.Comparator;
+
+/**
+ * An adaptive, stable, natural merge sort in the style of TimSort
+ * (@see SortingAlgorithms).
+ *
+ * The array is scanned for natural runs: maximal ascending runs, or strictly
+ * descending runs which are reversed in place (strictly, so that reversing
+ * them keeps the sort stable). Runs shorter than a minimum length are extended
+ * with binary insertion sort. Runs are pushed onto a stack and merged so that
+ * the lengths on the stack shrink at least as fast as the Fibonacci numbers,
+ * which keeps merges balanced and the stack O(log n) deep.
+ *
+ * Merges first gallop to skip the prefix of the left run and the suffix of the
+ * right run that are already in place, and copy only the smaller remaining
+ * run into the temporary buffer. While one run keeps winning, the merge
+ * switches to galloping (exponential then binary search) to copy the winning
+ * elements in bulk.
+ *
+ * A sorted, reverse sorted or nearly sorted array is therefore sorted in close
+ * to linear time.
+ */
+final class TimSort<T> {
+
+    // Runs shorter than this are merged without computing a minimum run
+    // length, i.e. the whole array is binary insertion sorted
+    private static final int MIN_MERGE = 32;
+
+    // Stores the number of consecutive wins by one run after which a merge
+    // gallops
+    private static final int MIN_GALLOP = 7;
+
+    // Stores the array being sorted
+    private final T[] input;
+
+    // Stores the order to sort in
+    private final Comparator<? super T> comparator;
+
+    // Stores the temporary buffer for merges, grown as needed
+    private T[] tmp;
+
+    // Stores the start index and length of each pending run
+    private final int[] runBase = new int[64];
+    private final int[] runLen = new int[64];
+
+    // Stores the number of pending runs
+    private int stackSize;
+
+    // Creates a TimSort of the array
+    private TimSort(T[] input, Comparator<? super T> comparator) {
+        this.input = input;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Sorts the range [lo, hi) of the array with an adaptive, stable merge
+     * sort.
+     *
+     * Time Complexity: O(n log n), or O(n + r log r) for an array made up of
+     * r natural runs, which is O(n) for a sorted array.
+     *
+     * Memory Complexity: O(n) for the merge buffer, which is at most half
+     * the length of the array, or less for nearly sorted input.
+     *
+     * @param input An array of objects.
+     * @param lo The index of the first element to sort.
+     * @param hi The index after the last element to sort.
+     * @param comparator The order to sort the array in.
+     */
+    static <T> void sort(T[] input, int lo, int hi,
+            Comparator<? super T> comparator) {
+        int remaining = hi - lo;
+        if (remaining < 2) {
+            return;
+        }
+        TimSort<T> sorter = new TimSort<>(input, comparator);
+        if (remaining < MIN_MERGE) {
+            int runEnd = sorter.makeAscendingRun(lo, hi);
+            sorter.binaryInsertionSort(lo, hi, runEnd);
+            return;
+        }
+        int minRun = minRunLength(remaining);
+        do {
+            int runEnd = sorter.makeAscendingRun(lo, hi);
+            // Extend short runs to minRun elements
+            if (runEnd - lo < minRun) {
+                int forced = Math.min(lo + minRun, hi);
+                sorter.binaryInsertionSort(lo, forced, runEnd);
+                runEnd = forced;
+            }
+            sorter.pushRun(lo, runEnd - lo);
+            sorter.mergeCollapse();
+            lo = runEnd;
+        } while (lo < hi);
+        sorter.mergeForceCollapse();
+    }
+
+    /**
+     * Gets the minimum run length for an array of length n: a number in
+     * [MIN_MERGE / 2, MIN_MERGE] such that n / minRun is close to, but not
+     * more than, a power of two, so the final merges are balanced.
+     *
+     * @param n The length of the array.
+     * @return The minimum run length.
+     */
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= n & 1;
+            n >>= 1;
+        }
+        return n + r;
+    }
+
+    /**
+     * Finds the natural run starting at lo, reversing it if it is strictly
+     * descending.
+     *
+     * @param lo The index of the first element of the run.
+     * @param hi The index after the last element that may be in the run.
+     * @return The index after the last element of the run.
+     */
+    private int makeAscendingRun(int lo, int hi) {
+        int runEnd = lo + 1;
+        if (runEnd == hi) {
+            return hi;
+        }
+        if (comparator.compare(input[runEnd++], input[lo]) < 0) {
+            while (runEnd < hi &&
+                    comparator.compare(input[runEnd], input[runEnd - 1]) < 0) {
+                runEnd++;
+            }
+            for (int i = lo, j = runEnd - 1; i < j; i++, j--) {
+                T temp = input[i];
+                input[i] = input[j];
+                input[j] = temp;
+            }
+        } else {
+            while (runEnd < hi &&
+                    comparator.compare(input[runEnd], input[runEnd - 1]) >= 0) {
+                runEnd++;
+            }
+        }
+        return runEnd;
+    }
+
+    /**
+     * Sorts [lo, hi) with binary insertion sort, given that [lo, start) is
+     * already sorted. Equal elements are inserted after each other, so the
+     * sort is stable.
+     *
+     * @param lo The index of the first element.
+     * @param hi The index after the last element.
+     * @param start The index of the first element not known to be sorted.
+     */
+    private void binaryInsertionSort(int lo, int hi, int start) {
+        for (; start < hi; start++) {
+            T pivot = input[start];
+            // Find the first element greater than pivot
+            int left = lo, right = start;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (comparator.compare(pivot, input[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(input, left, input, left + 1, start - left);
+            input[left] = pivot;
+        }
+    }
+
+    /**
+     * Pushes a run onto the stack of pending runs.
+     *
+     * @param base The index of the first element of the run.
+     * @param len The length of the run.
+     */
+    private void pushRun(int base, int len) {
+        runBase[stackSize] = base;
+        runLen[stackSize] = len;
+        stackSize++;
+    }
+
+    /**
+     * Merges pending runs until the lengths on the stack satisfy, for the
+     * top runs X, Y, Z, W (Z on top): len(X) > len(Y) + len(Z),
+     * len(W) > len(X) + len(Y) and len(Y) > len(Z).
+     */
+    private void mergeCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1] ||
+                    n > 1 && runLen[n - 2] <= runLen[n] + runLen[n - 1]) {
+                if (runLen[n - 1] < runLen[n + 1]) {
+                    n--;
+                }
+            } else if (runLen[n] > runLen[n + 1]) {
+                break;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Merges all pending runs into one.
+     */
+    private void mergeForceCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLen[n - 1] < runLen[n + 1]) {
+                n--;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Merges the pending runs at stack indexes i and i + 1.
+     *
+     * @param i The stack index of the first run, which is the second or third
+     *          from the top.
+     */
+    private void mergeAt(int i) {
+        int base1 = runBase[i], len1 = runLen[i];
+        int base2 = runBase[i + 1], len2 = runLen[i + 1];
+        runLen[i] = len1 + len2;
+        if (i == stackSize - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLen[i + 1] = runLen[i + 2];
+        }
+        stackSize--;
+
+        // Elements of run 1 not greater than the first of run 2 are in place
+        int k = gallop(input[base2], input, base1, len1, true);
+        base1 += k;
+        len1 -= k;
+        if (len1 == 0) {
+            return;
+        }
+        // Elements of run 2 not less than the last of run 1 are in place
+        len2 = gallop(input[base1 + len1 - 1], input, base2, len2, false);
+        if (len2 == 0) {
+            return;
+        }
+        if (len1 <= len2) {
+            mergeLo(base1, len1, base2, len2);
+        } else {
+            mergeHi(base1, len1, base2, len2);
+        }
+    }
+
+    /**
+     * Finds how many elements at the start of the sorted range are less than
+     * the key (or if right, not greater than the key), searching exponentially
+     * then binary searching, so that the cost is O(log k) for a result k.
+     *
+     * @param key The key to search for.
+     * @param a The array containing the range.
+     * @param base The index of the first element of the range.
+     * @param len The length of the range.
+     * @param right If true, elements equal to the key are counted.
+     * @return The number of elements before the key, in [0, len].
+     */
+    private int gallop(T key, T[] a, int base, int len, boolean right) {
+        int lastBefore = -1, probe = 0, step = 1;
+        while (probe < len && before(a[base + probe], key, right)) {
+            lastBefore = probe;
+            probe += step;
+            step <<= 1;
+        }
+        int lo = lastBefore + 1, hi = Math.min(probe, len);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (before(a[base + mid], key, right)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Checks if an element goes before the key.
+     *
+     * @param element The element.
+     * @param key The key.
+     * @param right If true, an element equal to the key goes before it.
+     * @return true if the element goes before the key.
+     */
+    private boolean before(T element, T key, boolean right) {
+        int cmp = comparator.compare(element, key);
+        return cmp < 0 || (right && cmp == 0);
+    }
+
+    /**
+     * Merges two adjacent runs from left to right, where the first run is the
+     * shorter and is copied into the temporary buffer. The first element of
+     * run 2 is less than the first of run 1, and the last of run 1 is greater
+     * than the last of run 2.
+     *
+     * @param base1 The index of the first element of run 1.
+     * @param len1 The length of run 1.
+     * @param base2 The index of the first element of run 2.
+     * @param len2 The length of run 2.
+     */
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+        T[] a = input;
+        T[] buffer = ensureCapacity(len1);
+        System.arraycopy(a, base1, buffer, 0, len1);
+        int c1 = 0, c2 = base2, dest = base1;
+        int end2 = base2 + len2;
+        int wins1 = 0, wins2 = 0;
+        while (c1 < len1 && c2 < end2) {
+            if (comparator.compare(a[c2], buffer[c1]) < 0) {
+                a[dest++] = a[c2++];
+                wins2++;
+                wins1 = 0;
+            } else {
+                a[dest++] = buffer[c1++];
+                wins1++;
+                wins2 = 0;
+            }
+            if (wins1 >= MIN_GALLOP && c2 < end2) {
+                // Copy every element of run 1 not greater than a[c2]
+                int count = gallop(a[c2], buffer, c1, len1 - c1, true);
+                System.arraycopy(buffer, c1, a, dest, count);
+                c1 += count;
+                dest += count;
+                wins1 = 0;
+            } else if (wins2 >= MIN_GALLOP && c1 < len1) {
+                // Copy every element of run 2 less than buffer[c1]
+                int count = gallop(buffer[c1], a, c2, end2 - c2, false);
+                System.arraycopy(a, c2, a, dest, count);
+                c2 += count;
+                dest += count;
+                wins2 = 0;
+            }
+        }
+        // Any rest of run 2 is already in place
+        System.arraycopy(buffer, c1, a, dest, len1 - c1);
+    }
+
+    /**
+     * Merges two adjacent runs from right to left, where the second run is
+     * the shorter and is copied into the temporary buffer.
+     *
+     * @param base1 The index of the first element of run 1.
+     * @param len1 The length of run 1.
+     * @param base2 The index of the first element of run 2.
+     * @param len2 The length of run 2.
+     */
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+        T[] a = input;
+        T[] buffer = ensureCapacity(len2);
+        System.arraycopy(a, base2, buffer, 0, len2);
+        int c1 = base1 + len1 - 1, c2 = len2 - 1, dest = base2 + len2 - 1;
+        int wins1 = 0, wins2 = 0;
+        while (c1 >= base1 && c2 >= 0) {
+            if (comparator.compare(buffer[c2], a[c1]) < 0) {
+                a[dest--] = a[c1--];
+                wins1++;
+                wins2 = 0;
+            } else {
+                a[dest--] = buffer[c2--];
+                wins2++;
+                wins1 = 0;
+            }
+            if (wins1 >= MIN_GALLOP && c2 >= 0) {
+                // Copy every element of run 1 greater than buffer[c2]
+                int count = c1 + 1 - base1 -
+                        gallop(buffer[c2], a, base1, c1 + 1 - base1, true);
+                System.arraycopy(a, c1 + 1 - count, a, dest + 1 - count,
+                        count);
+                c1 -= count;
+                dest -= count;
+                wins1 = 0;
+            } else if (wins2 >= MIN_GALLOP && c1 >= base1) {
+                // Copy every element of run 2 not less than a[c1]
+                int count = c2 + 1 - gallop(a[c1], buffer, 0, c2 + 1, false);
+                System.arraycopy(buffer, c2 + 1 - count, a, dest + 1 - count,
+                        count);
+                c2 -= count;
+                dest -= count;
+                wins2 = 0;
+            }
+        }
+        // Any rest of run 1 is already in place
+        System.arraycopy(buffer, 0, a, base1, c2 + 1);
+    }
+
+    /**
+     * Gets a temporary buffer of at least the given length.
+     *
+     * @param length The minimum length.
+     * @return The buffer.
+     */
+    @SuppressWarnings("unchecked")
+    private T[] ensureCapacity(int length) {
+        if (tmp == null || tmp.length < length) {
+            int capacity = Math.max(length, Math.min(input.length >>> 1,
+                    tmp == null ? 256 : tmp.length * 2));
+            tmp = (T[]) new Object[capacity];
+            if (SortMetrics.enabled) {
+                SortMetrics.allocated(
+                        (long) capacity * SortMetrics.REFERENCE_BYTES);
+            }
+        }
+        return tmp;
+    }
+}
@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the occurrences of the whitespace separated tokens of a file into a
+ * (@see LinkedMultiHashSet), decoding each token as UTF-8.
+ *
+ * The file is split into chunks at whitespace, and each chunk is memory-mapped
+ * and tokenized directly from its bytes. Worker threads claim chunks in turn
+ * and count their tokens into a set of their own, keyed by (@see ByteSlice)
+ * views of the mapped bytes, so a token that has been seen before is counted
+ * without allocating. A token's bytes are copied only the first time a worker
+ * sees it, and each distinct token is decoded into a String exactly once,
+ * after the workers' counts have been merged.
+ *
+ * The iteration order of the result is the order in which the merged worker
+ * sets first saw each token, not necessarily the order in the file.
+ */
+public class TokenCounter {
+
+    // Stores the default size of a chunk, in bytes
+    static final long CHUNK_SIZE = 64L << 20;
+
+    // Stores the initial capacity of the sets of the workers
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    // Stores the size of the buffer used to find chunk boundaries
+    private static final int BOUNDARY_BUFFER_SIZE = 1 << 12;
+
+    /**
+     * Counts the tokens of a file, using a worker per available processor.
+     *
+     * Time Complexity: O(n / p + d) where n is the size of the file, p is the
+     * number of workers and d is the number of distinct tokens, because the
+     * chunks are tokenized in parallel and then the counts are merged.
+     *
+     * Memory Complexity: O(p * d) because each worker keeps its own counts.
+     *
+     * @param file the file to count the tokens of.
+     * @return the count of each token.
+     * @throws IOException if the file cannot be read.
+     */
+    public static LinkedMultiHashSet<String> countTokens(Path file)
+            throws IOException {
+        return countTokens(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Counts the tokens of a file, using the given number of workers.
+     *
+     * @param file the file to count the tokens of.
+     * @param parallelism the number of worker threads, at least 1.
+     * @return the count of each token.
+     * @throws IOException if the file cannot be read.
+     */
+    public static LinkedMultiHashSet<String> countTokens(Path file,
+            int parallelism) throws IOException {
+        return countTokens(file, parallelism, CHUNK_SIZE);
+    }
+
+    /**
+     * Counts the tokens of a file, using the given number of workers and
+     * chunk size.
+     *
+     * @param file the file to count the tokens of.
+     * @param parallelism the number of worker threads, at least 1.
+     * @param chunkSize the approximate size of a chunk, in bytes.
+     * @return the count of each token.
+     * @throws IOException if the file cannot be read.
+     */
+    static LinkedMultiHashSet<String> countTokens(Path file, int parallelism,
+            long chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, chunkSize);
+            int workers = Math.min(parallelism, bounds.length - 1);
+            List<LinkedMultiHashSet<ByteSlice>> counts = new ArrayList<>();
+            if (workers <= 1) {
+                counts.add(countChunks(channel, bounds, new AtomicInteger()));
+            } else {
+                counts.addAll(countInParallel(channel, bounds, workers));
+            }
+            return merge(counts);
+        }
+    }
+
+    /**
+     * Splits the file into chunks of about chunkSize bytes, moving each
+     * boundary forward to just after a whitespace byte so that no token spans
+     * two chunks.
+     *
+     * Time Complexity: O(c + t) where c is the number of chunks and t is the
+     * total length of the tokens that the boundaries are moved past.
+     *
+     * Memory Complexity: O(c) because a boundary is stored per chunk.
+     *
+     * @param channel the file.
+     * @param chunkSize the approximate size of a chunk, in bytes.
+     * @return the boundaries, starting with 0 and ending with the file size,
+     *         where chunk i is [bounds[i], bounds[i + 1]).
+     * @throws IOException if the file cannot be read.
+     */
+    private static long[] chunkBounds(FileChannel channel, long chunkSize)
+            throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_BUFFER_SIZE);
+        long position = chunkSize;
+        while (position < size) {
+            // Move forward to just after the next whitespace byte
+            boolean found = false;
+            while (!found && position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                for (int i = 0; i < read && !found; i++) {
+                    position++;
+                    found = isWhitespace(buffer.get(i));
+                }
+            }
+            if (position - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE) {
+                throw new IOException("Token too long to map");
+            }
+            if (position < size) {
+                bounds.add(position);
+            }
+            position += chunkSize;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the chunks with a pool of worker threads.
+     *
+     * @param channel the file.
+     * @param bounds the boundaries of the chunks.
+     * @param workers the number of worker threads.
+     * @return the counts of each worker.
+     * @throws IOException if the file cannot be read.
+     */
+    private static List<LinkedMultiHashSet<ByteSlice>> countInParallel(
+            FileChannel channel, long[] bounds, int workers)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            AtomicInteger nextChunk = new AtomicInteger();
+            List<Future<LinkedMultiHashSet<ByteSlice>>> futures =
+                    new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(pool.submit(
+                        () -> countChunks(channel, bounds, nextChunk)));
+            }
+            List<LinkedMultiHashSet<ByteSlice>> counts = new ArrayList<>();
+            for (Future<LinkedMultiHashSet<ByteSlice>> future : futures) {
+                counts.add(future.get());
+            }
+            return counts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Claims chunks until there are none left, counting their tokens.
+     *
+     * Time Complexity: O(n) where n is the total size of the claimed chunks,
+     * because each byte is read once and hashed as it is read.
+     *
+     * Memory Complexity: O(d) where d is the number of distinct tokens in the
+     * claimed chunks.
+     *
+     * @param channel the file.
+     * @param bounds the boundaries of the chunks.
+     * @param nextChunk the index of the next unclaimed chunk.
+     * @return the counts of the tokens in the claimed chunks.
+     * @throws UncheckedIOException if the file cannot be read.
+     */
+    private static LinkedMultiHashSet<ByteSlice> countChunks(
+            FileChannel channel, long[] bounds, AtomicInteger nextChunk) {
+        LinkedMultiHashSet<ByteSlice> counts =
+                new LinkedMultiHashSet<>(INITIAL_CAPACITY, ByteSlice.STRATEGY);
+        ByteSlice view = new ByteSlice();
+        int chunk;
+        while ((chunk = nextChunk.getAndIncrement()) < bounds.length - 1) {
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        bounds[chunk], bounds[chunk + 1] - bounds[chunk]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int limit = buffer.limit(), start = -1, hash = 0;
+            for (int i = 0; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (isWhitespace(b)) {
+                    if (start >= 0) {
+                        count(counts, view.set(buffer, start, i - start, hash));
+                        start = -1;
+                    }
+                } else {
+                    if (start < 0) {
+                        start = i;
+                        hash = 0;
+                    }
+                    hash = ByteSlice.hash(hash, b);
+                }
+            }
+            if (start >= 0) {
+                count(counts, view.set(buffer, start, limit - start, hash));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts a token with a single probe, copying its bytes only if it has
+     * not been seen before.
+     *
+     * @param counts the counts of the tokens.
+     * @param token a view of the token.
+     */
+    private static void count(LinkedMultiHashSet<ByteSlice> counts,
+            ByteSlice token) {
+        counts.add(token, 1, ByteSlice::copy);
+    }
+
+    /**
+     * Merges the counts of the workers, decoding each distinct token once.
+     *
+     * Time Complexity: O(p * d) where p is the number of workers and d is the
+     * number of distinct tokens.
+     *
+     * Memory Complexity: O(d) because the merged counts are stored.
+     *
+     * @param counts the counts of each worker.
+     * @return the merged counts.
+     */
+    private static LinkedMultiHashSet<String> merge(
+            List<LinkedMultiHashSet<ByteSlice>> counts) {
+        LinkedMultiHashSet<ByteSlice> merged = counts.get(0);
+        for (int i = 1; i < counts.size(); i++) {
+            counts.get(i).forEachEntry(merged::add);
+        }
+        LinkedMultiHashSet<String> result = new LinkedMultiHashSet<>(
+                Math.max(1, merged.internalCapacity()));
+        merged.forEachEntry((token, count) -> result.add(token.toString(),
+                count));
+        return result;
+    }
+
+    /**
+     * Checks if a byte is an ASCII whitespace character, which separates
+     * tokens. UTF-8 never encodes other characters with these bytes.
+     *
+     * @param b the byte to check.
+     * @return true if b is whitespace, else false.
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' ||
+                b == 0x0B;
+    }
+}
@@ -0,0 +1,182 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class DaryHeapTest {
+
+    // Stores the supported arities
+    private static final int[] ARITIES = {2, 4, 8, 16};
+
+    @Test
+    public void testSortPrimitives() {
+        Random random = new Random(3506);
+        for (int arity : ARITIES) {
+            for (int n = 0; n < 300; n++) {
+                int[] ints = random.ints(n, -20, 20).toArray();
+                int[] expectedInts = ints.clone();
+                Arrays.sort(expectedInts);
+                long[] longs = random.longs(n).toArray();
+                long[] expectedLongs = longs.clone();
+                Arrays.sort(expectedLongs);
+
+                DaryHeap.heapsort(ints, arity);
+                DaryHeap.heapsort(longs, arity);
+
+                assertArrayEquals(expectedInts, ints);
+                assertArrayEquals(expectedLongs, longs);
+            }
+        }
+    }
+
+    @Test
+    public void testSortDoubles() {
+        double[] special = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, -1.5, 1.5};
+        Random random = new Random(3506);
+        for (int arity : ARITIES) {
+            for (int n = 0; n < 100; n++) {
+                double[] input = new double[n];
+                for (int i = 0; i < n; i++) {
+                    input[i] = special[random.nextInt(special.length)];
+                }
+                double[] expected = input.clone();
+                Arrays.sort(expected);
+
+                DaryHeap.heapsort(input, arity);
+
+                // Compares the bits, so -0.0 and 0.0 differ
+                for (int i = 0; i < n; i++) {
+                    assertEquals(Double.doubleToLongBits(expected[i]),
+                            Double.doubleToLongBits(input[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSortComparator() {
+        Random random = new Random(3506);
+        for (int arity : ARITIES) {
+            for (int n = 0; n < 300; n += 7) {
+                String[] input = random.ints(n, 0, 50)
+                        .mapToObj(Integer::toString).toArray(String[]::new);
+                String[] expected = input.clone();
+                Arrays.sort(expected, Comparator.reverseOrder());
+
+                DaryHeap.heapsort(input, arity, Comparator.reverseOrder());
+
+                assertArrayEquals(expected, input);
+            }
+        }
+    }
+
+    @Test
+    public void testSortAdversarialInputs() {
+        for (int arity : ARITIES) {
+            int n = 1000;
+            int[] ascending = new int[n];
+            int[] descending = new int[n];
+            int[] equal = new int[n];
+            for (int i = 0; i < n; i++) {
+                ascending[i] = i;
+                descending[i] = n - i;
+            }
+            int[] expected = descending.clone();
+            Arrays.sort(expected);
+
+            DaryHeap.heapsort(ascending, arity);
+            DaryHeap.heapsort(descending, arity);
+            DaryHeap.heapsort(equal, arity);
+
+            for (int i = 0; i < n; i++) {
+                assertEquals(i, ascending[i]);
+            }
+            assertArrayEquals(expected, descending);
+            assertArrayEquals(new int[n], equal);
+        }
+    }
+
+    @Test
+    public void testSortComparesLessThanQuaternaryHeapsort() {
+        Integer[] input = new Random(3506).ints(10000).boxed()
+                .toArray(Integer[]::new);
+        Integer[] quaternary = input.clone();
+        AtomicLong dary = new AtomicLong();
+        AtomicLong topDown = new AtomicLong();
+
+        DaryHeap.heapsort(input, 4, (a, b) -> {
+            dary.incrementAndGet();
+            return a.compareTo(b);
+        });
+        QuaternaryHeapsort.quaternaryHeapsort(quaternary, 0,
+                quaternary.length, (a, b) -> {
+                    topDown.incrementAndGet();
+                    return a.compareTo(b);
+                });
+
+        assertArrayEquals(quaternary, input);
+        // Bottom-up sifts save about one comparison per level
+        assertTrue(dary.get() + " >= " + topDown.get(),
+                dary.get() < topDown.get());
+    }
+
+    @Test
+    public void testQueue() {
+        Random random = new Random(3506);
+        for (int arity : ARITIES) {
+            DaryHeap<Integer> heap = new DaryHeap<>(arity);
+            PriorityQueue<Integer> expected = new PriorityQueue<>();
+            assertNull(heap.peek());
+            assertNull(heap.poll());
+            for (int i = 0; i < 5000; i++) {
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.poll(), heap.poll());
+                } else {
+                    int element = random.nextInt(100);
+                    heap.add(element);
+                    expected.add(element);
+                }
+                assertEquals(expected.size(), heap.size());
+                assertEquals(expected.peek(), heap.peek());
+            }
+            while (!expected.isEmpty()) {
+                assertEquals(expected.poll(), heap.poll());
+            }
+            assertTrue(heap.isEmpty());
+        }
+    }
+
+    @Test
+    public void testQueueComparator() {
+        DaryHeap<String> heap = new DaryHeap<>(8,
+                Comparator.comparing(String::length));
+
+        heap.add("ccc");
+        heap.add("a");
+        heap.add("bb");
+
+        assertEquals("a", heap.poll());
+        assertEquals("bb", heap.poll());
+        assertEquals("ccc", heap.poll());
+        assertNull(heap.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedArity() {
+        DaryHeap.heapsort(new int[] {2, 1}, 3);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testAddNull() {
+        new DaryHeap<Integer>(4).add(null);
+    }
+}
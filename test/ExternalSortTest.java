@@ -0,0 +1,134 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExternalSortTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testLinesInMemory() throws IOException {
+        Path input = write("pear\napple\n\nfig\nbanana");
+        Path output = folder.newFile().toPath();
+
+        new ExternalSort(1 << 20, 4).sortLines(input, output);
+
+        assertEquals("\napple\nbanana\nfig\npear\n", read(output));
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Path input = write("");
+        Path output = folder.newFile().toPath();
+
+        new ExternalSort(1 << 20, 4).sortLines(input, output);
+
+        assertEquals("", read(output));
+    }
+
+    @Test
+    public void testLinesSpilledAndMergedInPasses() throws IOException {
+        Random random = new Random(3506);
+        List<String> lines = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int j = random.nextInt(12); j > 0; j--) {
+                line.append((char) ('a' + random.nextInt(26)));
+            }
+            lines.add(line.toString());
+            content.append(line).append('\n');
+        }
+        Collections.sort(lines);
+        StringBuilder expected = new StringBuilder();
+        for (String line : lines) {
+            expected.append(line).append('\n');
+        }
+        File temp = folder.newFolder();
+        Path input = write(content.toString());
+        Path output = folder.newFile().toPath();
+
+        // Many small runs, merged two at a time
+        new ExternalSort(1 << 16, 2, 2, temp.toPath()).sortLines(input,
+                output);
+
+        assertEquals(expected.toString(), read(output));
+        assertEquals(0, temp.list().length);
+    }
+
+    @Test
+    public void testRecordsAreStable() throws IOException {
+        Random random = new Random(3506);
+        int n = 50000;
+        // A 4 byte key followed by the index of the record
+        ByteBuffer records = ByteBuffer.allocate(n * 8);
+        long[] expected = new long[n];
+        for (int i = 0; i < n; i++) {
+            int key = random.nextInt(100);
+            records.putInt(key).putInt(i);
+            expected[i] = ((long) key << 32) | i;
+        }
+        Arrays.sort(expected);
+        Path input = folder.newFile().toPath();
+        Files.write(input, records.array());
+        Path output = folder.newFile().toPath();
+
+        new ExternalSort(1 << 15, 3, 2, folder.newFolder().toPath())
+                .sortRecords(input, output, 8, 4);
+
+        ByteBuffer sorted = ByteBuffer.wrap(Files.readAllBytes(output));
+        for (int i = 0; i < n; i++) {
+            assertEquals(expected[i], sorted.getLong());
+        }
+        assertFalse(sorted.hasRemaining());
+    }
+
+    @Test
+    public void testMergeLines() throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        inputs.add(write("a\nc\ne\n"));
+        inputs.add(write("b\nc\n"));
+        inputs.add(write(""));
+        inputs.add(write("a\nd"));
+        File temp = folder.newFolder();
+        Path output = folder.newFile().toPath();
+
+        new ExternalSort(1 << 16, 2, 1, temp.toPath()).mergeLines(inputs,
+                output);
+
+        assertEquals("a\na\nb\nc\nc\nd\ne\n", read(output));
+        assertEquals(0, temp.list().length);
+        assertEquals("b\nc\n", read(inputs.get(1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedRecord() throws IOException {
+        Path input = write("abcdefg");
+        new ExternalSort(1 << 20, 4).sortRecords(input,
+                folder.newFile().toPath(), 4, 4);
+    }
+}
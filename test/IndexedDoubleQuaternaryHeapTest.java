@@ -0,0 +1,47 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IndexedDoubleQuaternaryHeapTest {
+
+    @Test
+    public void testPollOrder() {
+        Random random = new Random(3506);
+        int capacity = 1000;
+        IndexedDoubleQuaternaryHeap heap =
+                new IndexedDoubleQuaternaryHeap(capacity);
+        double[] expected = new double[capacity];
+        for (int id = 0; id < capacity; id++) {
+            expected[id] = random.nextGaussian();
+            heap.insert(id, expected[id]);
+        }
+        for (int id = 0; id < capacity; id += 3) {
+            expected[id] -= 1;
+            heap.decreaseKey(id, expected[id]);
+        }
+
+        double previous = Double.NEGATIVE_INFINITY;
+        while (!heap.isEmpty()) {
+            double priority = heap.peekPriority();
+            assertEquals(priority, expected[heap.poll()], 0.0);
+            assertTrue(previous <= priority);
+            previous = priority;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertNaN() {
+        new IndexedDoubleQuaternaryHeap(1).insert(0, Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecreaseKeyNaN() {
+        IndexedDoubleQuaternaryHeap heap = new IndexedDoubleQuaternaryHeap(1);
+        heap.insert(0, 1.0);
+
+        heap.decreaseKey(0, Double.NaN);
+    }
+}
@@ -0,0 +1,233 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IndexedLongQuaternaryHeapTest {
+
+    @Test
+    public void testPollOrder() {
+        IndexedLongQuaternaryHeap heap = new IndexedLongQuaternaryHeap(10);
+
+        heap.insert(7, 30);
+        heap.insert(2, 10);
+        heap.insert(5, 20);
+
+        assertEquals(2, heap.peek());
+        assertEquals(10, heap.peekPriority());
+        assertEquals(20, heap.priority(5));
+        assertEquals(2, heap.poll());
+        assertEquals(5, heap.poll());
+        assertEquals(7, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testPollEmpty() {
+        new IndexedLongQuaternaryHeap(1).poll();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertTwice() {
+        IndexedLongQuaternaryHeap heap = new IndexedLongQuaternaryHeap(1);
+        heap.insert(0, 1);
+
+        heap.insert(0, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncreaseKeyRejectsLess() {
+        IndexedLongQuaternaryHeap heap = new IndexedLongQuaternaryHeap(1);
+        heap.insert(0, 1);
+
+        heap.increaseKey(0, 0);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(3506);
+        int capacity = 500;
+        IndexedLongQuaternaryHeap heap =
+                new IndexedLongQuaternaryHeap(capacity);
+        long[] expected = new long[capacity];
+        boolean[] present = new boolean[capacity];
+        int size = 0;
+        for (int i = 0; i < 50000; i++) {
+            int id = random.nextInt(capacity);
+            int operation = random.nextInt(4);
+            if (!present[id]) {
+                expected[id] = random.nextInt(10000);
+                heap.insert(id, expected[id]);
+                present[id] = true;
+                size++;
+            } else if (operation == 0) {
+                long least = Long.MAX_VALUE;
+                for (int j = 0; j < capacity; j++) {
+                    if (present[j]) {
+                        least = Math.min(least, expected[j]);
+                    }
+                }
+                assertEquals(least, heap.peekPriority());
+                int polled = heap.poll();
+                assertEquals(least, expected[polled]);
+                present[polled] = false;
+                size--;
+            } else if (operation == 1) {
+                expected[id] -= random.nextInt(1000);
+                heap.decreaseKey(id, expected[id]);
+            } else if (operation == 2) {
+                expected[id] += random.nextInt(1000);
+                heap.increaseKey(id, expected[id]);
+            } else {
+                assertEquals(expected[id], heap.remove(id));
+                present[id] = false;
+                size--;
+            }
+            assertEquals(size, heap.size());
+            assertEquals(present[id], heap.contains(id));
+        }
+        long previous = Long.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            long priority = heap.peekPriority();
+            assertEquals(priority, expected[heap.poll()]);
+            assertTrue(previous <= priority);
+            previous = priority;
+        }
+    }
+
+    @Test
+    public void testDijkstra() {
+        Random random = new Random(3506);
+        int n = 300;
+        long[][] weights = new long[n][n];
+        for (long[] row : weights) {
+            Arrays.fill(row, -1);
+        }
+        for (int i = 0; i < 3000; i++) {
+            weights[random.nextInt(n)][random.nextInt(n)] =
+                    random.nextInt(100);
+        }
+
+        long[] distances = dijkstra(weights, 0);
+
+        // Bellman-Ford relaxes every edge until nothing changes
+        long[] expected = new long[n];
+        Arrays.fill(expected, Long.MAX_VALUE);
+        expected[0] = 0;
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int u = 0; u < n; u++) {
+                for (int v = 0; v < n; v++) {
+                    if (weights[u][v] >= 0 && expected[u] != Long.MAX_VALUE &&
+                            expected[u] + weights[u][v] < expected[v]) {
+                        expected[v] = expected[u] + weights[u][v];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        assertArrayEquals(expected, distances);
+    }
+
+    @Test
+    public void testOperationsDoNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() &&
+                threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+        int capacity = 100000;
+        IndexedLongQuaternaryHeap heap =
+                new IndexedLongQuaternaryHeap(capacity);
+        IndexedDoubleQuaternaryHeap doubles =
+                new IndexedDoubleQuaternaryHeap(capacity);
+        // Warms up the operations, so that they are compiled before measuring
+        for (int i = 0; i < 5; i++) {
+            exercise(heap, doubles);
+        }
+        threads.getThreadAllocatedBytes(thread);
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        long checksum = exercise(heap, doubles);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertFalse(checksum == 0);
+        // Allows a little for the measurement itself
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    /**
+     * Fills both queues, changes every priority and empties them.
+     *
+     * @param heap an empty queue of long priorities.
+     * @param doubles an empty queue of double priorities, of equal capacity.
+     * @return a checksum of the ids polled.
+     */
+    private static long exercise(IndexedLongQuaternaryHeap heap,
+            IndexedDoubleQuaternaryHeap doubles) {
+        int capacity = heap.capacity();
+        long checksum = 0;
+        for (int id = 0; id < capacity; id++) {
+            long priority = (id * 0x9E3779B97F4A7C15L) >>> 40;
+            heap.insert(id, priority);
+            doubles.insert(id, priority);
+        }
+        for (int id = 0; id < capacity; id += 2) {
+            heap.decreaseKey(id, heap.priority(id) - 7);
+            doubles.increaseKey(id, doubles.priority(id) + 7);
+        }
+        for (int id = 1; id < capacity; id += 4) {
+            heap.remove(id);
+            doubles.remove(id);
+        }
+        while (!heap.isEmpty()) {
+            checksum = checksum * 31 + heap.poll() + doubles.poll();
+        }
+        return checksum;
+    }
+
+    /**
+     * Finds the shortest distances from the source with Dijkstra's
+     * algorithm, decreasing the priority of a vertex as a shorter path to it
+     * is found.
+     *
+     * @param weights the weight of each edge, or -1 if there is none.
+     * @param source the source vertex.
+     * @return the distance to each vertex, or Long.MAX_VALUE if unreachable.
+     */
+    private static long[] dijkstra(long[][] weights, int source) {
+        int n = weights.length;
+        long[] distances = new long[n];
+        Arrays.fill(distances, Long.MAX_VALUE);
+        distances[source] = 0;
+        IndexedLongQuaternaryHeap heap = new IndexedLongQuaternaryHeap(n);
+        heap.insert(source, 0);
+        while (!heap.isEmpty()) {
+            int u = heap.poll();
+            for (int v = 0; v < n; v++) {
+                long distance = distances[u] + weights[u][v];
+                if (weights[u][v] < 0 || distance >= distances[v]) {
+                    continue;
+                }
+                distances[v] = distance;
+                if (heap.contains(v)) {
+                    heap.decreaseKey(v, distance);
+                } else {
+                    heap.insert(v, distance);
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,127 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IndexedQuaternaryHeapTest {
+
+    @Test
+    public void testPollOrder() {
+        IndexedQuaternaryHeap<String> heap = new IndexedQuaternaryHeap<>();
+        assertNull(heap.peek());
+        assertNull(heap.poll());
+        assertEquals(-1, heap.peekHandle());
+
+        int c = heap.insert("c");
+        int a = heap.insert("a");
+        heap.insert("b");
+
+        assertEquals(3, heap.size());
+        assertEquals(a, heap.peekHandle());
+        assertEquals("c", heap.get(c));
+        assertEquals("a", heap.poll());
+        assertEquals("b", heap.poll());
+        assertEquals("c", heap.poll());
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(c));
+    }
+
+    @Test
+    public void testDecreaseAndIncreaseKey() {
+        IndexedQuaternaryHeap<Integer> heap = new IndexedQuaternaryHeap<>(
+                Comparator.reverseOrder());
+        int[] handles = new int[100];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = heap.insert(i);
+        }
+
+        // In reverse order, a greater number is a decrease
+        heap.decreaseKey(handles[10], 1000);
+        heap.increaseKey(handles[99], -1);
+
+        assertEquals(Integer.valueOf(1000), heap.poll());
+        assertEquals(Integer.valueOf(98), heap.poll());
+        assertEquals(Integer.valueOf(-1), heap.remove(handles[99]));
+        assertEquals(97, heap.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecreaseKeyRejectsGreater() {
+        IndexedQuaternaryHeap<Integer> heap = new IndexedQuaternaryHeap<>();
+        int handle = heap.insert(5);
+
+        heap.decreaseKey(handle, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemovedHandle() {
+        IndexedQuaternaryHeap<Integer> heap = new IndexedQuaternaryHeap<>();
+        int handle = heap.insert(5);
+        heap.remove(handle);
+
+        heap.get(handle);
+    }
+
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(3506);
+        IndexedQuaternaryHeap<Integer> heap = new IndexedQuaternaryHeap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        List<Integer> handles = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int operation = random.nextInt(6);
+            if (operation < 2 || handles.isEmpty()) {
+                int element = random.nextInt(1000);
+                int handle = heap.insert(element);
+                assertFalse(expected.containsKey(handle));
+                expected.put(handle, element);
+                handles.add(handle);
+            } else {
+                int index = random.nextInt(handles.size());
+                int handle = handles.get(index);
+                int element = expected.get(handle);
+                if (operation == 2) {
+                    int least = expected.values().stream()
+                            .min(Integer::compare).get();
+                    assertEquals(Integer.valueOf(least), heap.peek());
+                    handle = heap.peekHandle();
+                    assertEquals(Integer.valueOf(least), heap.poll());
+                    expected.remove(handle);
+                    handles.remove(Integer.valueOf(handle));
+                } else if (operation == 3) {
+                    element -= random.nextInt(100);
+                    heap.decreaseKey(handle, element);
+                    expected.put(handle, element);
+                } else if (operation == 4) {
+                    element += random.nextInt(100);
+                    heap.increaseKey(handle, element);
+                    expected.put(handle, element);
+                } else {
+                    assertEquals(Integer.valueOf(element),
+                            heap.remove(handle));
+                    expected.remove(handle);
+                    handles.remove(index);
+                }
+            }
+            assertEquals(expected.size(), heap.size());
+        }
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), heap.get(entry.getKey()));
+        }
+        Integer previous = Integer.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            Integer element = heap.poll();
+            assertTrue(previous <= element);
+            previous = element;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Test;
+
+public class KWayMergeTest {
+
+    @Test
+    public void testEmpty() {
+        KWayMerge<Integer> merge = KWayMerge.of(
+                Collections.<Iterator<Integer>>emptyList(),
+                Comparator.naturalOrder());
+        assertFalse(merge.hasNext());
+
+        merge = KWayMerge.of(new Integer[][] {{}, {}, {}},
+                Comparator.naturalOrder());
+        assertFalse(merge.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testNextWhenExhausted() {
+        KWayMerge<Integer> merge = KWayMerge.of(new Integer[][] {{1}},
+                Comparator.naturalOrder());
+        merge.next();
+        merge.next();
+    }
+
+    @Test
+    public void testArrays() {
+        Integer[][] sources = {{1, 4, 9}, {}, {2, 3, 10, 11}, {0}, {5}};
+        KWayMerge<Integer> merge = KWayMerge.of(sources,
+                Comparator.naturalOrder());
+        List<Integer> merged = new ArrayList<>();
+        merge.forEachRemaining(merged::add);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 9, 10, 11), merged);
+    }
+
+    @Test
+    public void testIteratorsAreStableAndLogarithmic() {
+        Random random = new Random(3506);
+        for (int k : new int[] {1, 2, 3, 7, 64, 100}) {
+            // The high half is the key and the low half the source index
+            List<Iterator<Long>> sources = new ArrayList<>();
+            List<Long> expected = new ArrayList<>();
+            for (int s = 0; s < k; s++) {
+                List<Long> source = new ArrayList<>();
+                for (int i = random.nextInt(200); i > 0; i--) {
+                    source.add(((long) random.nextInt(50) << 32) | s);
+                }
+                Collections.sort(source);
+                expected.addAll(source);
+                sources.add(source.iterator());
+            }
+            Comparator<Long> byKey = Comparator.comparingLong(x -> x >>> 32);
+            // A stable sort of the concatenation keeps source order on ties
+            expected.sort(byKey);
+
+            int[] comparisons = {0};
+            KWayMerge<Long> merge = KWayMerge.of(sources, (a, b) -> {
+                comparisons[0]++;
+                return byKey.compare(a, b);
+            });
+            List<Long> merged = new ArrayList<>();
+            merge.forEachRemaining(merged::add);
+            assertEquals(expected, merged);
+
+            int levels = 32 - Integer.numberOfLeadingZeros(k - 1);
+            assertTrue(comparisons[0] <= (expected.size() + k) * levels);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 import static org.junit.Assert.*;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import org.junit.Test;
 
 public class LinkedMultiHashSetTest {
@@ -255,4 +258,284 @@ public class LinkedMultiHashSetTest {
         assertEquals("d", it.next());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testByteArrayStrategy() {
+        LinkedMultiHashSet<byte[]> set =
+                new LinkedMultiHashSet<>(5, HashingStrategy.byteArrays());
+
+        set.add(new byte[] {1, 2, 3});
+        set.add(new byte[] {1, 2, 3});
+        set.add(new byte[] {3, 2, 1});
+        assertEquals(2, set.count(new byte[] {1, 2, 3}));
+        assertEquals(1, set.count(new byte[] {3, 2, 1}));
+        assertEquals(2, set.distinctCount());
+
+        set.remove(new byte[] {1, 2, 3}, 2);
+        assertFalse(set.contains(new byte[] {1, 2, 3}));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testCharSequenceStrategy() {
+        LinkedMultiHashSet<CharSequence> set =
+                new LinkedMultiHashSet<>(5, HashingStrategy.charSequences());
+
+        set.add("token");
+        set.add(new StringBuilder("token"));
+        assertEquals(2, set.count("token"));
+        assertEquals(2, set.count(new StringBuilder("token")));
+        assertEquals(1, set.distinctCount());
+    }
+
+    @Test
+    public void testMinValueHash() {
+        LinkedMultiHashSet<Integer> set = new LinkedMultiHashSet<>(3,
+                new HashingStrategy<Integer>() {
+                    @Override
+                    public int hash(Integer key) {
+                        return Integer.MIN_VALUE;
+                    }
+
+                    @Override
+                    public boolean equivalent(Integer a, Integer b) {
+                        return a.equals(b);
+                    }
+                });
+
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        assertEquals(3, set.distinctCount());
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(3));
+    }
+
+    @Test
+    public void testMetrics() {
+        LinkedMultiHashSet<Integer> set = new LinkedMultiHashSet<>(4);
+        MultiSetMetrics.Snapshot snapshot = set.metricsSnapshot();
+        assertEquals(0, snapshot.probeCount(MultiSetMetrics.Operation.INSERT));
+
+        set.enableMetrics();
+        set.add(1);
+        set.add(2);
+        set.add(5);
+        set.remove(1);
+        snapshot = set.metricsSnapshot();
+        assertEquals(3, snapshot.probeCount(MultiSetMetrics.Operation.INSERT));
+        assertEquals(1, snapshot.probeCount(MultiSetMetrics.Operation.DISCARD));
+        assertEquals(1, snapshot.tombstones());
+        assertEquals(0.5, snapshot.loadFactor(), 1e-9);
+        assertEquals(0.75, snapshot.occupiedFactor(), 1e-9);
+        // 5 collides with 1, so probes 2 slots
+        assertEquals(1, snapshot.probeHistogram(
+                MultiSetMetrics.Operation.INSERT)[1]);
+
+        // 1 reuses the DEFUNCT slot
+        set.add(1);
+        assertEquals(0, set.metricsSnapshot().tombstones());
+
+        set.add(3);
+        set.add(4);
+        snapshot = set.metricsSnapshot();
+        assertEquals(1, snapshot.resizes());
+        assertEquals(8, set.internalCapacity());
+        // Rehashing is not recorded as lookups
+        assertEquals(0,
+                snapshot.probeCount(MultiSetMetrics.Operation.FIND_SLOT));
+        snapshot.commit();
+
+        set.disableMetrics();
+        set.add(6);
+        assertEquals(0, set.metricsSnapshot().resizes());
+    }
+
+    @Test
+    public void testSample() {
+        LinkedMultiHashSet<String> set = new LinkedMultiHashSet<>(2);
+        Random random = new Random(3506);
+
+        try {
+            set.sample(random);
+            fail();
+        } catch (NoSuchElementException e) {
+            // all good :)
+        }
+
+        set.add("a");
+        assertEquals("a", set.sample(random));
+
+        // Updates after the first sample must be reflected
+        set.add("b", 3);
+        set.add("c", 6);
+        set.remove("a");
+        int[] counts = new int[3];
+        for (int i = 0; i < 9000; i++) {
+            counts[set.sample(random).charAt(0) - 'a']++;
+        }
+        assertEquals(0, counts[0]);
+        assertEquals(3000, counts[1], 300);
+        assertEquals(6000, counts[2], 300);
+
+        set.remove("c", 6);
+        set.add("a", 2);
+        for (int i = 0; i < 100; i++) {
+            assertNotEquals("c", set.sample(random));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsWithSample() {
+        Random random = new Random(3506);
+        for (int trial = 0; trial < 2000; trial++) {
+            LinkedMultiHashSet<Integer> set =
+                    new LinkedMultiHashSet<>(1 + random.nextInt(8));
+            Map<Integer, Integer> expected = new HashMap<>();
+            int size = 0;
+            for (int i = 0; i < 200; i++) {
+                // Few keys, so that removes leave DEFUNCT entries in the
+                // probe chains of keys that are added again
+                int key = random.nextInt(12);
+                int operation = random.nextInt(3);
+                if (operation == 0) {
+                    set.add(key);
+                    expected.merge(key, 1, Integer::sum);
+                    size++;
+                } else if (operation == 1 && expected.containsKey(key)) {
+                    set.remove(key);
+                    expected.merge(key, -1, Integer::sum);
+                    expected.remove(key, 0);
+                    size--;
+                } else if (size > 0) {
+                    assertTrue(expected.containsKey(set.sample(random)));
+                }
+                assertEquals(size, set.size());
+                assertEquals(expected.size(), set.distinctCount());
+            }
+            for (int key = 0; key < 12; key++) {
+                assertEquals(expected.getOrDefault(key, 0).intValue(),
+                        set.count(key));
+                assertEquals(expected.containsKey(key), set.contains(key));
+            }
+        }
+    }
+
+    @Test
+    public void testAddWithCopier() {
+        LinkedMultiHashSet<StringBuilder> set = new LinkedMultiHashSet<>(4,
+                HashingStrategy.charSequences());
+        StringBuilder view = new StringBuilder("a");
+        int[] copies = new int[1];
+
+        for (int i = 0; i < 3; i++) {
+            set.add(view, 1, element -> {
+                copies[0]++;
+                return new StringBuilder(element);
+            });
+        }
+        // The view is reused, so the stored key must be the copy
+        view.setLength(0);
+        view.append("b");
+
+        assertEquals(1, copies[0]);
+        assertEquals(3, set.count(new StringBuilder("a")));
+        assertEquals(0, set.count(view));
+    }
+
+    @Test
+    public void testDefaultSample() {
+        MultiSet<String> set = new IterableMultiSet<>();
+        Random random = new Random(3506);
+        set.add("a", 1);
+        set.add("b", 2);
+
+        int[] counts = new int[2];
+        for (int i = 0; i < 3000; i++) {
+            counts[set.sample(random).charAt(0) - 'a']++;
+        }
+        assertEquals(1000, counts[0], 150);
+        assertEquals(2000, counts[1], 150);
+    }
+
+    @Test
+    public void testRemoveKeepsIterationOrder() {
+        LinkedMultiHashSet<Integer> set = new LinkedMultiHashSet<>(8);
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        // Remove from the middle, then the end
+        set.remove(2);
+        set.remove(3);
+        set.add(4, 2);
+
+        StringBuilder entries = new StringBuilder();
+        set.forEachEntry((key, count) -> entries.append(key).append('x')
+                .append(count).append(' '));
+        assertEquals("1x1 4x2 ", entries.toString());
+
+        Iterator<Integer> it = set.iterator();
+        assertEquals(1, (int) it.next());
+        assertEquals(4, (int) it.next());
+        assertEquals(4, (int) it.next());
+        assertFalse(it.hasNext());
+    }
+
+    // A MultiSet that does not override sample(), delegating everything else
+    // to a LinkedMultiHashSet
+    private static class IterableMultiSet<T> implements MultiSet<T>,
+            Iterable<T> {
+
+        // Stores the elements
+        private final LinkedMultiHashSet<T> set = new LinkedMultiHashSet<>(4);
+
+        @Override
+        public void add(T element) {
+            set.add(element);
+        }
+
+        @Override
+        public void add(T element, int count) {
+            set.add(element, count);
+        }
+
+        @Override
+        public boolean contains(T element) {
+            return set.contains(element);
+        }
+
+        @Override
+        public int count(T element) {
+            return set.count(element);
+        }
+
+        @Override
+        public void remove(T element) {
+            set.remove(element);
+        }
+
+        @Override
+        public void remove(T element, int count) {
+            set.remove(element, count);
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+
+        @Override
+        public int distinctCount() {
+            return set.distinctCount();
+        }
+
+        @Override
+        public int internalCapacity() {
+            return set.internalCapacity();
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return set.iterator();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+public class MultiQueueTest {
+
+    @Test
+    public void testSingleHeapIsExact() {
+        MultiQueue<Integer> queue = new MultiQueue<>(1,
+                Comparator.naturalOrder());
+        List<Integer> input = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            input.add(i);
+        }
+        Collections.shuffle(input);
+        for (Integer element : input) {
+            queue.add(element);
+        }
+
+        assertEquals(1000, queue.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRankError() {
+        int heaps = 16;
+        int n = 100000;
+        MultiQueue<Integer> queue = new MultiQueue<>(heaps,
+                Comparator.naturalOrder());
+        List<Integer> input = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            input.add(i);
+        }
+        Collections.shuffle(input);
+        for (Integer element : input) {
+            queue.add(element);
+        }
+
+        // The rank of an element is the number of smaller elements left
+        boolean[] polled = new boolean[n];
+        int least = 0;
+        long totalRank = 0;
+        int maxRank = 0;
+        for (int i = 0; i < n; i++) {
+            int element = queue.poll();
+            polled[element] = true;
+            int rank = 0;
+            for (int j = least; j < element; j++) {
+                if (!polled[j]) {
+                    rank++;
+                }
+            }
+            totalRank += rank;
+            maxRank = Math.max(maxRank, rank);
+            while (least < n && polled[least]) {
+                least++;
+            }
+        }
+
+        assertNull(queue.poll());
+        // O(q) on average and O(q log q) at worst
+        assertTrue("mean rank " + (double) totalRank / n,
+                totalRank < (long) 2 * heaps * n);
+        assertTrue("max rank " + maxRank, maxRank < 20 * heaps);
+    }
+
+    @Test
+    public void testConcurrentAddAndPoll() throws Exception {
+        int threads = 8;
+        int perThread = 20000;
+        MultiQueue<Integer> queue = new MultiQueue<>(2 * threads,
+                Comparator.naturalOrder());
+        AtomicIntegerArray seen = new AtomicIntegerArray(threads * perThread);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        queue.add(first + i);
+                        // Polls every other add, so the queue stays busy
+                        if (i % 2 == 1) {
+                            Integer element = queue.poll();
+                            if (element != null) {
+                                seen.incrementAndGet(element);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (Integer element; (element = queue.poll()) != null; ) {
+            seen.incrementAndGet(element);
+        }
+
+        for (int i = 0; i < seen.length(); i++) {
+            assertEquals("element " + i, 1, seen.get(i));
+        }
+        assertEquals(0, queue.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoHeaps() {
+        new MultiQueue<Integer>(0, Comparator.naturalOrder());
+    }
+}
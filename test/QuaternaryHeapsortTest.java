@@ -1,4 +1,14 @@
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -22,6 +32,133 @@ public class QuaternaryHeapsortTest {
         assertArrayEquals(new String[] { "a", "b", "c", "e", "z" }, input);
     }
     
+    @Test
+    public void testSortDuplicateChildren() {
+        // The root of a heap of three has children, so it must be heapified
+        Integer[] input = {3, 7, 7};
+
+        QuaternaryHeapsort.quaternaryHeapsort(input);
+
+        assertArrayEquals(new Integer[] {3, 7, 7}, input);
+    }
+
+    @Test
+    public void testSortRandom() {
+        Random random = new Random(3506);
+        for (int n = 0; n < 200; n++) {
+            Integer[] input = random.ints(n, 0, 10).boxed()
+                    .toArray(Integer[]::new);
+            Integer[] expected = input.clone();
+            Arrays.sort(expected);
+
+            QuaternaryHeapsort.quaternaryHeapsort(input);
+
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    @Test
+    public void testSortPrimitives() {
+        Random random = new Random(3506);
+        for (int n = 0; n < 200; n++) {
+            int[] ints = random.ints(n, -10, 10).toArray();
+            int[] expectedInts = ints.clone();
+            Arrays.sort(expectedInts);
+            long[] longs = random.longs(n).toArray();
+            long[] expectedLongs = longs.clone();
+            Arrays.sort(expectedLongs);
+
+            QuaternaryHeapsort.quaternaryHeapsort(ints);
+            QuaternaryHeapsort.quaternaryHeapsort(longs);
+
+            assertArrayEquals(expectedInts, ints);
+            assertArrayEquals(expectedLongs, longs);
+        }
+    }
+
+    @Test
+    public void testSortDoubles() {
+        double[] special = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, -1.5, 1.5};
+        Random random = new Random(3506);
+        for (int n = 0; n < 200; n++) {
+            double[] input = new double[n];
+            for (int i = 0; i < n; i++) {
+                input[i] = special[random.nextInt(special.length)];
+            }
+            double[] expected = input.clone();
+            Arrays.sort(expected);
+
+            QuaternaryHeapsort.quaternaryHeapsort(input);
+
+            // Compares the bits, so -0.0 and 0.0 differ
+            for (int i = 0; i < n; i++) {
+                assertEquals(Double.doubleToLongBits(expected[i]),
+                        Double.doubleToLongBits(input[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testSortFloats() {
+        float[] special = {Float.NaN, -0.0f, 0.0f, Float.NEGATIVE_INFINITY,
+                Float.POSITIVE_INFINITY, -1.5f, 1.5f};
+        Random random = new Random(3506);
+        for (int n = 0; n < 200; n++) {
+            float[] input = new float[n];
+            for (int i = 0; i < n; i++) {
+                input[i] = special[random.nextInt(special.length)];
+            }
+            float[] expected = input.clone();
+            Arrays.sort(expected);
+
+            QuaternaryHeapsort.quaternaryHeapsort(input);
+
+            // Compares the bits, so -0.0 and 0.0 differ
+            for (int i = 0; i < n; i++) {
+                assertEquals(Float.floatToIntBits(expected[i]),
+                        Float.floatToIntBits(input[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testSortDoesNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() &&
+                threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+        Random random = new Random(3506);
+        Integer[] objects = random.ints(100000).boxed()
+                .toArray(Integer[]::new);
+        int[] ints = random.ints(100000).toArray();
+        long[] longs = random.longs(100000).toArray();
+        double[] doubles = random.doubles(100000).toArray();
+        // Warms up the sorts, so that they are compiled before measuring
+        for (int i = 0; i < 5; i++) {
+            QuaternaryHeapsort.quaternaryHeapsort(objects.clone());
+            QuaternaryHeapsort.quaternaryHeapsort(ints.clone());
+            QuaternaryHeapsort.quaternaryHeapsort(longs.clone());
+            QuaternaryHeapsort.quaternaryHeapsort(doubles.clone());
+        }
+        threads.getThreadAllocatedBytes(thread);
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        QuaternaryHeapsort.quaternaryHeapsort(objects);
+        QuaternaryHeapsort.quaternaryHeapsort(ints);
+        QuaternaryHeapsort.quaternaryHeapsort(longs);
+        QuaternaryHeapsort.quaternaryHeapsort(doubles);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // A Comparable[4] per level of every downheap would be megabytes;
+        // allow a little for the measurement itself
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
     @Test
     public void testDownheap() {
         
@@ -82,4 +219,49 @@ public class QuaternaryHeapsortTest {
         assertArrayEquals(new Integer[] { 3, 0, 2, 1, 4, 10, 20, 30, 40 }, input);
     }
 
+    @Test
+    public void testSortRange() {
+        Integer[] input = {9, 5, 1, 100, 2, 0, 7, -1};
+
+        QuaternaryHeapsort.quaternaryHeapsort(input, 1, 7,
+                Comparator.naturalOrder());
+
+        assertArrayEquals(new Integer[] {9, 0, 1, 2, 5, 7, 100, -1}, input);
+    }
+
+    @Test
+    public void testSortRangeRandom() {
+        Random random = new Random(3506);
+        for (int n = 0; n < 100; n++) {
+            int[] input = random.ints(n, 0, 10).toArray();
+            int[] expected = input.clone();
+            Arrays.sort(expected);
+
+            QuaternaryHeapsort.quaternaryHeapsort(input, 0, n);
+
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    @Test
+    public void testSortMetrics() {
+        List<SortMetrics.Measurement> measurements = new ArrayList<>();
+        Integer[] input = new Random(3506).ints(1000).boxed()
+                .toArray(Integer[]::new);
+        Integer[] expected = input.clone();
+        Arrays.sort(expected);
+
+        SortMetrics.enable(measurements::add);
+        try {
+            QuaternaryHeapsort.quaternaryHeapsort(input);
+        } finally {
+            SortMetrics.disable();
+        }
+
+        assertArrayEquals(expected, input);
+        assertEquals(1, measurements.size());
+        assertEquals("quaternaryHeapsort", measurements.get(0).algorithm());
+        assertTrue(measurements.get(0).comparisons() > 1000);
+        assertTrue(measurements.get(0).swaps() >= 999);
+    }
 }
@@ -0,0 +1,144 @@
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class SortedMultiSetTest {
+
+    @Test
+    public void testBasicUsage() {
+        SortedMultiSet<Integer> set = new SortedMultiSet<>();
+
+        set.add(5);
+        set.add(5);
+        set.add(3, 4);
+        assertEquals(2, set.count(5));
+        assertEquals(4, set.count(3));
+        assertEquals(0, set.count(4));
+        assertEquals(6, set.size());
+        assertEquals(2, set.distinctCount());
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(4));
+
+        set.remove(3, 4);
+        assertFalse(set.contains(3));
+        assertEquals(2, set.size());
+        assertEquals(1, set.distinctCount());
+
+        try {
+            set.remove(5, 3);
+            fail();
+        } catch (NoSuchElementException e) {
+            // all good :)
+        }
+    }
+
+    @Test
+    public void testIterationOrder() {
+        SortedMultiSet<String> set = new SortedMultiSet<>();
+        set.add("c");
+        set.add("a", 2);
+        set.add("b");
+
+        Iterator<String> it = set.iterator();
+        assertEquals("a", it.next());
+        assertEquals("a", it.next());
+        assertEquals("b", it.next());
+        assertEquals("c", it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testOrderStatistics() {
+        SortedMultiSet<Integer> set = new SortedMultiSet<>();
+        for (int i = 0; i < 100; i++) {
+            set.add(i, i + 1);
+        }
+
+        // Total count of 0..9 is 1 + 2 + ... + 10
+        assertEquals(55, set.rank(10));
+        assertEquals(55 + 11, set.rangeCount(10, 10) + set.rank(10));
+        assertEquals(0, set.rangeCount(20, 10));
+        assertEquals(11 + 12 + 13, set.rangeCount(10, 12));
+        assertEquals(Integer.valueOf(0), set.select(0));
+        assertEquals(Integer.valueOf(10), set.select(55));
+        assertEquals(Integer.valueOf(9), set.select(54));
+        assertEquals(Integer.valueOf(99), set.select(set.size() - 1));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        SortedMultiSet<Integer> set = new SortedMultiSet<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        Random random = new Random(3506);
+
+        for (int op = 0; op < 200000; op++) {
+            int key = random.nextInt(2000);
+            int current = expected.getOrDefault(key, 0);
+            if (random.nextInt(3) > 0 || current == 0) {
+                int count = random.nextInt(3) + 1;
+                set.add(key, count);
+                expected.put(key, current + count);
+            } else {
+                int count = random.nextInt(current) + 1;
+                set.remove(key, count);
+                if (count == current) {
+                    expected.remove(key);
+                } else {
+                    expected.put(key, current - count);
+                }
+            }
+        }
+
+        assertEquals(expected.size(), set.distinctCount());
+        int total = 0;
+        List<Integer> keys = new ArrayList<>();
+        for (int key : expected.keySet()) {
+            assertEquals(total, set.rank(key));
+            assertEquals(Integer.valueOf(key), set.select(total));
+            total += expected.get(key);
+            assertEquals((int) expected.get(key), set.count(key));
+        }
+        assertEquals(total, set.size());
+
+        set.forEachEntry((key, count) -> keys.add(key));
+        assertEquals(new ArrayList<>(expected.keySet()), keys);
+
+        int iterated = 0;
+        Integer previous = Integer.MIN_VALUE;
+        for (Integer key : set) {
+            assertTrue(previous <= key);
+            previous = key;
+            iterated++;
+        }
+        assertEquals(total, iterated);
+
+        // Remove everything
+        for (int key : expected.keySet()) {
+            set.remove(key, expected.get(key));
+        }
+        assertEquals(0, set.size());
+        assertEquals(0, set.distinctCount());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void testSample() {
+        SortedMultiSet<String> set = new SortedMultiSet<>();
+        set.add("a", 1);
+        set.add("b", 3);
+        Random random = new Random(3506);
+        int bs = 0;
+        for (int i = 0; i < 4000; i++) {
+            if (set.sample(random).equals("b")) {
+                bs++;
+            }
+        }
+        assertEquals(3000, bs, 200);
+    }
+}
@@ -1,7 +1,14 @@
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.*;
 
@@ -128,4 +135,847 @@ public class SortingAlgorithmsSampleTest {
 
         assertArrayEquals(toSort, sortedAscending);
     }
-}
\ No newline at end of file
+
+    /* ------------------------------ PRIMITIVES ---------------------------- */
+
+    private static final double[] SPECIAL_DOUBLES = {3.5, -0.0, Double.NaN,
+            0.0, -1.0, Double.NEGATIVE_INFINITY, 0.0, -0.0, Double.NaN, 2.0,
+            Double.POSITIVE_INFINITY, -0.0};
+
+    @Test
+    public void testPrimitiveIntSorts() {
+        int[] input = new Random(3506).ints(500, -100, 100)
+                .toArray();
+        int[] expected = input.clone();
+        Arrays.sort(expected);
+
+        int[] toSort = input.clone();
+        SortingAlgorithms.selectionSort(toSort, false);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.insertionSort(toSort, false);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.mergeSort(toSort, false);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.quickSort(toSort, false);
+        assertArrayEquals(expected, toSort);
+
+        toSort = input.clone();
+        SortingAlgorithms.quickSort(toSort, true);
+        for (int i = 0; i < toSort.length; i++) {
+            assertEquals(expected[expected.length - 1 - i], toSort[i]);
+        }
+    }
+
+    @Test
+    public void testPrimitiveLongSorts() {
+        long[] input = new Random(3506).longs(500).toArray();
+        long[] expected = input.clone();
+        Arrays.sort(expected);
+
+        long[] toSort = input.clone();
+        SortingAlgorithms.insertionSort(toSort, false);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.mergeSort(toSort, false);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.quickSort(toSort, false);
+        assertArrayEquals(expected, toSort);
+    }
+
+    @Test
+    public void testPrimitiveDoubleSortsOrderNaNAndZeros() {
+        double[] expected = SPECIAL_DOUBLES.clone();
+        Arrays.sort(expected);
+
+        double[] toSort = SPECIAL_DOUBLES.clone();
+        SortingAlgorithms.selectionSort(toSort, false);
+        assertArrayEquals(expected, toSort, 0);
+        toSort = SPECIAL_DOUBLES.clone();
+        SortingAlgorithms.insertionSort(toSort, false);
+        assertArrayEquals(expected, toSort, 0);
+        toSort = SPECIAL_DOUBLES.clone();
+        SortingAlgorithms.mergeSort(toSort, false);
+        assertArrayEquals(expected, toSort, 0);
+        toSort = SPECIAL_DOUBLES.clone();
+        SortingAlgorithms.quickSort(toSort, false);
+        assertArrayEquals(expected, toSort, 0);
+        // assertArrayEquals treats -0.0 and 0.0 as equal
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]),
+                    Double.doubleToRawLongBits(toSort[i]));
+        }
+
+        toSort = SPECIAL_DOUBLES.clone();
+        SortingAlgorithms.mergeSort(toSort, true);
+        for (int i = 0; i < toSort.length; i++) {
+            assertEquals(
+                    Double.doubleToRawLongBits(expected[expected.length - 1 - i]),
+                    Double.doubleToRawLongBits(toSort[i]));
+        }
+    }
+
+    @Test
+    public void testPrimitiveFloatSortsOrderNaNAndZeros() {
+        float[] input = new float[SPECIAL_DOUBLES.length];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (float) SPECIAL_DOUBLES[i];
+        }
+        float[] expected = input.clone();
+        Arrays.sort(expected);
+
+        float[] toSort = input.clone();
+        SortingAlgorithms.quickSort(toSort, false);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Float.floatToRawIntBits(expected[i]),
+                    Float.floatToRawIntBits(toSort[i]));
+        }
+        toSort = input.clone();
+        SortingAlgorithms.insertionSort(toSort, false);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Float.floatToRawIntBits(expected[i]),
+                    Float.floatToRawIntBits(toSort[i]));
+        }
+    }
+
+    /* ----------------------------- COMPARATORS ---------------------------- */
+
+    @Test
+    public void testComparatorSortsByKey() {
+        String[] byLength = {"ccc", "a", "bb", "dddd", "e"};
+        String[] expected = {"a", "e", "bb", "ccc", "dddd"};
+        Comparator<String> length = Comparator.comparingInt(String::length);
+
+        String[] toSort = byLength.clone();
+        SortingAlgorithms.insertionSort(toSort, length);
+        assertArrayEquals(expected, toSort);
+        toSort = byLength.clone();
+        SortingAlgorithms.mergeSort(toSort, length);
+        assertArrayEquals(expected, toSort);
+        toSort = byLength.clone();
+        SortingAlgorithms.selectionSort(toSort, length.reversed());
+        assertEquals("dddd", toSort[0]);
+        toSort = byLength.clone();
+        SortingAlgorithms.quickSort(toSort, length);
+        assertEquals("dddd", toSort[4]);
+        assertEquals(1, toSort[0].length());
+    }
+
+    @Test
+    public void testMergeSortIsStable() {
+        String[] input = {"b1", "a1", "b2", "a2", "b3", "a3"};
+        Comparator<String> first = Comparator.comparing(x -> x.charAt(0));
+
+        SortingAlgorithms.mergeSort(input, first);
+        assertArrayEquals(new String[] {"a1", "a2", "a3", "b1", "b2", "b3"},
+                input);
+
+        input = new String[] {"b1", "a1", "b2", "a2", "b3", "a3"};
+        SortingAlgorithms.mergeSort(input, first.reversed());
+        assertArrayEquals(new String[] {"b1", "b2", "b3", "a1", "a2", "a3"},
+                input);
+    }
+
+    /* ------------------------------ INTROSORT ----------------------------- */
+
+    private static Integer[][] adversarialInputs(int n) {
+        Integer[] ascending = new Integer[n], descending = new Integer[n],
+                equal = new Integer[n], organPipe = new Integer[n],
+                fewUnique = new Integer[n];
+        Random random = new Random(3506);
+        for (int i = 0; i < n; i++) {
+            ascending[i] = i;
+            descending[i] = n - i;
+            equal[i] = 7;
+            organPipe[i] = Math.min(i, n - i);
+            fewUnique[i] = random.nextInt(4);
+        }
+        return new Integer[][] {ascending, descending, equal, organPipe,
+                fewUnique};
+    }
+
+    @Test
+    public void testQuickSortAdversarialInputs() {
+        for (Integer[] input : adversarialInputs(200000)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected);
+            SortingAlgorithms.quickSort(input, false);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    @Test
+    public void testPrimitiveQuickSortAdversarialInputs() {
+        for (Integer[] boxed : adversarialInputs(200000)) {
+            int[] input = new int[boxed.length];
+            double[] doubles = new double[boxed.length];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = boxed[i];
+                doubles[i] = boxed[i];
+            }
+            int[] expected = input.clone();
+            Arrays.sort(expected);
+            SortingAlgorithms.quickSort(input, false);
+            assertArrayEquals(expected, input);
+
+            double[] expectedDoubles = doubles.clone();
+            Arrays.sort(expectedDoubles);
+            SortingAlgorithms.quickSort(doubles, false);
+            assertArrayEquals(expectedDoubles, doubles, 0);
+        }
+    }
+
+    @Test
+    public void testQuickSortRandom() {
+        Random random = new Random(3506);
+        for (int n = 0; n < 300; n += 7) {
+            Integer[] input = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                input[i] = random.nextInt(n + 1);
+            }
+            Integer[] expected = input.clone();
+            Arrays.sort(expected, Comparator.reverseOrder());
+            SortingAlgorithms.quickSort(input, true);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    /* ------------------------- PARALLEL MERGE SORT ------------------------ */
+
+    @Test
+    public void testParallelMergeSortIsStable() {
+        Random random = new Random(3506);
+        // Keys are the high bits, original positions the low bits
+        Long[] input = new Long[300000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = ((long) random.nextInt(1000) << 32) | i;
+        }
+        Comparator<Long> byKey = Comparator.comparingLong(x -> x >>> 32);
+        Long[] expected = input.clone();
+        Arrays.sort(expected, byKey);
+
+        Long[] toSort = input.clone();
+        SortingAlgorithms.parallelMergeSort(toSort, byKey);
+        assertArrayEquals(expected, toSort);
+
+        toSort = input.clone();
+        SortingAlgorithms.mergeSort(toSort, byKey);
+        assertArrayEquals(expected, toSort);
+    }
+
+    @Test
+    public void testParallelMergeSortPresortedAndReversed() {
+        for (Integer[] input : adversarialInputs(100000)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected, Comparator.reverseOrder());
+            SortingAlgorithms.parallelMergeSort(input, true);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    /* ------------------------- IN-PLACE MERGE SORT ------------------------ */
+
+    @Test
+    public void testInPlaceMergeSortIsStable() {
+        Random random = new Random(3506);
+        Comparator<Long> byKey = Comparator.comparingLong(x -> x >>> 32);
+        for (int n : new int[] {0, 1, 33, 1000, 50000}) {
+            Long[] input = new Long[n];
+            for (int i = 0; i < n; i++) {
+                input[i] = ((long) random.nextInt(100) << 32) | i;
+            }
+            Long[] expected = input.clone();
+            Arrays.sort(expected, byKey);
+
+            Long[] toSort = input.clone();
+            SortingAlgorithms.inPlaceMergeSort(toSort, byKey);
+            assertArrayEquals(expected, toSort);
+            // Every buffer length, from none to enough for plain merges
+            for (int length : new int[] {0, 1, 7, n / 2}) {
+                Object[] buffer = new Object[length];
+                toSort = input.clone();
+                SortingAlgorithms.inPlaceMergeSort(toSort, byKey, buffer);
+                assertArrayEquals(expected, toSort);
+                for (Object element : buffer) {
+                    assertNull(element);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInPlaceMergeSortAdversarialInputs() {
+        for (Integer[] input : adversarialInputs(100000)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected, Comparator.reverseOrder());
+            Integer[] toSort = input.clone();
+            SortingAlgorithms.inPlaceMergeSort(toSort, true);
+            assertArrayEquals(expected, toSort);
+            SortingAlgorithms.inPlaceMergeSort(input,
+                    Comparator.reverseOrder(), new Object[0]);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    /* ------------------------------- TIMSORT ------------------------------ */
+
+    @Test
+    public void testTimSortRandomIsStable() {
+        Random random = new Random(3506);
+        Comparator<Long> byKey = Comparator.comparingLong(x -> x >>> 32);
+        for (int n : new int[] {0, 1, 31, 32, 65, 1000, 100000}) {
+            Long[] input = new Long[n];
+            for (int i = 0; i < n; i++) {
+                input[i] = ((long) random.nextInt(50) << 32) | i;
+            }
+            Long[] expected = input.clone();
+            Arrays.sort(expected, byKey);
+            SortingAlgorithms.timSort(input, byKey);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    @Test
+    public void testTimSortAdversarialInputs() {
+        for (Integer[] input : adversarialInputs(100000)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected);
+            SortingAlgorithms.timSort(input, false);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    @Test
+    public void testTimSortNearlySortedIsLinear() {
+        int n = 100000;
+        Integer[] input = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            input[i] = i;
+        }
+        // A few small reorderings, as in an append-only log
+        Random random = new Random(3506);
+        for (int k = 0; k < 10; k++) {
+            int i = random.nextInt(n - 1);
+            Integer temp = input[i];
+            input[i] = input[i + 1];
+            input[i + 1] = temp;
+        }
+        Integer[] expected = input.clone();
+        Arrays.sort(expected);
+
+        int[] comparisons = {0};
+        SortingAlgorithms.timSort(input, (a, b) -> {
+            comparisons[0]++;
+            return a.compareTo(b);
+        });
+        assertArrayEquals(expected, input);
+        assertTrue(comparisons[0] < 3 * n);
+
+        // A descending array is a single run
+        comparisons[0] = 0;
+        Integer[] descending = adversarialInputs(n)[1];
+        SortingAlgorithms.timSort(descending, (a, b) -> {
+            comparisons[0]++;
+            return a.compareTo(b);
+        });
+        assertEquals(n - 1, comparisons[0]);
+    }
+
+    /* ----------------------------- RADIX SORT ----------------------------- */
+
+    @Test
+    public void testRadixSortIntsAndLongs() {
+        Random random = new Random(3506);
+        for (int n : new int[] {0, 1, 2, 100, 100000}) {
+            int[] ints = random.ints(n).toArray();
+            if (n > 0) {
+                ints[0] = Integer.MIN_VALUE;
+            }
+            int[] expectedInts = ints.clone();
+            Arrays.sort(expectedInts);
+            SortingAlgorithms.radixSort(ints, false);
+            assertArrayEquals(expectedInts, ints);
+
+            // Timestamps only differ in their low bytes
+            long[] longs = random.longs(n, 1_600_000_000_000L,
+                    1_600_000_100_000L).toArray();
+            if (n > 2) {
+                longs[1] = Long.MIN_VALUE;
+                longs[2] = Long.MAX_VALUE;
+            }
+            long[] expectedLongs = longs.clone();
+            Arrays.sort(expectedLongs);
+            SortingAlgorithms.radixSort(longs, false);
+            assertArrayEquals(expectedLongs, longs);
+        }
+
+        int[] input = {3, -1, 0, Integer.MAX_VALUE, -7, Integer.MIN_VALUE};
+        SortingAlgorithms.radixSort(input, true);
+        assertArrayEquals(new int[] {Integer.MAX_VALUE, 3, 0, -1, -7,
+                Integer.MIN_VALUE}, input);
+    }
+
+    @Test
+    public void testRadixSortStrings() {
+        String[] input = sortedAscending.clone();
+        Collections.shuffle(Arrays.asList(input), new Random(3506));
+        SortingAlgorithms.radixSort(input, false);
+        assertArrayEquals(sortedAscending, input);
+
+        // Long common prefixes, duplicates, empty and non-ASCII strings
+        Random random = new Random(3506);
+        String[] words = new String[20000];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder("prefix/");
+            for (int j = random.nextInt(6); j > 0; j--) {
+                word.append("ab\u00e9\uffff".charAt(random.nextInt(4)));
+            }
+            words[i] = random.nextInt(10) == 0 ? "" : word.toString();
+        }
+        String[] expected = words.clone();
+        Arrays.sort(expected, Comparator.reverseOrder());
+        SortingAlgorithms.radixSort(words, true);
+        assertArrayEquals(expected, words);
+    }
+
+    @Test
+    public void testRadixSortStringsStructuredInputs() {
+        // Sorted, reversed, organ pipe and sawtooth first characters, and
+        // strings that share a prefix of 2000 characters
+        int n = 5000;
+        char[] prefix = new char[2000];
+        Arrays.fill(prefix, 'x');
+        String[][] inputs = new String[5][n];
+        for (int i = 0; i < n; i++) {
+            inputs[0][i] = (char) i + "a";
+            inputs[1][i] = (char) (n - i) + "b";
+            inputs[2][i] = (char) Math.min(i, n - i) + "c";
+            inputs[3][i] = (char) (i % 64) + "d" + i;
+            inputs[4][i] = new String(prefix) + (char) (i % 7) + (n - i);
+        }
+        for (String[] input : inputs) {
+            String[] expected = input.clone();
+            Arrays.sort(expected);
+            SortingAlgorithms.radixSort(input, false);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    @Test
+    public void testRadixSortByKeyIsStable() {
+        Random random = new Random(3506);
+        for (boolean reversed : new boolean[] {false, true}) {
+            Long[] input = new Long[100000];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = ((long) (random.nextInt(1000) - 500) << 32) | i;
+            }
+            // The high half is the key and the low half the original index
+            Comparator<Long> byKey = Comparator.comparingLong(x -> x >> 32);
+            Long[] expected = input.clone();
+            Arrays.sort(expected, reversed ? (a, b) -> byKey.compare(b, a)
+                    : byKey);
+            SortingAlgorithms.radixSort(input, x -> (int) (x >> 32), reversed);
+            assertArrayEquals(expected, input);
+        }
+
+        String[] input = {"ccc", "a", "bb", "dd", "e"};
+        SortingAlgorithms.radixSort(input, String::length, false);
+        assertArrayEquals(new String[] {"a", "e", "bb", "dd", "ccc"}, input);
+    }
+
+    /* ------------------------ SELECTION AND RANGES ------------------------ */
+
+    @Test
+    public void testSelect() {
+        Random random = new Random(3506);
+        for (Integer[] input : adversarialInputs(10000)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected);
+            for (int trial = 0; trial < 5; trial++) {
+                int nth = random.nextInt(input.length);
+                assertEquals(expected[nth],
+                        SortingAlgorithms.select(input, nth, false));
+                for (int i = 0; i < input.length; i++) {
+                    int cmp = input[i].compareTo(input[nth]);
+                    assertTrue(i < nth ? cmp <= 0 : i == nth || cmp >= 0);
+                }
+            }
+        }
+        Integer[] median = {5, 1, 4, 2, 3};
+        assertEquals(Integer.valueOf(3), SortingAlgorithms.select(median, 2,
+                false));
+        assertEquals(Integer.valueOf(5), SortingAlgorithms.select(median, 0,
+                true));
+    }
+
+    @Test
+    public void testPartialSort() {
+        for (Integer[] input : adversarialInputs(10000)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected, Comparator.reverseOrder());
+            for (int k : new int[] {0, 1, 100, input.length}) {
+                Integer[] toSort = input.clone();
+                SortingAlgorithms.partialSort(toSort, k, true);
+                assertArrayEquals(Arrays.copyOf(expected, k),
+                        Arrays.copyOf(toSort, k));
+            }
+        }
+    }
+
+    @Test
+    public void testRangeSorts() {
+        Random random = new Random(3506);
+        Integer[] input = random.ints(2000, 0, 100).boxed()
+                .toArray(Integer[]::new);
+        int from = 300, to = 1700;
+        Integer[] expected = input.clone();
+        Arrays.sort(expected, from, to);
+        Comparator<Integer> natural = Comparator.naturalOrder();
+        Integer[] toSort = input.clone();
+        SortingAlgorithms.selectionSort(toSort, from, to, natural);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.insertionSort(toSort, from, to, natural);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.mergeSort(toSort, from, to, natural);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.parallelMergeSort(toSort, from, to, natural);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.timSort(toSort, from, to, natural);
+        assertArrayEquals(expected, toSort);
+        toSort = input.clone();
+        SortingAlgorithms.quickSort(toSort, from, to, natural);
+        assertArrayEquals(expected, toSort);
+
+        double[] doubles = random.doubles(2000, -1, 1).toArray();
+        doubles[500] = Double.NaN;
+        doubles[501] = -0.0;
+        doubles[502] = 0.0;
+        doubles[from - 1] = Double.NaN;
+        double[] expectedDoubles = doubles.clone();
+        Arrays.sort(expectedDoubles, from, to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            double temp = expectedDoubles[i];
+            expectedDoubles[i] = expectedDoubles[j];
+            expectedDoubles[j] = temp;
+        }
+        double[] toSortDoubles = doubles.clone();
+        SortingAlgorithms.quickSort(toSortDoubles, from, to, true);
+        assertArrayEquals(expectedDoubles, toSortDoubles, 0);
+        toSortDoubles = doubles.clone();
+        SortingAlgorithms.mergeSort(toSortDoubles, from, to, true);
+        assertArrayEquals(expectedDoubles, toSortDoubles, 0);
+
+        int[] ints = random.ints(2000).toArray();
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts, from, to);
+        SortingAlgorithms.insertionSort(ints, from, to, false);
+        assertArrayEquals(expectedInts, ints);
+    }
+
+    /* ---------------------------- KEY CACHING ----------------------------- */
+
+    @Test
+    public void testSortByKeyExtractsEachKeyOnce() {
+        Random random = new Random(3506);
+        Integer[] input = random.ints(10000, -1000, 1000).boxed()
+                .toArray(Integer[]::new);
+        Integer[] expected = input.clone();
+        Arrays.sort(expected, Comparator.comparing(x -> Integer.toString(x)));
+
+        int[] extractions = {0};
+        SortingAlgorithms.sortByKey(input, x -> {
+            extractions[0]++;
+            return Integer.toString(x);
+        }, false);
+        assertArrayEquals(expected, input);
+        assertEquals(input.length, extractions[0]);
+    }
+
+    @Test
+    public void testSortByLongAndDoubleKeyIsStable() {
+        Random random = new Random(3506);
+        for (boolean reversed : new boolean[] {false, true}) {
+            Long[] input = new Long[10000];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = ((long) (random.nextInt(100) - 50) << 32) | i;
+            }
+            Comparator<Long> byKey = Comparator.comparingLong(x -> x >> 32);
+            Long[] expected = input.clone();
+            Arrays.sort(expected, reversed ? (a, b) -> byKey.compare(b, a)
+                    : byKey);
+
+            Long[] toSort = input.clone();
+            SortingAlgorithms.sortByLongKey(toSort, x -> x >> 32, reversed);
+            assertArrayEquals(expected, toSort);
+
+            toSort = input.clone();
+            SortingAlgorithms.sortByDoubleKey(toSort,
+                    x -> (x >> 32) / 4.0, reversed);
+            assertArrayEquals(expected, toSort);
+        }
+
+        Double[] specials = {1.5, Double.NaN, -0.0, Double.NEGATIVE_INFINITY,
+                0.0, -2.5, Double.POSITIVE_INFINITY};
+        Double[] expected = specials.clone();
+        Arrays.sort(expected);
+        SortingAlgorithms.sortByDoubleKey(specials, x -> x, false);
+        assertArrayEquals(expected, specials);
+    }
+
+    /* ------------------------ PARALLEL SAMPLE SORT ------------------------ */
+
+    @Test
+    public void testParallelSampleSort() {
+        for (Integer[] input : adversarialInputs(200000)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected);
+            SortingAlgorithms.parallelSampleSort(input, false);
+            assertArrayEquals(expected, input);
+        }
+
+        Random random = new Random(3506);
+        for (int n : new int[] {0, 1, 100, SampleSort.SEQUENTIAL_THRESHOLD + 1,
+                1000000}) {
+            // Few distinct values, so that most elements equal a splitter
+            String[] input = new String[n];
+            for (int i = 0; i < n; i++) {
+                input[i] = "key" + random.nextInt(20);
+            }
+            String[] expected = input.clone();
+            Arrays.sort(expected, Comparator.reverseOrder());
+            SortingAlgorithms.parallelSampleSort(input,
+                    Comparator.reverseOrder());
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    /* ------------------------ BRANCHLESS QUICK SORT ----------------------- */
+
+    @Test
+    public void testSortingNetworks() {
+        // A network sorts every input if it sorts every input of 0s and 1s
+        for (int n = 0; n <= BranchlessSort.NETWORK_THRESHOLD; n++) {
+            int[] network = BranchlessSort.network(n);
+            for (int bits = 0; bits < 1 << n; bits++) {
+                int[] input = new int[n];
+                for (int i = 0; i < n; i++) {
+                    input[i] = (bits >>> i) & 1;
+                }
+                for (int c = 0; c < network.length; c += 2) {
+                    int a = input[network[c]], b = input[network[c + 1]];
+                    input[network[c]] = Math.min(a, b);
+                    input[network[c + 1]] = Math.max(a, b);
+                }
+                for (int i = 1; i < n; i++) {
+                    assertTrue(input[i - 1] <= input[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBranchlessQuickSort() {
+        Random random = new Random(3506);
+        for (int trial = 0; trial < 500; trial++) {
+            int n = random.nextInt(2000);
+            // Few distinct values every third trial
+            int bound = trial % 3 == 0 ? 3 : Integer.MAX_VALUE;
+            int[] ints = random.ints(n, 0, bound).toArray();
+            int[] expectedInts = ints.clone();
+            Arrays.sort(expectedInts);
+            SortingAlgorithms.quickSort(ints, false);
+            assertArrayEquals(expectedInts, ints);
+
+            float[] floats = new float[n];
+            for (int i = 0; i < n; i++) {
+                floats[i] = random.nextInt(bound) - bound / 2f;
+            }
+            if (n > 2) {
+                floats[0] = Float.NaN;
+                floats[1] = -0.0f;
+                floats[2] = 0.0f;
+            }
+            float[] expectedFloats = floats.clone();
+            Arrays.sort(expectedFloats);
+            SortingAlgorithms.quickSort(floats, false);
+            assertArrayEquals(expectedFloats, floats, 0);
+        }
+
+        for (Integer[] boxed : adversarialInputs(100000)) {
+            int[] input = new int[boxed.length];
+            for (int i = 0; i < input.length; i++) {
+                input[i] = boxed[i];
+            }
+            int[] expected = input.clone();
+            Arrays.sort(expected);
+            SortingAlgorithms.quickSort(input, false);
+            assertArrayEquals(expected, input);
+        }
+    }
+
+    @Test
+    public void testAdaptiveSort() {
+        Random random = new Random(4317);
+        Comparator<Integer> byHash = Comparator.comparingInt(x -> x * 31 % 97);
+        Integer[] tiny = random.ints(20).boxed().toArray(Integer[]::new);
+        Integer[] nearlySorted = new Integer[5000];
+        for (int i = 0; i < nearlySorted.length; i++) {
+            nearlySorted[i] = i;
+        }
+        nearlySorted[100] = -1;
+        Integer[] reversed = nearlySorted.clone();
+        Collections.reverse(Arrays.asList(reversed));
+        Integer[] random1 = random.ints(5000).boxed().toArray(Integer[]::new);
+        String[] strings = new String[5000];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = Integer.toString(random.nextInt(), 36);
+        }
+        Integer[] big = random.ints(1 << 17).boxed().toArray(Integer[]::new);
+        Integer[] duplicates =
+                random.ints(1 << 17, 0, 4).boxed().toArray(Integer[]::new);
+
+        assertEquals(SortDispatcher.Algorithm.INSERTION_SORT,
+                SortDispatcher.choose(tiny, byHash));
+        assertEquals(SortDispatcher.Algorithm.TIM_SORT,
+                SortDispatcher.choose(nearlySorted,
+                        Comparator.<Integer>naturalOrder()));
+        assertEquals(SortDispatcher.Algorithm.TIM_SORT,
+                SortDispatcher.choose(reversed,
+                        Comparator.<Integer>naturalOrder()));
+        assertEquals(SortDispatcher.Algorithm.RADIX_SORT,
+                SortDispatcher.choose(random1,
+                        Comparator.<Integer>reverseOrder()));
+        assertEquals(SortDispatcher.Algorithm.RADIX_SORT,
+                SortDispatcher.choose(strings,
+                        Comparator.<String>naturalOrder()));
+        assertEquals(SortDispatcher.Algorithm.QUICK_SORT,
+                SortDispatcher.choose(random1, byHash));
+        assertEquals(SortDispatcher.Algorithm.QUICK_SORT,
+                SortDispatcher.choose(duplicates, byHash));
+        assertEquals(ForkJoinPool.getCommonPoolParallelism() > 1 ?
+                        SortDispatcher.Algorithm.PARALLEL_SAMPLE_SORT :
+                        SortDispatcher.Algorithm.QUICK_SORT,
+                SortDispatcher.choose(big, byHash));
+
+        SortingAlgorithms.resetSortDecisions();
+        for (Integer[] input : Arrays.asList(tiny, nearlySorted, reversed,
+                random1, big, duplicates)) {
+            Integer[] expected = input.clone();
+            Arrays.sort(expected, Collections.reverseOrder());
+            SortingAlgorithms.sort(input, true);
+            assertArrayEquals(expected, input);
+
+            Arrays.sort(expected, byHash);
+            SortingAlgorithms.sort(input, byHash);
+            for (int i = 1; i < input.length; i++) {
+                assertTrue(byHash.compare(input[i - 1], input[i]) <= 0);
+            }
+        }
+        String[] expectedStrings = strings.clone();
+        Arrays.sort(expectedStrings);
+        SortingAlgorithms.sort(strings, false);
+        assertArrayEquals(expectedStrings, strings);
+
+        int[] ints = random.ints(5000).toArray();
+        int[] expectedInts = ints.clone();
+        Arrays.sort(expectedInts);
+        SortingAlgorithms.sort(ints, false);
+        assertArrayEquals(expectedInts, ints);
+        double[] doubles = random.doubles(5000).toArray();
+        double[] expectedDoubles = doubles.clone();
+        Arrays.sort(expectedDoubles);
+        SortingAlgorithms.sort(doubles, false);
+        assertArrayEquals(expectedDoubles, doubles, 0);
+
+        long total = 0;
+        for (long count : SortingAlgorithms.sortDecisions().values()) {
+            total += count;
+        }
+        assertEquals(15, total);
+        assertEquals(Long.valueOf(2), SortingAlgorithms.sortDecisions()
+                .get(SortDispatcher.Algorithm.INSERTION_SORT));
+        SortingAlgorithms.resetSortDecisions();
+        assertEquals(Long.valueOf(0), SortingAlgorithms.sortDecisions()
+                .get(SortDispatcher.Algorithm.RADIX_SORT));
+    }
+
+    /* ------------------------------- METRICS ------------------------------ */
+
+    @Test
+    public void testSortMetrics() {
+        List<SortMetrics.Measurement> measurements = new ArrayList<>();
+        Integer[] input = new Random(3506).ints(10000).boxed()
+                .toArray(Integer[]::new);
+
+        // Nothing is recorded until metrics are enabled
+        SortingAlgorithms.quickSort(input.clone(), false);
+        AtomicLong comparisons = new AtomicLong();
+        Comparator<Integer> counting = (a, b) -> {
+            comparisons.incrementAndGet();
+            return a.compareTo(b);
+        };
+        SortMetrics.enable(measurements::add);
+        try {
+            SortingAlgorithms.quickSort(input.clone(), counting);
+            SortingAlgorithms.mergeSort(input.clone(), counting);
+            // The algorithm chosen by sort() is part of the same call
+            SortingAlgorithms.sort(input.clone(), counting);
+        } finally {
+            SortMetrics.disable();
+        }
+        SortingAlgorithms.quickSort(input.clone(), false);
+
+        assertEquals(3, measurements.size());
+        SortMetrics.Measurement quickSort = measurements.get(0);
+        assertEquals("quickSort", quickSort.algorithm());
+        assertEquals(10000, quickSort.length());
+        assertTrue(quickSort.comparisons() > 10000);
+        assertTrue(quickSort.swaps() > 0);
+        assertTrue(quickSort.maxDepth() > 0);
+        assertTrue(quickSort.maxDepth() <= 2 * 13);
+        assertEquals(0, quickSort.fallbacks());
+        assertEquals(0, quickSort.auxBytes());
+
+        SortMetrics.Measurement mergeSort = measurements.get(1);
+        assertEquals("mergeSort", mergeSort.algorithm());
+        assertEquals(0, mergeSort.swaps());
+        assertEquals(10000L * SortMetrics.REFERENCE_BYTES,
+                mergeSort.auxBytes());
+
+        assertEquals("sort", measurements.get(2).algorithm());
+        long total = 0;
+        for (SortMetrics.Measurement measurement : measurements) {
+            assertTrue(measurement.nanos() > 0);
+            total += measurement.comparisons();
+        }
+        // Every comparison of the given comparator was counted
+        assertEquals(comparisons.get(), total);
+
+        // Measuring does not change the algorithm that sort() chooses
+        Integer[] natural = new Random(3506).ints(5000).boxed()
+                .toArray(Integer[]::new);
+        Integer[] expected = natural.clone();
+        Arrays.sort(expected);
+        measurements.clear();
+        SortingAlgorithms.resetSortDecisions();
+        SortMetrics.enable(measurements::add);
+        try {
+            SortingAlgorithms.sort(natural, Comparator.naturalOrder());
+        } finally {
+            SortMetrics.disable();
+        }
+
+        assertArrayEquals(expected, natural);
+        assertEquals(1, measurements.size());
+        assertEquals("sort", measurements.get(0).algorithm());
+        assertEquals(Long.valueOf(1), SortingAlgorithms.sortDecisions()
+                .get(SortDispatcher.Algorithm.RADIX_SORT));
+    }
+}
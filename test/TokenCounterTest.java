@@ -0,0 +1,76 @@
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TokenCounterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testSimple() throws IOException {
+        Path file = write("the cat\tsat on\nthe  mat\r\nthe end");
+
+        LinkedMultiHashSet<String> counts = TokenCounter.countTokens(file, 1);
+
+        assertEquals(3, counts.count("the"));
+        assertEquals(1, counts.count("cat"));
+        assertEquals(1, counts.count("end"));
+        assertEquals(8, counts.size());
+        assertEquals(6, counts.distinctCount());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Path file = write("");
+
+        assertEquals(0, TokenCounter.countTokens(file).size());
+    }
+
+    @Test
+    public void testUtf8() throws IOException {
+        Path file = write("na\u00efve caf\u00e9 na\u00efve");
+
+        LinkedMultiHashSet<String> counts = TokenCounter.countTokens(file, 1);
+
+        assertEquals(2, counts.count("na\u00efve"));
+        assertEquals(1, counts.count("caf\u00e9"));
+    }
+
+    @Test
+    public void testChunksInParallel() throws IOException {
+        Random random = new Random(3506);
+        StringBuilder content = new StringBuilder();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            String token = "t" + random.nextInt(500);
+            expected.merge(token, 1, Integer::sum);
+            content.append(token).append(random.nextInt(10) == 0 ? "\n" : " ");
+        }
+        Path file = write(content.toString());
+
+        // Small chunks so that boundaries fall inside tokens
+        LinkedMultiHashSet<String> counts =
+                TokenCounter.countTokens(file, 4, 1000);
+
+        assertEquals(expected.size(), counts.distinctCount());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), counts.count(entry.getKey()));
+        }
+    }
+}